@@ -0,0 +1,35 @@
+package com.ericrobertbrewer.podium;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks of the parsing and encoding hot paths.
+ * Reports throughput along with the allocation rate of each benchmark.
+ */
+public final class Benchmarks {
+
+    private static final String FIXTURES_PROPERTY = "podium.fixtures";
+
+    public static void main(String[] args) throws RunnerException {
+        // Optionally, only run the benchmarks which match a regular expression, e.g. `Transcoder`.
+        final String include;
+        if (args.length > 0) {
+            include = args[0];
+        } else {
+            include = ".*";
+        }
+        final ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class);
+        // Benchmarks are run in forked JVMs, which need to be told where to find the fixtures, if elsewhere.
+        final String fixturesFolder = System.getProperty(FIXTURES_PROPERTY);
+        if (fixturesFolder != null) {
+            builder.jvmArgsAppend("-D" + FIXTURES_PROPERTY + "=" + fixturesFolder);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import com.ericrobertbrewer.podium.scrape.StaticDriver;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+
+/**
+ * Page sources on which the benchmarks run.
+ * By default, these are read from `benchmark/fixtures`, which holds small, synthetic pages with the markup of each site
+ * but placeholder text. Set the `podium.fixtures` system property to use another folder, such as one of page sources
+ * saved by a crawl, whose files have the same names; only real pages give representative numbers.
+ */
+final class Fixtures {
+
+    static final String FOLDER_PROPERTY = "podium.fixtures";
+    private static final String DEFAULT_FOLDER = "benchmark/fixtures";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Load a saved page without a browser, as a reparse would.
+     * @param fileName Of the page source.
+     * @return A driver which has loaded the page.
+     */
+    static WebDriver load(String fileName) {
+        final File file = new File(System.getProperty(FOLDER_PROPERTY, DEFAULT_FOLDER), fileName);
+        if (!file.exists()) {
+            throw new RuntimeException("Missing fixture: `" + file.getAbsolutePath() + "`.");
+        }
+        final WebDriver driver = new StaticDriver();
+        driver.get(file.toURI().toString());
+        return driver;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the small conversions which are run once for every speech in a listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+
+    @Param({"14 Sep 2004", "3 Jan 2017"})
+    public String date;
+
+    @Param({"Elder John A. Doe"})
+    public String speaker;
+
+    @Param({"\"Come, Follow Me\": Keeping Our Covenants (Part 1)?"})
+    public String title;
+
+    /**
+     * File names are made from dates which have already been standardized.
+     */
+    private String standardDate;
+
+    @Setup
+    public void setUp() {
+        standardDate = ByuiSpeechesScraper.standardizeDate(date);
+    }
+
+    @Benchmark
+    public String byuiStandardizeDate() {
+        return ByuiSpeechesScraper.standardizeDate(date);
+    }
+
+    @Benchmark
+    public String byuiFileNameBase() {
+        return ByuiSpeechesScraper.getFileNameBase(standardDate, speaker, title);
+    }
+}
@@ -0,0 +1,88 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsers which turn a loaded page into text and notes, as run for every page of a reparse.
+ * Pages are parsed from saved sources (see {@link Fixtures}), so only the cost of parsing is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    private WebElement byuiModernTranscript;
+    private WebElement byuiThinContent;
+    private WebElement byuiWideBody;
+    private WebElement gcBodyBlock;
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(outputStream);
+    private final ByteArrayOutputStream notesOutputStream = new ByteArrayOutputStream();
+    private final PrintStream notesOut = new PrintStream(notesOutputStream);
+
+    @Setup
+    public void setUp() {
+        // Find the same elements that each scraper passes to its parser.
+        final WebDriver modern = Fixtures.load("byui-modern.html");
+        byuiModernTranscript = modern.findElement(By.id("transcript-text"));
+        final WebDriver thin = Fixtures.load("byui-thin.html");
+        byuiThinContent = thin.findElement(By.id("content_section")).findElement(By.className("leftAREA"));
+        final WebDriver wide = Fixtures.load("byui-wide.html");
+        byuiWideBody = wide.findElement(By.tagName("body"));
+        final WebDriver gc = Fixtures.load("gc-talk.html");
+        gcBodyBlock = gc.findElement(By.className("body-block"));
+    }
+
+    @Benchmark
+    public int byuiModernSpeech() {
+        reset();
+        new ByuiSpeechesScraper.ModernSpeechParser().writeChildElementsOrSelf(byuiModernTranscript, out, notesOut);
+        return size();
+    }
+
+    @Benchmark
+    public int byuiThinSpeech() {
+        reset();
+        new ByuiSpeechesScraper.ThinSpeechParser().writeChildElementsOrSelf(byuiThinContent, out, notesOut);
+        return size();
+    }
+
+    @Benchmark
+    public int byuiWideSpeech() {
+        reset();
+        new ByuiSpeechesScraper.WideSpeechParser().writeChildElementsOrSelf(byuiWideBody, out, notesOut);
+        return size();
+    }
+
+    @Benchmark
+    public int gcTalk() {
+        reset();
+        GeneralConferenceScraper.writeChildElementsOrSelf(gcBodyBlock, out);
+        return size();
+    }
+
+    private void reset() {
+        outputStream.reset();
+        notesOutputStream.reset();
+    }
+
+    /**
+     * @return The number of bytes written, so that the work cannot be eliminated.
+     */
+    private int size() {
+        out.flush();
+        notesOut.flush();
+        return outputStream.size() + notesOutputStream.size();
+    }
+}
@@ -0,0 +1,114 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import com.ericrobertbrewer.podium.Encoding;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the shared, precompiled transcoders of each scraper with the `String.replaceAll` chains which they
+ * replaced. Both must produce the same text, which is checked before each run; the chains are kept here only as a
+ * baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscoderBenchmark {
+
+    /**
+     * Typical paragraphs, as the `innerHTML` of a `<p>` element from each site.
+     */
+    @Param({
+            // Plain text, which most paragraphs are.
+            "We have gathered to be instructed and edified, and I pray that the Spirit will be with us as we do.",
+            // Formatting, an entity, and a reference number.
+            "The Lord said, &ldquo;Come unto me&rdquo; and <em>rest</em>.<sup>3</sup> We read in " +
+                    "<a href=\"/scriptures/bofm/alma/32.21\">Alma 32:21</a> that faith is&nbsp;not a perfect knowledge.",
+            // A reference link, as in General Conference talks.
+            "Faith is a principle of action and power.<a class=\"note-ref\" href=\"#note4\"><sup class=\"marker\">4</sup></a> " +
+                    "It is <i>the first principle</i> of the gospel.<br/>"
+    })
+    public String html;
+
+    /**
+     * Fail the run if any transcoder doesn't produce the same text as its baseline, since that would change the corpus.
+     */
+    @Setup
+    public void setUp() {
+        check("byuEncode", byuEncode(), byuEncodeBaseline());
+        check("byuiEncode", byuiEncode(), byuiEncodeBaseline());
+        check("byuiDecode", byuiDecode(), byuiDecodeBaseline());
+        check("gcEncode", gcEncode(), gcEncodeBaseline());
+    }
+
+    private void check(String name, String text, String baseline) {
+        if (!text.equals(baseline)) {
+            throw new IllegalStateException("`" + name + "` differs from its baseline for `" + html + "`: `" + text +
+                    "` instead of `" + baseline + "`.");
+        }
+    }
+
+    @Benchmark
+    public String byuEncode() {
+        return ByuSpeechesScraper.encode(html);
+    }
+
+    @Benchmark
+    public String byuEncodeBaseline() {
+        return html.replaceAll("<sup>([0-9]+)</sup>", Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
+                .replaceAll("<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2")
+                .replaceAll("<[^>]+?/>", "");
+    }
+
+    @Benchmark
+    public String byuiEncode() {
+        return ByuiSpeechesScraper.encode(html);
+    }
+
+    @Benchmark
+    public String byuiEncodeBaseline() {
+        return decodeBaseline(html
+                .replaceAll("<a .*?><sup.*?> *\\[?([0-9]+|[ivx]+)]? *</sup></a>",
+                        Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
+                .replaceAll("<(sup|sub).*?> *(?:<span.*?>)? *\\[?([0-9]+|[ivx]+)]? *(?:</span>)? *</\\1>",
+                        Encoding.REFERENCE_NUMBER_START + "$2" + Encoding.REFERENCE_NUMBER_END)
+                .replaceAll("(?:<a.*?>)? *\\[([0-9]+|[ivx]+)] *(?:</a.*?>)?",
+                        Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END));
+    }
+
+    @Benchmark
+    public String byuiDecode() {
+        return ByuiSpeechesScraper.decode(html);
+    }
+
+    @Benchmark
+    public String byuiDecodeBaseline() {
+        return decodeBaseline(html);
+    }
+
+    private static String decodeBaseline(String html) {
+        return html
+                .replaceAll("&nbsp;", " ")
+                .replaceAll("&amp;", "&")
+                .replaceAll("(?<!<)</?(?:sup|strong|em|b|i|font|style|s|a|u|sub|g|ins).*?>(?!>)", "")
+                .replaceAll("<[^>]+?/>", "")
+                .replaceAll("<img .*?>", "")
+                .trim();
+    }
+
+    @Benchmark
+    public String gcEncode() {
+        return GeneralConferenceScraper.encode(html);
+    }
+
+    @Benchmark
+    public String gcEncodeBaseline() {
+        return html.replaceAll("<a class=\"note-ref\" href=\"#note([0-9]+)\"><sup class=\"marker\">\\1</sup></a>",
+                Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
+                .replaceAll("<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2")
+                .replaceAll("<[^>]+?/>", "");
+    }
+}
@@ -1,6 +1,9 @@
 package com.ericrobertbrewer.podium;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class Folders {
     
@@ -24,6 +27,31 @@ public class Folders {
     private static final String BOOKS_ROOT = CONTENT_ROOT + "books" + SLASH;
     public static final String BOOKS_JESUS_THE_CHRIST = BOOKS_ROOT + "jesus-the-christ" + SLASH;
 
+    /**
+     * Folder for files derived from the content, such as the search index.
+     */
+    public static final String INDEX_ROOT = CONTENT_ROOT + "index" + SLASH;
+
+    /**
+     * Root folder of each collection of scraped content, by its short name (as in the `<content>` argument).
+     */
+    public static final Map<String, String> COLLECTIONS;
+    static {
+        final Map<String, String> collections = new LinkedHashMap<>();
+        collections.put("byu", SPEECHES_BYU);
+        collections.put("byuh", SPEECHES_BYUH);
+        collections.put("byui", SPEECHES_BYUI);
+        collections.put("xmas", SPEECHES_CHRISTMAS_DEVOTIONALS);
+        collections.put("gc", SPEECHES_GENERAL_CONFERENCE);
+        collections.put("jtc", BOOKS_JESUS_THE_CHRIST);
+        COLLECTIONS = Collections.unmodifiableMap(collections);
+    }
+
+    /**
+     * Folder for the profiles (cache, cookies) of browsers which are kept between scrapes.
+     */
+    public static final String BROWSER_PROFILES_ROOT = ".." + SLASH + "browser-profiles" + SLASH;
+
     private static final String NODE_MODULES_ROOT = ".." + SLASH + "node_modules" + SLASH;
     public static final String SCRIPTURES_ROOT = NODE_MODULES_ROOT + "@bencrowder" + SLASH + "scriptures-json" + SLASH;
 
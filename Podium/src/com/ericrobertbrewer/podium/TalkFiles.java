@@ -0,0 +1,79 @@
+package com.ericrobertbrewer.podium;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Names of the files of a single talk, which are its file name base followed by a suffix.
+ * The scrapers write them, and the corpus, the indexes, and the server name each talk by the same base.
+ */
+public final class TalkFiles {
+
+    public static final String TEXT_SUFFIX = ".txt";
+    public static final String NOTES_SUFFIX = "_notes.tsv";
+    public static final String REFERENCES_SUFFIX = "_ref.tsv";
+    public static final String SOURCE_SUFFIX = ".html";
+
+    /**
+     * Suffixes of every file which may be written for a single talk, after the base of its file name.
+     */
+    public static final List<String> SUFFIXES = Collections.unmodifiableList(Arrays.asList(
+            SOURCE_SUFFIX, TEXT_SUFFIX, NOTES_SUFFIX, REFERENCES_SUFFIX));
+
+    /**
+     * @param fileName Of a file, such as `the-prophet-of-god_notes.tsv`.
+     * @return The suffix of the talk file, such as `_notes.tsv`, or `null` if it isn't the file of a talk.
+     */
+    public static String getSuffix(String fileName) {
+        for (String suffix : SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return suffix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param fileName Of a file, such as `the-prophet-of-god_notes.tsv`.
+     * @return The base of its name, such as `the-prophet-of-god`, or the whole name if it isn't the file of a talk.
+     */
+    public static String getBase(String fileName) {
+        final String suffix = getSuffix(fileName);
+        return suffix != null ? fileName.substring(0, fileName.length() - suffix.length()) : fileName;
+    }
+
+    /**
+     * @param folder Of the table of the talk.
+     * @param value Of a column of the table, such as `text` or `source`.
+     * @return The file within the folder which the value names, or `null` if it names none, such as a URL or a key in
+     * the source store.
+     */
+    public static File getFile(File folder, String value) {
+        if (value.isEmpty() || value.indexOf('/') != -1 || value.indexOf(File.separatorChar) != -1) {
+            return null;
+        }
+        final File file = new File(folder, value);
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Name a talk by the first file which its row names, as its document in the corpus, its entry in the catalog, and
+     * its hits in the indexes are named.
+     * @param folder Of the table of the talk.
+     * @param values Of the row of the talk, in order.
+     * @return The base of the file names of the talk, or `null` if the row names no file.
+     */
+    public static String getBase(File folder, String[] values) {
+        for (String value : values) {
+            if (getFile(folder, value) != null) {
+                return getBase(value);
+            }
+        }
+        return null;
+    }
+
+    private TalkFiles() {
+    }
+}
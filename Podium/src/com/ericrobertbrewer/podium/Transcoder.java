@@ -0,0 +1,112 @@
+package com.ericrobertbrewer.podium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the HTML of a paragraph (heading, list item, note) into the plain text {@link Encoding} of output files.
+ * A transcoder is a fixed sequence of steps whose patterns are compiled only once, so one instance may be shared
+ * between threads and used for every paragraph of every talk.
+ */
+public final class Transcoder {
+
+    /**
+     * One pass over the text. Another transcoder may be used as a step with `transcoder::transcode`.
+     */
+    public interface Step {
+        String apply(String text);
+    }
+
+    /**
+     * Ignore self-closing HTML tags.
+     */
+    public static final Step REMOVE_SELF_CLOSING_TAGS = replace("/>", "<[^>]+?/>", "");
+
+    /**
+     * Ignore HTML formatting tags (links, italics, etc.) which are closed, keeping their contents.
+     */
+    public static final Step REMOVE_CLOSED_TAGS = replace("</", "<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2");
+
+    /**
+     * Trim leading and trailing whitespace.
+     */
+    public static final Step TRIM = String::trim;
+
+    private final Step[] steps;
+
+    /**
+     * @param steps Applied in the order in which they are given.
+     */
+    public Transcoder(Step... steps) {
+        this.steps = steps.clone();
+    }
+
+    public String transcode(String html) {
+        String text = html;
+        for (Step step : steps) {
+            text = step.apply(text);
+        }
+        return text;
+    }
+
+    /**
+     * @param group Of the reference number in the pattern.
+     * @return A replacement which encodes the reference number as `<<#>>`.
+     */
+    public static String referenceNumber(int group) {
+        return Encoding.REFERENCE_NUMBER_START + "$" + group + Encoding.REFERENCE_NUMBER_END;
+    }
+
+    /**
+     * Replace every match of a regular expression, exactly as {@link String#replaceAll(String, String)} would.
+     * @param trigger A literal which is part of every match. Text which doesn't contain it is returned as it is,
+     *                without running the pattern. This skips most patterns for most paragraphs.
+     * @param regex To find.
+     * @param replacement Of each match, which may refer to groups as `$1`.
+     * @return The step.
+     */
+    public static Step replace(String trigger, String regex, String replacement) {
+        final Pattern pattern = Pattern.compile(regex);
+        return text -> {
+            if (!text.contains(trigger)) {
+                return text;
+            }
+            return pattern.matcher(text).replaceAll(replacement);
+        };
+    }
+
+    /**
+     * Replace literal strings (such as HTML entities) in a single pass.
+     * This is equivalent to replacing each literal in turn, as long as no replacement can form another literal with
+     * the text around it.
+     * @param trigger A literal which is part of every target, such as `&`.
+     * @param replacements Of each target literal.
+     * @return The step.
+     */
+    public static Step replaceLiterals(String trigger, Map<String, String> replacements) {
+        final List<String> quoted = new ArrayList<>();
+        for (String target : replacements.keySet()) {
+            quoted.add(Pattern.quote(target));
+        }
+        final Pattern pattern = Pattern.compile(String.join("|", quoted));
+        return text -> {
+            if (!text.contains(trigger)) {
+                return text;
+            }
+            final Matcher matcher = pattern.matcher(text);
+            if (!matcher.find()) {
+                return text;
+            }
+            final StringBuilder sb = new StringBuilder(text.length());
+            int start = 0;
+            do {
+                sb.append(text, start, matcher.start()).append(replacements.get(matcher.group()));
+                start = matcher.end();
+            } while (matcher.find());
+            return sb.append(text, start, text.length()).toString();
+        };
+    }
+}
@@ -0,0 +1,465 @@
+package com.ericrobertbrewer.podium.corpus;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The metadata of every talk of every collection, read from a catalog written by {@link CatalogWriter}, as columns
+ * held in memory.
+ *
+ * Columns with few distinct values (speaker, type, position...) are dictionary-encoded, so a filter is tested once per
+ * distinct value rather than once per row, and then by an array lookup on each row's code. Rows are ordered by date,
+ * so a range of dates is found by binary search.
+ *
+ * <pre>
+ * catalog.query()
+ *         .where("speaker", "Dallin H. Oaks")
+ *         .where("type", "Devotional")
+ *         .between("1990", "2005")
+ *         .groupBy("collection");
+ * </pre>
+ */
+public class Catalog {
+
+    public enum Kind {
+        /**
+         * Dates as `yyyymmdd`, where an unknown month or day is `00`, and an unknown date is `0`.
+         */
+        DATE,
+        /**
+         * Codes into a sorted dictionary of distinct values.
+         */
+        DICTIONARY,
+        /**
+         * Values which are mostly distinct (titles).
+         */
+        STRING
+    }
+
+    public static final String COLLECTION = "collection";
+    public static final String FOLDER = "folder";
+    public static final String NAME = "name";
+    public static final String DATE = "date";
+    public static final String TITLE = "title";
+    public static final String SPEAKER = "speaker";
+    public static final String POSITION = "position";
+    public static final String ROLE = "role";
+    public static final String TYPE = "type";
+    public static final String TOPICS = "topics";
+    /**
+     * The key of the page source in the source store of the collection, or the name of its file in the folder.
+     */
+    public static final String SOURCE = "source";
+    /**
+     * A column which can be grouped by, but isn't stored: the year of the date.
+     */
+    public static final String YEAR = "year";
+
+    static final String[] COLUMNS = {COLLECTION, FOLDER, NAME, DATE, TITLE, SPEAKER, POSITION, ROLE, TYPE, TOPICS,
+            SOURCE};
+    static final Kind[] KINDS = {Kind.DICTIONARY, Kind.DICTIONARY, Kind.STRING, Kind.DATE, Kind.STRING,
+            Kind.DICTIONARY, Kind.DICTIONARY, Kind.DICTIONARY, Kind.DICTIONARY, Kind.STRING, Kind.STRING};
+    static final int MAGIC = 0x50444354;
+    static final int VERSION = 2;
+
+    /**
+     * @param file Written by {@link CatalogWriter}.
+     * @return The catalog, read completely into memory.
+     * @throws IOException When the file can't be read or isn't a catalog.
+     */
+    public static Catalog open(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @param inputStream Of a catalog, as written by {@link CatalogWriter}.
+     * @return The catalog.
+     * @throws IOException When the catalog can't be read.
+     */
+    static Catalog read(InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a catalog file.");
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported catalog version: `" + version + "`.");
+        }
+        final int rowCount = in.readInt();
+        final int columnCount = in.readInt();
+        if (columnCount != COLUMNS.length) {
+            throw new IOException("Unexpected catalog column count: `" + columnCount + "`.");
+        }
+        final Catalog catalog = new Catalog(rowCount);
+        for (int c = 0; c < columnCount; c++) {
+            final String name = readString(in);
+            if (!COLUMNS[c].equals(name)) {
+                throw new IOException("Unexpected catalog column: `" + name + "`.");
+            }
+            switch (KINDS[c]) {
+                case DATE:
+                    catalog.ints[c] = readInts(in, rowCount);
+                    break;
+                case DICTIONARY:
+                    final String[] dictionary = new String[in.readInt()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = readString(in);
+                    }
+                    catalog.dictionaries[c] = dictionary;
+                    catalog.ints[c] = readInts(in, rowCount);
+                    break;
+                case STRING:
+                    final String[] values = new String[rowCount];
+                    for (int r = 0; r < rowCount; r++) {
+                        values[r] = readString(in);
+                    }
+                    catalog.strings[c] = values;
+                    break;
+            }
+        }
+        return catalog;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        final byte[] bytes = new byte[count * Integer.BYTES];
+        in.readFully(bytes);
+        final int[] values = new int[count];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    private final int rowCount;
+    private volatile Map<String, Integer> rowsByName = null;
+    /**
+     * By column: the dates, or the dictionary codes, of every row.
+     */
+    private final int[][] ints = new int[COLUMNS.length][];
+    private final String[][] dictionaries = new String[COLUMNS.length][];
+    private final String[][] strings = new String[COLUMNS.length][];
+
+    private Catalog(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(COLUMNS));
+    }
+
+    /**
+     * @param row Index, in order of date.
+     * @param column Name.
+     * @return The value, with dates formatted as `yyyy-mm-dd` (or `yyyy-mm`, or `yyyy`), or blank if unknown.
+     */
+    public String get(int row, String column) {
+        final int c = getColumnIndex(column);
+        switch (KINDS[c]) {
+            case DATE:
+                return formatDate(ints[c][row]);
+            case DICTIONARY:
+                return dictionaries[c][ints[c][row]];
+            default:
+                return strings[c][row];
+        }
+    }
+
+    /**
+     * @param row Index, in order of date.
+     * @return The date as `yyyymmdd`, or `0` if unknown.
+     */
+    public int getDate(int row) {
+        return ints[getColumnIndex(DATE)][row];
+    }
+
+    /**
+     * @param column Name of a dictionary-encoded column, such as `speaker`.
+     * @return Its distinct values, in order.
+     */
+    public List<String> getDistinctValues(String column) {
+        final int c = getColumnIndex(column);
+        if (KINDS[c] != Kind.DICTIONARY) {
+            throw new IllegalArgumentException("Not a dictionary-encoded column: `" + column + "`.");
+        }
+        return Collections.unmodifiableList(Arrays.asList(dictionaries[c]));
+    }
+
+    /**
+     * @param name Of a talk, such as `gc/2018-04/the-prophet-of-god`, as its document is named in a corpus segment.
+     * @return Its row, or `-1` if the catalog has no such talk.
+     */
+    public int find(String name) {
+        Map<String, Integer> rowsByName = this.rowsByName;
+        if (rowsByName == null) {
+            final String[] names = strings[getColumnIndex(NAME)];
+            rowsByName = new HashMap<>(rowCount * 2);
+            for (int row = 0; row < rowCount; row++) {
+                rowsByName.put(names[row], row);
+            }
+            this.rowsByName = rowsByName;
+        }
+        return rowsByName.getOrDefault(name, -1);
+    }
+
+    public Query query() {
+        return new Query();
+    }
+
+    private static int getColumnIndex(String column) {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (COLUMNS[c].equals(column)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unknown catalog column: `" + column + "`.");
+    }
+
+    static String formatDate(int date) {
+        if (date == 0) {
+            return "";
+        }
+        final int yyyy = date / 10000;
+        final int mm = date / 100 % 100;
+        final int dd = date % 100;
+        if (mm == 0) {
+            return String.format("%04d", yyyy);
+        } else if (dd == 0) {
+            return String.format("%04d-%02d", yyyy, mm);
+        }
+        return String.format("%04d-%02d-%02d", yyyy, mm, dd);
+    }
+
+    /**
+     * @param date Such as `1990`, `1990-04`, or `1990-04-06`.
+     * @param isEnd Whether the date ends a range, in which case a year or month includes its last day.
+     * @return The earliest (or latest) `yyyymmdd` of the date.
+     */
+    static int parseDate(String date, boolean isEnd) {
+        final String[] parts = date.trim().split("-");
+        if (parts.length < 1 || parts.length > 3) {
+            throw new IllegalArgumentException("Unrecognized date: `" + date + "`.");
+        }
+        try {
+            final int yyyy = Integer.parseInt(parts[0]);
+            final int mm = parts.length > 1 ? Integer.parseInt(parts[1]) : (isEnd ? 99 : 0);
+            final int dd = parts.length > 2 ? Integer.parseInt(parts[2]) : (isEnd ? 99 : 0);
+            return yyyy * 10000 + mm * 100 + dd;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unrecognized date: `" + date + "`.", e);
+        }
+    }
+
+    /**
+     * A filter of the rows of the catalog, which is run by {@link #count()}, {@link #rows()}, or {@link #groupBy}.
+     * Every condition must be met.
+     */
+    public class Query {
+
+        private int fromDate = Integer.MIN_VALUE;
+        private int toDate = Integer.MAX_VALUE;
+        /**
+         * For each dictionary-encoded column which is filtered, whether each code is allowed.
+         */
+        private final Map<Integer, boolean[]> allowedCodes = new LinkedHashMap<>();
+        private final Map<Integer, List<Predicate<String>>> stringPredicates = new LinkedHashMap<>();
+
+        private Query() {
+        }
+
+        /**
+         * @param column Name.
+         * @param values Any of which the value of the column may equal, ignoring case.
+         * @return This query.
+         */
+        public Query where(String column, String... values) {
+            return where(column, value -> {
+                for (String v : values) {
+                    if (v.equalsIgnoreCase(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+
+        /**
+         * @param column Name. Dates are tested as formatted by {@link #get}.
+         * @param predicate Which the value of the column must meet.
+         * @return This query.
+         */
+        public Query where(String column, Predicate<String> predicate) {
+            final int c = getColumnIndex(column);
+            if (KINDS[c] == Kind.DICTIONARY) {
+                final String[] dictionary = dictionaries[c];
+                final boolean[] allowed = new boolean[dictionary.length];
+                for (int code = 0; code < dictionary.length; code++) {
+                    allowed[code] = predicate.test(dictionary[code]);
+                }
+                final boolean[] previous = allowedCodes.get(c);
+                if (previous != null) {
+                    for (int code = 0; code < allowed.length; code++) {
+                        allowed[code] &= previous[code];
+                    }
+                }
+                allowedCodes.put(c, allowed);
+            } else {
+                stringPredicates.computeIfAbsent(c, key -> new ArrayList<>()).add(predicate);
+            }
+            return this;
+        }
+
+        /**
+         * @param from Such as `1990`, `1990-04`, or `1990-04-06`, or `null` for no earliest date.
+         * @param to Such as `2005`, inclusive, or `null` for no latest date.
+         * @return This query. Rows whose dates are unknown are excluded.
+         */
+        public Query between(String from, String to) {
+            fromDate = Math.max(fromDate, from != null ? parseDate(from, false) : 1);
+            toDate = Math.min(toDate, to != null ? parseDate(to, true) : Integer.MAX_VALUE);
+            return this;
+        }
+
+        /**
+         * @return The number of rows which meet every condition.
+         */
+        public int count() {
+            final int[] count = {0};
+            forEachRow(row -> count[0]++);
+            return count[0];
+        }
+
+        /**
+         * @return The indices of the rows which meet every condition, in order of date.
+         */
+        public int[] rows() {
+            final int[][] rows = {new int[64]};
+            final int[] size = {0};
+            forEachRow(row -> {
+                if (size[0] == rows[0].length) {
+                    rows[0] = Arrays.copyOf(rows[0], size[0] * 2);
+                }
+                rows[0][size[0]++] = row;
+            });
+            return Arrays.copyOf(rows[0], size[0]);
+        }
+
+        /**
+         * @param column Name, or `year`.
+         * @return The number of rows which meet every condition, by value of the column, from most to fewest.
+         */
+        public Map<String, Integer> groupBy(String column) {
+            final int[] counts;
+            final String[] keys;
+            if (YEAR.equals(column)) {
+                final int[] dates = ints[getColumnIndex(DATE)];
+                final Map<Integer, Integer> years = new TreeMap<>();
+                forEachRow(row -> years.merge(dates[row] / 10000, 1, Integer::sum));
+                final Map<String, Integer> groups = new LinkedHashMap<>();
+                for (Map.Entry<Integer, Integer> entry : years.entrySet()) {
+                    groups.put(entry.getKey() == 0 ? "" : String.format("%04d", entry.getKey()), entry.getValue());
+                }
+                return groups;
+            }
+            final int c = getColumnIndex(column);
+            if (KINDS[c] == Kind.DICTIONARY) {
+                // Count codes, then look up each distinct value once.
+                final int[] codes = ints[c];
+                counts = new int[dictionaries[c].length];
+                forEachRow(row -> counts[codes[row]]++);
+                keys = dictionaries[c];
+            } else {
+                final Map<String, Integer> indices = new HashMap<>();
+                final List<String> values = new ArrayList<>();
+                final int[][] valueCounts = {new int[64]};
+                forEachRow(row -> {
+                    final int index = indices.computeIfAbsent(get(row, column), key -> {
+                        values.add(key);
+                        return values.size() - 1;
+                    });
+                    if (index == valueCounts[0].length) {
+                        valueCounts[0] = Arrays.copyOf(valueCounts[0], index * 2);
+                    }
+                    valueCounts[0][index]++;
+                });
+                counts = valueCounts[0];
+                keys = values.toArray(new String[0]);
+            }
+            final List<Integer> indices = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (counts[i] > 0) {
+                    indices.add(i);
+                }
+            }
+            indices.sort((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a]) : keys[a].compareTo(keys[b]));
+            final Map<String, Integer> groups = new LinkedHashMap<>();
+            for (int i : indices) {
+                groups.put(keys[i], counts[i]);
+            }
+            return groups;
+        }
+
+        private void forEachRow(IntConsumer consumer) {
+            // Rows are ordered by date, so the range of dates is a range of rows.
+            final int[] dates = ints[getColumnIndex(DATE)];
+            final int start = fromDate == Integer.MIN_VALUE ? 0 : lowerBound(dates, fromDate);
+            final int end = toDate == Integer.MAX_VALUE ? rowCount : lowerBound(dates, toDate + 1L);
+            final int dictionaryFilterCount = allowedCodes.size();
+            final int[][] codes = new int[dictionaryFilterCount][];
+            final boolean[][] allowed = new boolean[dictionaryFilterCount][];
+            int f = 0;
+            for (Map.Entry<Integer, boolean[]> entry : allowedCodes.entrySet()) {
+                codes[f] = ints[entry.getKey()];
+                allowed[f] = entry.getValue();
+                f++;
+            }
+            rows:
+            for (int row = start; row < end; row++) {
+                for (int i = 0; i < dictionaryFilterCount; i++) {
+                    if (!allowed[i][codes[i][row]]) {
+                        continue rows;
+                    }
+                }
+                for (Map.Entry<Integer, List<Predicate<String>>> entry : stringPredicates.entrySet()) {
+                    final String value = get(row, COLUMNS[entry.getKey()]);
+                    for (Predicate<String> predicate : entry.getValue()) {
+                        if (!predicate.test(value)) {
+                            continue rows;
+                        }
+                    }
+                }
+                consumer.accept(row);
+            }
+        }
+    }
+
+    /**
+     * @return The first index whose value is at least the key, or the length if there is none.
+     */
+    private static int lowerBound(int[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
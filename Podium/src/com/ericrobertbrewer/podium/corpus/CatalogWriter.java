@@ -0,0 +1,254 @@
+package com.ericrobertbrewer.podium.corpus;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+import com.ericrobertbrewer.podium.scrape.Tsv;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Consolidates the tables (program, summary) of every folder (year, conference) of every collection into a single
+ * catalog file, which is then read with {@link Catalog}.
+ *
+ * The catalog is laid out as:
+ * <pre>
+ * header:  magic, version, row count, column count (each an `int`)
+ * columns: for each column: name, then by kind:
+ *          date:       the `yyyymmdd` of each row (`int`)
+ *          dictionary: value count (`int`), each value in order, then the code of each row (`int`)
+ *          string:     the value of each row
+ * </pre>
+ * Strings are written as a length (`int`) followed by UTF-8 bytes. Rows are ordered by date, then as they were added.
+ */
+public class CatalogWriter {
+
+    private static final String[] MONTH_NAMES = {"january", "february", "march", "april", "may", "june", "july",
+            "august", "september", "october", "november", "december"};
+    /**
+     * Such as `2018-04-06`.
+     */
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4})-(\\d{1,2})(?:-(\\d{1,2}))?");
+    /**
+     * Such as `April 6, 2018` or `Apr. 6, 2018`.
+     */
+    private static final Pattern MONTH_DAY_YEAR = Pattern.compile("([A-Za-z]+)\\.? +(\\d{1,2}),? +(\\d{4})");
+    /**
+     * Such as `6 April 2018`.
+     */
+    private static final Pattern DAY_MONTH_YEAR = Pattern.compile("(\\d{1,2}) +([A-Za-z]+)\\.?,? +(\\d{4})");
+    private static final Pattern YEAR = Pattern.compile("(\\d{4})");
+
+    /**
+     * The values of each row, by column of {@link Catalog#COLUMNS}. The date column is kept in {@link #dates}.
+     */
+    private final List<String[]> rows = new ArrayList<>();
+    /**
+     * The `yyyymmdd` of each row.
+     */
+    private int[] dates = new int[1024];
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Add every row of the table of every folder (year, conference) within the root folder of a collection.
+     * @param collection Short name of the collection, such as `gc`.
+     * @param rootFolder Which has already been scraped.
+     * @throws IOException When a table can't be read.
+     */
+    public void addRootFolder(String collection, File rootFolder) throws IOException {
+        final File[] folders = rootFolder.listFiles(File::isDirectory);
+        if (folders == null) {
+            throw new IOException("Unable to list folders in: `" + rootFolder.getPath() + "`.");
+        }
+        Arrays.sort(folders);
+        for (File folder : folders) {
+            for (String tableFileName : SegmentWriter.TABLE_FILE_NAMES) {
+                final File tableFile = new File(folder, tableFileName);
+                if (tableFile.exists()) {
+                    addTable(collection, folder, tableFile);
+                }
+            }
+        }
+    }
+
+    private void addTable(String collection, File folder, File tableFile) throws IOException {
+        final List<String> lines = Files.readAllLines(tableFile.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return;
+        }
+        final String[] columns = Tsv.split(lines.get(0));
+        for (int r = 1; r < lines.size(); r++) {
+            final String[] values = Tsv.split(lines.get(r));
+            final Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                row.put(columns[i], i < values.length ? values[i] : "");
+            }
+            // Name the talk as its document in the corpus segment is named.
+            final String base = TalkFiles.getBase(folder, values);
+            row.put(Catalog.COLLECTION, collection);
+            row.put(Catalog.FOLDER, folder.getName());
+            row.put(Catalog.NAME, collection + "/" + folder.getName() + "/" + (base != null ? base : "#" + r));
+            add(row, parseDate(row.getOrDefault(Catalog.DATE, ""), folder.getName()));
+        }
+    }
+
+    /**
+     * @param row Values by column name. Missing columns are blank.
+     * @param date As `yyyymmdd`, or `0` if unknown.
+     */
+    public void add(Map<String, String> row, int date) {
+        final String[] values = new String[Catalog.COLUMNS.length];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = row.getOrDefault(Catalog.COLUMNS[c], "").trim();
+        }
+        if (rows.size() == dates.length) {
+            dates = Arrays.copyOf(dates, dates.length * 2);
+        }
+        dates[rows.size()] = date;
+        rows.add(values);
+    }
+
+    /**
+     * @param date As written in a table, in any of several formats, or blank.
+     * @param folderName Of the table, which begins with the year (and possibly month) of its talks.
+     * @return The date as `yyyymmdd`, where an unknown month or day is `00`, or `0` if the date is unknown.
+     */
+    static int parseDate(String date, String folderName) {
+        Matcher matcher = ISO_DATE.matcher(date);
+        if (matcher.find()) {
+            return toDate(matcher.group(1), matcher.group(2), matcher.group(3));
+        }
+        matcher = MONTH_DAY_YEAR.matcher(date);
+        if (matcher.find() && getMonth(matcher.group(1)) != 0) {
+            return toDate(matcher.group(3), "" + getMonth(matcher.group(1)), matcher.group(2));
+        }
+        matcher = DAY_MONTH_YEAR.matcher(date);
+        if (matcher.find() && getMonth(matcher.group(2)) != 0) {
+            return toDate(matcher.group(3), "" + getMonth(matcher.group(2)), matcher.group(1));
+        }
+        // Fall back to the folder, such as `2018-04` (a conference) or `2018` (a year).
+        matcher = ISO_DATE.matcher(folderName);
+        if (matcher.lookingAt()) {
+            return toDate(matcher.group(1), matcher.group(2), null);
+        }
+        matcher = YEAR.matcher(folderName);
+        if (matcher.lookingAt()) {
+            return toDate(matcher.group(1), null, null);
+        }
+        return 0;
+    }
+
+    private static int toDate(String yyyy, String mm, String dd) {
+        final int month = mm != null ? Integer.parseInt(mm) : 0;
+        final int day = dd != null ? Integer.parseInt(dd) : 0;
+        if (month > 12 || day > 31) {
+            return Integer.parseInt(yyyy) * 10000;
+        }
+        return Integer.parseInt(yyyy) * 10000 + month * 100 + day;
+    }
+
+    /**
+     * @param name Such as `April` or `Apr`.
+     * @return From `1` to `12`, or `0` if unrecognized.
+     */
+    private static int getMonth(String name) {
+        final String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.length() < 3) {
+            return 0;
+        }
+        for (int i = 0; i < MONTH_NAMES.length; i++) {
+            if (MONTH_NAMES[i].startsWith(lower)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param file To write. It is replaced only once the catalog has been written completely.
+     * @throws IOException When the file can't be written.
+     */
+    public void write(File file) throws IOException {
+        final File partFile = new File(file.getPath() + ".part");
+        try (OutputStream out = new FileOutputStream(partFile)) {
+            write(out);
+        }
+        Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Build the catalog in memory, without writing a file, such as to serve content which is still being scraped.
+     * @return The catalog of every row which has been added.
+     */
+    public Catalog build() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out);
+            return Catalog.read(new ByteArrayInputStream(out.toByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(OutputStream outputStream) throws IOException {
+        // Order rows by date, then as they were added, by sorting each date with the index of its row.
+        final long[] keys = new long[rows.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) dates[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        final int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        out.writeInt(Catalog.MAGIC);
+        out.writeInt(Catalog.VERSION);
+        out.writeInt(order.length);
+        out.writeInt(Catalog.COLUMNS.length);
+        for (int c = 0; c < Catalog.COLUMNS.length; c++) {
+            writeString(out, Catalog.COLUMNS[c]);
+            switch (Catalog.KINDS[c]) {
+                case DATE:
+                    for (int i : order) {
+                        out.writeInt(dates[i]);
+                    }
+                    break;
+                case DICTIONARY:
+                    final TreeSet<String> distinct = new TreeSet<>();
+                    for (String[] row : rows) {
+                        distinct.add(row[c]);
+                    }
+                    final Map<String, Integer> codes = new HashMap<>();
+                    out.writeInt(distinct.size());
+                    for (String value : distinct) {
+                        codes.put(value, codes.size());
+                        writeString(out, value);
+                    }
+                    for (int i : order) {
+                        out.writeInt(codes.get(rows.get(i)[c]));
+                    }
+                    break;
+                case STRING:
+                    for (int i : order) {
+                        writeString(out, rows.get(i)[c]);
+                    }
+                    break;
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,204 @@
+package com.ericrobertbrewer.podium.corpus;
+
+import com.ericrobertbrewer.podium.Folders;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public final class Corpus {
+
+    private static final String PACK = "pack";
+    private static final String GET = "get";
+    private static final String SCAN = "scan";
+    private static final String CATALOG = "catalog";
+    private static final String QUERY = "query";
+    private static final String SEGMENT_FILE_NAME = "corpus.seg";
+    private static final String CATALOG_FILE_NAME = "catalog.col";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String BY = "by";
+    private static final String LIMIT = "limit";
+    private static final int DEFAULT_QUERY_LIMIT = 20;
+
+    public static void main(String[] args) throws IOException {
+        final File segmentFile = new File(Folders.INDEX_ROOT, SEGMENT_FILE_NAME);
+        if (args.length >= 1 && PACK.equals(args[0])) {
+            pack(segmentFile, Arrays.asList(args).subList(1, args.length));
+        } else if (args.length == 2 && GET.equals(args[0])) {
+            get(segmentFile, args[1]);
+        } else if (args.length == 1 && SCAN.equals(args[0])) {
+            scan(segmentFile);
+        } else if (args.length >= 1 && CATALOG.equals(args[0])) {
+            catalog(new File(Folders.INDEX_ROOT, CATALOG_FILE_NAME), Arrays.asList(args).subList(1, args.length));
+        } else if (args.length >= 1 && QUERY.equals(args[0])) {
+            query(new File(Folders.INDEX_ROOT, CATALOG_FILE_NAME), Arrays.asList(args).subList(1, args.length));
+        } else {
+            throw new IllegalArgumentException("Usage: " + PACK + " [<content>...]\n" +
+                    "   or: " + GET + " <name-or-id>\n" +
+                    "   or: " + SCAN + "\n" +
+                    "   or: " + CATALOG + " [<content>...]\n" +
+                    "   or: " + QUERY + " [<column>=<value>...] [" + FROM + "=<date>] [" + TO + "=<date>] [" +
+                    BY + "=<column>] [" + LIMIT + "=<rows>]");
+        }
+    }
+
+    /**
+     * @param contents Short names of the collections to pack, or empty to pack every collection.
+     */
+    private static void pack(File segmentFile, List<String> contents) throws IOException {
+        checkContents(segmentFile, contents);
+        final long start = System.currentTimeMillis();
+        try (SegmentWriter writer = new SegmentWriter(segmentFile)) {
+            for (Map.Entry<String, String> collection : Folders.COLLECTIONS.entrySet()) {
+                final File rootFolder = new File(collection.getValue());
+                if ((!contents.isEmpty() && !contents.contains(collection.getKey())) || !rootFolder.exists()) {
+                    continue;
+                }
+                final int documentCount = writer.getDocumentCount();
+                writer.addRootFolder(collection.getKey(), rootFolder);
+                System.out.println("Packed " + (writer.getDocumentCount() - documentCount) + " documents from `" + collection.getKey() + "`.");
+            }
+        }
+        System.out.println("Wrote `" + segmentFile.getPath() + "` (" + segmentFile.length() + " bytes) in " +
+                (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    private static void get(File segmentFile, String nameOrId) throws IOException {
+        try (Segment segment = Segment.open(segmentFile)) {
+            int id;
+            try {
+                id = Integer.parseInt(nameOrId);
+            } catch (NumberFormatException e) {
+                id = segment.find(nameOrId);
+            }
+            if (id < 0 || id >= segment.getDocumentCount()) {
+                throw new IllegalArgumentException("No such document: `" + nameOrId + "`.");
+            }
+            final Segment.Document document = segment.get(id);
+            System.out.println(document.getId() + "\t" + document.getName());
+            for (Map.Entry<String, String> entry : document.getMetadata().entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+            for (String key : document.getFileKeys()) {
+                if (!"source".equals(key)) {
+                    System.out.println();
+                    System.out.println(document.getFile(key));
+                }
+            }
+        }
+    }
+
+    /**
+     * Read every file of every document, as an analysis of the whole corpus would.
+     */
+    private static void scan(File segmentFile) throws IOException {
+        final long start = System.currentTimeMillis();
+        long bytes = 0;
+        try (Segment segment = Segment.open(segmentFile)) {
+            for (int id = 0; id < segment.getDocumentCount(); id++) {
+                final Segment.Document document = segment.get(id);
+                for (String key : document.getFileKeys()) {
+                    bytes += document.getFileBytes(key).length;
+                }
+            }
+            System.out.println("Read " + segment.getDocumentCount() + " documents (" + bytes + " bytes) in " +
+                    (System.currentTimeMillis() - start) + " ms.");
+        }
+    }
+
+    /**
+     * @param contents Short names of the collections to catalog, or empty to catalog every collection.
+     */
+    private static void catalog(File catalogFile, List<String> contents) throws IOException {
+        checkContents(catalogFile, contents);
+        final long start = System.currentTimeMillis();
+        final CatalogWriter writer = new CatalogWriter();
+        for (Map.Entry<String, String> collection : Folders.COLLECTIONS.entrySet()) {
+            final File rootFolder = new File(collection.getValue());
+            if ((!contents.isEmpty() && !contents.contains(collection.getKey())) || !rootFolder.exists()) {
+                continue;
+            }
+            final int rowCount = writer.getRowCount();
+            writer.addRootFolder(collection.getKey(), rootFolder);
+            System.out.println("Cataloged " + (writer.getRowCount() - rowCount) + " talks from `" + collection.getKey() + "`.");
+        }
+        writer.write(catalogFile);
+        System.out.println("Wrote `" + catalogFile.getPath() + "` (" + catalogFile.length() + " bytes) in " +
+                (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * For example, `query speaker="Dallin H. Oaks" type=Devotional from=1990 to=2005 by=collection`.
+     * Several values of the same column match any of them.
+     */
+    private static void query(File catalogFile, List<String> conditions) throws IOException {
+        final Map<String, List<String>> values = new LinkedHashMap<>();
+        String from = null;
+        String to = null;
+        String by = null;
+        int limit = DEFAULT_QUERY_LIMIT;
+        for (String condition : conditions) {
+            final int equals = condition.indexOf('=');
+            if (equals == -1) {
+                throw new IllegalArgumentException("Expected `<column>=<value>`: `" + condition + "`.");
+            }
+            final String key = condition.substring(0, equals);
+            final String value = condition.substring(equals + 1);
+            if (FROM.equals(key)) {
+                from = value;
+            } else if (TO.equals(key)) {
+                to = value;
+            } else if (BY.equals(key)) {
+                by = value;
+            } else if (LIMIT.equals(key)) {
+                limit = Integer.parseInt(value);
+            } else {
+                values.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            }
+        }
+        final Catalog catalog = Catalog.open(catalogFile);
+        final long start = System.nanoTime();
+        final Catalog.Query query = catalog.query();
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            query.where(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+        if (from != null || to != null) {
+            query.between(from, to);
+        }
+        if (by != null) {
+            final Map<String, Integer> groups = query.groupBy(by);
+            final long elapsed = System.nanoTime() - start;
+            for (Map.Entry<String, Integer> group : groups.entrySet()) {
+                System.out.println(group.getValue() + "\t" + group.getKey());
+            }
+            System.out.println(groups.size() + " groups in " + (elapsed / 1000) + " us.");
+        } else {
+            final int[] rows = query.rows();
+            final long elapsed = System.nanoTime() - start;
+            for (int i = 0; i < rows.length && i < limit; i++) {
+                System.out.println(catalog.get(rows[i], Catalog.DATE) + "\t" + catalog.get(rows[i], Catalog.NAME) +
+                        "\t" + catalog.get(rows[i], Catalog.SPEAKER) + "\t" + catalog.get(rows[i], Catalog.TITLE));
+            }
+            System.out.println(rows.length + " of " + catalog.getRowCount() + " talks in " + (elapsed / 1000) + " us.");
+        }
+    }
+
+    /**
+     * Check the names of the collections given, and create the folder of the file to be written.
+     */
+    private static void checkContents(File file, List<String> contents) {
+        for (String content : contents) {
+            if (!Folders.COLLECTIONS.containsKey(content)) {
+                throw new IllegalArgumentException("Unknown content option: `" + content + "`.");
+            }
+        }
+        final File indexFolder = file.getParentFile();
+        if (!indexFolder.exists() && !indexFolder.mkdirs()) {
+            throw new RuntimeException("Unable to create index directory: `" + indexFolder.getPath() + "`.");
+        }
+    }
+
+    private Corpus() {
+    }
+}
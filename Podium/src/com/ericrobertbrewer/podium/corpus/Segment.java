@@ -0,0 +1,284 @@
+package com.ericrobertbrewer.podium.corpus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a segment written by {@link SegmentWriter}.
+ * The file is memory-mapped, so any document is read by its ID without opening another file, and is found by its name
+ * without reading any other document.
+ * An instance may be shared between threads.
+ */
+public class Segment implements Closeable {
+
+    /**
+     * The most bytes to map at once. A mapped buffer is indexed by `int`, so larger segments are mapped in chunks.
+     */
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    /**
+     * @param file Written by {@link SegmentWriter}.
+     * @return The opened segment.
+     * @throws IOException When the file can't be read or isn't a segment.
+     */
+    public static Segment open(File file) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long start = i * CHUNK_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            }
+            return new Segment(channel, chunks, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer[] chunks;
+    private final int documentCount;
+    private final long offsetTableOffset;
+    private final long nameTableOffset;
+
+    private Segment(FileChannel channel, ByteBuffer[] chunks, long size) throws IOException {
+        this.channel = channel;
+        this.chunks = chunks;
+        if (size < SegmentWriter.HEADER_SIZE || getInt(0) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a segment file.");
+        }
+        if (getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version: `" + getInt(4) + "`.");
+        }
+        documentCount = getInt(8);
+        offsetTableOffset = getLong(12);
+        nameTableOffset = offsetTableOffset + (documentCount + 1L) * Long.BYTES;
+        if (nameTableOffset + (long) documentCount * Integer.BYTES != size) {
+            throw new IOException("Segment file is truncated.");
+        }
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * @param id Of the document, from `0` to the document count (exclusive).
+     * @return The document, whose files are only decompressed when they are read.
+     */
+    public Document get(int id) {
+        if (id < 0 || id >= documentCount) {
+            throw new IndexOutOfBoundsException("Document ID out of range: `" + id + "`.");
+        }
+        final long start = getLong(offsetTableOffset + (long) id * Long.BYTES);
+        final long end = getLong(offsetTableOffset + (id + 1L) * Long.BYTES);
+        final byte[] record = new byte[(int) (end - start)];
+        read(start, record);
+        return new Document(id, record);
+    }
+
+    /**
+     * @param name Of the document, such as `gc/2018-04/the-prophet-of-god`.
+     * @return Its ID, or `-1` if the segment has no such document.
+     */
+    public int find(String name) {
+        // Search the IDs in the order of their names, reading only the name at the start of each record.
+        int low = 0;
+        int high = documentCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int id = getInt(nameTableOffset + (long) middle * Integer.BYTES);
+            final int comparison = getName(id).compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The name of the document, read from the start of its record without reading the rest.
+     */
+    private String getName(int id) {
+        long position = getLong(offsetTableOffset + (long) id * Long.BYTES);
+        final byte[] b = new byte[1];
+        int length = 0;
+        int shift = 0;
+        do {
+            read(position++, b);
+            length |= (b[0] & 0x7F) << shift;
+            shift += 7;
+        } while ((b[0] & 0x80) != 0);
+        final byte[] bytes = new byte[length];
+        read(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int getInt(long position) {
+        final byte[] bytes = new byte[Integer.BYTES];
+        read(position, bytes);
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    private long getLong(long position) {
+        final byte[] bytes = new byte[Long.BYTES];
+        read(position, bytes);
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    /**
+     * Copy bytes from the mapped chunks, which may span more than one.
+     * Only absolute positions of duplicates are used, so the chunks may be read by any thread.
+     */
+    private void read(long position, byte[] destination) {
+        int copied = 0;
+        while (copied < destination.length) {
+            final long p = position + copied;
+            final ByteBuffer chunk = chunks[(int) (p / CHUNK_SIZE)].duplicate();
+            chunk.position((int) (p % CHUNK_SIZE));
+            final int length = Math.min(destination.length - copied, chunk.remaining());
+            chunk.get(destination, copied, length);
+            copied += length;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A talk (or chapter) of the corpus: the row of its table and its files.
+     */
+    public static class Document {
+
+        private final int id;
+        private final byte[] record;
+        private final String name;
+        private final Map<String, String> metadata;
+        /**
+         * The uncompressed length, compressed length, and offset in the record of each file, by key.
+         */
+        private final Map<String, int[]> files;
+
+        private Document(int id, byte[] record) {
+            this.id = id;
+            this.record = record;
+            final int[] position = {0};
+            name = readString(position);
+            final int metadataCount = readVarInt(position);
+            metadata = new LinkedHashMap<>();
+            for (int i = 0; i < metadataCount; i++) {
+                final String key = readString(position);
+                metadata.put(key, readString(position));
+            }
+            final int fileCount = readVarInt(position);
+            files = new LinkedHashMap<>();
+            for (int i = 0; i < fileCount; i++) {
+                final String key = readString(position);
+                final int length = readVarInt(position);
+                final int compressedLength = readVarInt(position);
+                files.put(key, new int[] {length, compressedLength, position[0]});
+                position[0] += compressedLength;
+            }
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return Such as `gc/2018-04/the-prophet-of-god`.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The row of the table of the document, by column name.
+         */
+        public Map<String, String> getMetadata() {
+            return Collections.unmodifiableMap(metadata);
+        }
+
+        /**
+         * @return The keys of the files of the document, which are the columns which named them, such as `text`.
+         */
+        public Set<String> getFileKeys() {
+            return Collections.unmodifiableSet(files.keySet());
+        }
+
+        /**
+         * @param key Of the file, such as `text` or `source`.
+         * @return The decompressed contents of the file, or `null` if the document has no such file.
+         */
+        public byte[] getFileBytes(String key) {
+            final int[] file = files.get(key);
+            if (file == null) {
+                return null;
+            }
+            final byte[] bytes = new byte[file[0]];
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(record, file[2], file[1]);
+                int length = 0;
+                while (length < bytes.length && !inflater.finished()) {
+                    length += inflater.inflate(bytes, length, bytes.length - length);
+                    if (inflater.needsInput()) {
+                        break;
+                    }
+                }
+                if (length != bytes.length) {
+                    throw new RuntimeException("Corrupt file `" + key + "` of document `" + name + "`.");
+                }
+            } catch (DataFormatException e) {
+                throw new RuntimeException("Corrupt file `" + key + "` of document `" + name + "`.", e);
+            } finally {
+                inflater.end();
+            }
+            return bytes;
+        }
+
+        /**
+         * @param key Of the file, such as `text` or `source`.
+         * @return The decompressed contents of the file as text, or `null` if the document has no such file.
+         */
+        public String getFile(String key) {
+            final byte[] bytes = getFileBytes(key);
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String readString(int[] position) {
+            final int length = readVarInt(position);
+            final String s = new String(record, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+            return s;
+        }
+
+        private int readVarInt(int[] position) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = record[position[0]++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.ericrobertbrewer.podium.corpus;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+import com.ericrobertbrewer.podium.scrape.SourceStore;
+import com.ericrobertbrewer.podium.scrape.Tsv;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Packs scraped content into a single segment file, which is then read with {@link Segment}.
+ *
+ * Every row of the table (program, summary) of every folder (year, conference) is one document. Its metadata is the
+ * row, and its files are those which the row names (text, notes, references, source), each compressed on its own.
+ * A source which is kept in the {@link SourceStore} of the root folder is read from the store by its key.
+ *
+ * The segment is laid out as:
+ * <pre>
+ * header:  magic, version (`int`), document count (`int`), then the offset of the offset table (`long`)
+ * records: for each document:
+ *          name; metadata count, then each key and value; file count, then for each file:
+ *          key, varint uncompressed length, varint compressed length, then the deflated bytes
+ * offsets: for each document, then for the end of the records, its offset in the file (`long`)
+ * names:   the ID of each document, in the order of their names (`int`), so that a name is found by binary search
+ * </pre>
+ * Strings are written as a varint length followed by UTF-8 bytes.
+ */
+public class SegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x50445347;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 2 * Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    /**
+     * Names of the tables of each folder, as written by the scrapers.
+     */
+    static final String[] TABLE_FILE_NAMES = {"program.tsv", "summary.tsv"};
+
+    private final File file;
+    private final File partFile;
+    private final OutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final RecordBuffer record = new RecordBuffer();
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private byte[] compressed = new byte[1 << 16];
+    private long position = HEADER_SIZE;
+
+    /**
+     * @param file To write. It is replaced only once the segment has been written completely, when it is closed.
+     * @throws IOException When the file can't be created.
+     */
+    public SegmentWriter(File file) throws IOException {
+        this.file = file;
+        this.partFile = new File(file.getPath() + ".part");
+        this.out = new BufferedOutputStream(new FileOutputStream(partFile), 1 << 16);
+        // The header is written last, once the offset table is known.
+        out.write(new byte[HEADER_SIZE]);
+    }
+
+    public int getDocumentCount() {
+        return offsets.size();
+    }
+
+    /**
+     * Add every row of the table of every folder (year, conference) within the root folder of a content option.
+     * @param prefix Of the name of each document, such as `gc`.
+     * @param rootFolder Which has already been scraped.
+     * @throws IOException When a file can't be read or the segment can't be written.
+     */
+    public void addRootFolder(String prefix, File rootFolder) throws IOException {
+        final File[] folders = rootFolder.listFiles(File::isDirectory);
+        if (folders == null) {
+            throw new IOException("Unable to list folders in: `" + rootFolder.getPath() + "`.");
+        }
+        Arrays.sort(folders);
+        final SourceStore sourceStore = new SourceStore(new File(rootFolder, SourceStore.FOLDER_NAME));
+        for (File folder : folders) {
+            for (String tableFileName : TABLE_FILE_NAMES) {
+                final File tableFile = new File(folder, tableFileName);
+                if (tableFile.exists()) {
+                    addTable(prefix + "/" + folder.getName(), folder, tableFile, sourceStore);
+                }
+            }
+        }
+    }
+
+    private void addTable(String prefix, File folder, File tableFile, SourceStore sourceStore) throws IOException {
+        final List<String> lines = Files.readAllLines(tableFile.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return;
+        }
+        final String[] columns = Tsv.split(lines.get(0));
+        for (int r = 1; r < lines.size(); r++) {
+            final String[] values = Tsv.split(lines.get(r));
+            final Map<String, String> metadata = new LinkedHashMap<>();
+            final Map<String, byte[]> files = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                final String value = i < values.length ? values[i] : "";
+                metadata.put(columns[i], value);
+                // Columns such as `text` and `source` name the files of the talk, or key a source in the store.
+                if (sourceStore.contains(value)) {
+                    files.put(columns[i], sourceStore.read(value).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    final File talkFile = TalkFiles.getFile(folder, value);
+                    if (talkFile != null) {
+                        files.put(columns[i], Files.readAllBytes(talkFile.toPath()));
+                    }
+                }
+            }
+            final String base = TalkFiles.getBase(folder, values);
+            add(prefix + "/" + (base != null ? base : "#" + r), metadata, files);
+        }
+    }
+
+    /**
+     * @param name Of the document, such as `gc/2018-04/the-prophet-of-god`.
+     * @param metadata Of the document, in order.
+     * @param files Contents of the files of the document, by key.
+     * @return The ID of the document.
+     * @throws IOException When the segment can't be written.
+     */
+    public int add(String name, Map<String, String> metadata, Map<String, byte[]> files) throws IOException {
+        record.reset();
+        record.writeString(name);
+        record.writeVarInt(metadata.size());
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            record.writeString(entry.getKey());
+            record.writeString(entry.getValue());
+        }
+        record.writeVarInt(files.size());
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            final byte[] bytes = entry.getValue();
+            final int compressedLength = deflate(bytes);
+            record.writeString(entry.getKey());
+            record.writeVarInt(bytes.length);
+            record.writeVarInt(compressedLength);
+            record.write(compressed, 0, compressedLength);
+        }
+        offsets.add(position);
+        names.add(name);
+        out.write(record.bytes, 0, record.size);
+        position += record.size;
+        return offsets.size() - 1;
+    }
+
+    private int deflate(byte[] bytes) {
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+
+    /**
+     * Write the offset table, name table and header, then move the segment into place.
+     * @throws IOException When the segment can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        final long offsetTableOffset = position;
+        final DataOutputStream dataOut = new DataOutputStream(out);
+        for (long offset : offsets) {
+            dataOut.writeLong(offset);
+        }
+        dataOut.writeLong(offsetTableOffset);
+        final Integer[] ids = new Integer[names.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, Comparator.comparing(names::get));
+        for (int id : ids) {
+            dataOut.writeInt(id);
+        }
+        dataOut.close();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(offsets.size()).putLong(offsetTableOffset).flip();
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+        }
+        Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The bytes of one record, as it is built.
+     */
+    private static class RecordBuffer {
+
+        private byte[] bytes = new byte[1 << 16];
+        private int size = 0;
+
+        private void reset() {
+            size = 0;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        private void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(5);
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        private void writeString(String s) {
+            final byte[] stringBytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(stringBytes.length);
+            write(stringBytes, 0, stringBytes.length);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ericrobertbrewer.podium.index;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds an index of which talks cite each verse of scripture, from the transcripts and notes (references) of every
+ * talk, and finds the talks which cite a verse.
+ *
+ * The index is a TSV file of `verse`, `reference`, `talk`, and `count` columns, ordered by verse (canonical ID of the
+ * {@link VerseTable}) and talk.
+ */
+public class CitationIndex {
+
+    private static final String[] COLUMNS = {"verse", "reference", "talk", "count"};
+
+    private final VerseTable table;
+    private final ReferenceExtractor extractor;
+    private final List<String> talks = new ArrayList<>();
+    private final Map<String, Integer> talkIds = new HashMap<>();
+    /**
+     * Every citation, as the verse ID in the high bits and the talk ID in the low bits, so that sorting groups them.
+     */
+    private long[] citations = new long[1024];
+    private int citationCount = 0;
+
+    public CitationIndex(VerseTable table) {
+        this.table = table;
+        this.extractor = new ReferenceExtractor(table);
+    }
+
+    /**
+     * Read every transcript and notes file within a folder, such as the root folder of a scraped content option.
+     * @param prefix Of the name of each talk, such as `gc`.
+     * @param folder To search recursively.
+     * @throws IOException When a file can't be read.
+     */
+    public void addFolder(String prefix, File folder) throws IOException {
+        final Path root = folder.toPath();
+        final List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(path -> isCitingFile(path.getFileName().toString()))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            final String fileName = file.getFileName().toString();
+            final String base = TalkFiles.getBase(fileName);
+            final StringBuilder talk = new StringBuilder(prefix);
+            for (Path component : root.relativize(file.resolveSibling(base))) {
+                talk.append('/').append(component.toString());
+            }
+            addFile(talk.toString(), file.toFile());
+        }
+    }
+
+    /**
+     * @return Whether the file is one of a talk which may cite scripture, rather than (say) its page source.
+     */
+    private static boolean isCitingFile(String fileName) {
+        final String suffix = TalkFiles.getSuffix(fileName);
+        return suffix != null && !TalkFiles.SOURCE_SUFFIX.equals(suffix);
+    }
+
+    /**
+     * Read the citations of a file, one line at a time.
+     * @param talk Name of the talk of the file. Several files may belong to the same talk.
+     * @param file To read.
+     * @throws IOException When the file can't be read.
+     */
+    public void addFile(String talk, File file) throws IOException {
+        final int talkId = talkIds.computeIfAbsent(talk, key -> {
+            talks.add(key);
+            return talks.size() - 1;
+        });
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                extractor.extract(line, verseId -> addCitation(verseId, talkId));
+            }
+        }
+    }
+
+    private void addCitation(int verseId, int talkId) {
+        if (citationCount == citations.length) {
+            citations = Arrays.copyOf(citations, citationCount * 2);
+        }
+        citations[citationCount++] = ((long) verseId << 32) | talkId;
+    }
+
+    /**
+     * @return The number of distinct (verse, talk) pairs.
+     */
+    public int write(File file) throws IOException {
+        Arrays.sort(citations, 0, citationCount);
+        int rowCount = 0;
+        final File partFile = new File(file.getPath() + ".part");
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(partFile)), false, "UTF-8")) {
+            out.println(String.join("\t", COLUMNS));
+            int i = 0;
+            while (i < citationCount) {
+                int j = i + 1;
+                while (j < citationCount && citations[j] == citations[i]) {
+                    j++;
+                }
+                final int verseId = (int) (citations[i] >>> 32);
+                final int talkId = (int) citations[i];
+                out.println(verseId + "\t" + table.getReference(verseId) + "\t" + talks.get(talkId) + "\t" + (j - i));
+                rowCount++;
+                i = j;
+            }
+        }
+        Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return rowCount;
+    }
+
+    /**
+     * Find the talks which cite any of the verses of a reference.
+     * @param file Written by {@link #write(File)}.
+     * @param table Which was used to write the file.
+     * @param reference Such as `Alma 32:21` or `Moro. 10:3-5`.
+     * @return Rows of the index (`verse`, `reference`, `talk`, `count`), in order of verse and talk.
+     * @throws IOException When the file can't be read.
+     */
+    public static List<String[]> find(File file, VerseTable table, String reference) throws IOException {
+        final BitSet verseIds = new BitSet(table.getVerseCount());
+        new ReferenceExtractor(table).extract(reference, verseIds::set);
+        final List<String[]> rows = new ArrayList<>();
+        if (verseIds.isEmpty()) {
+            return rows;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            // Skip the header.
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int tab = line.indexOf('\t');
+                if (verseIds.get(Integer.parseInt(line.substring(0, tab)))) {
+                    rows.add(line.split("\t", -1));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,325 @@
+package com.ericrobertbrewer.podium.index;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds talks which were published more than once, possibly with small differences, such as a conference talk which
+ * was also given as a devotional, or a talk which was listed in two years.
+ *
+ * The terms of each transcript (see {@link Tokenizer}) are split into overlapping shingles of {@link #SHINGLE_SIZE}
+ * terms, and summarized by a MinHash signature, whose agreement with the signature of another transcript estimates the
+ * Jaccard similarity of their shingles. Signatures are split into bands, and only talks which agree on every hash of
+ * some band are compared, so that the corpus is never compared pair by pair. With {@link #BAND_COUNT} bands of
+ * {@link #ROWS_PER_BAND} hashes, a pair with a similarity of 0.5 is compared about 50% of the time, and a pair with a
+ * similarity of 0.8 more than 99.9% of the time.
+ */
+public class DuplicateDetector {
+
+    static final int SHINGLE_SIZE = 5;
+    static final int BAND_COUNT = 20;
+    static final int ROWS_PER_BAND = 5;
+    static final int HASH_COUNT = BAND_COUNT * ROWS_PER_BAND;
+
+    private static final String[] COLUMNS = {"cluster", "talk", "similarity", "nearest"};
+    /**
+     * The number of talks which are read and signed by a thread at a time.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * Talks which are near duplicates of each other, directly or through other members.
+     */
+    public static class Cluster {
+
+        private final List<String> talks;
+        private final float[] similarities;
+        private final String[] nearestTalks;
+
+        private Cluster(List<String> talks, float[] similarities, String[] nearestTalks) {
+            this.talks = talks;
+            this.similarities = similarities;
+            this.nearestTalks = nearestTalks;
+        }
+
+        /**
+         * @return Names of the talks, in order.
+         */
+        public List<String> getTalks() {
+            return talks;
+        }
+
+        /**
+         * @param i Index of a talk.
+         * @return The estimated similarity of the talk to its nearest other member, from `0` to `1`.
+         */
+        public float getSimilarity(int i) {
+            return similarities[i];
+        }
+
+        /**
+         * @param i Index of a talk.
+         * @return The name of the member to which the talk is most similar.
+         */
+        public String getNearestTalk(int i) {
+            return nearestTalks[i];
+        }
+    }
+
+    private final List<String> talks = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+    /**
+     * Multipliers and increments of each hash function of the signature, from a fixed seed so that results repeat.
+     */
+    private final long[] multipliers = new long[HASH_COUNT];
+    private final long[] increments = new long[HASH_COUNT];
+
+    public DuplicateDetector() {
+        final Random random = new Random(0x50444450L);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            increments[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Add every text file (transcript) within a folder, such as the root folder of a scraped content option.
+     * Files are not read until {@link #find(float, int)}. Each talk is named as it is in the catalog, such as
+     * `gc/2018-04/the-prophet-of-god`.
+     * @param prefix Of the name of each talk, such as `gc`.
+     * @param folder To search recursively.
+     * @throws IOException When the folder can't be listed.
+     */
+    public void addFolder(String prefix, File folder) throws IOException {
+        final Path root = folder.toPath();
+        final List<Path> folderFiles;
+        try (Stream<Path> stream = Files.walk(root)) {
+            folderFiles = stream.filter(path -> path.getFileName().toString().endsWith(TalkFiles.TEXT_SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : folderFiles) {
+            final String base = TalkFiles.getBase(file.getFileName().toString());
+            final StringBuilder talk = new StringBuilder(prefix);
+            for (Path component : root.relativize(file.resolveSibling(base))) {
+                talk.append('/').append(component.toString());
+            }
+            talks.add(talk.toString());
+            files.add(file);
+        }
+    }
+
+    public int getTalkCount() {
+        return talks.size();
+    }
+
+    /**
+     * @param minSimilarity The least estimated similarity, from `0` to `1`, of two talks to be called duplicates.
+     * @param threads Which read and sign transcripts.
+     * @return Every cluster of duplicate talks, largest first, then in order of their first talk.
+     * @throws IOException When a transcript can't be read.
+     */
+    public List<Cluster> find(float minSimilarity, int threads) throws IOException {
+        final int[][] signatures = sign(threads);
+        // Group talks which agree on every hash of a band.
+        final Set<Long> candidates = new HashSet<>();
+        final Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int band = 0; band < BAND_COUNT; band++) {
+            buckets.clear();
+            for (int talk = 0; talk < signatures.length; talk++) {
+                if (signatures[talk] == null) {
+                    continue;
+                }
+                long key = band;
+                for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+                    key = key * 0x9E3779B97F4A7C15L + signatures[talk][row];
+                }
+                buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(talk);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        candidates.add(((long) bucket.get(i) << 32) | bucket.get(j));
+                    }
+                }
+            }
+        }
+        // Keep candidates which are similar enough, and join them into clusters.
+        final int[] parents = new int[signatures.length];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        final float[] similarities = new float[signatures.length];
+        final int[] nearest = new int[signatures.length];
+        Arrays.fill(nearest, -1);
+        for (long candidate : candidates) {
+            final int a = (int) (candidate >>> 32);
+            final int b = (int) candidate;
+            final float similarity = getSimilarity(signatures[a], signatures[b]);
+            if (similarity < minSimilarity) {
+                continue;
+            }
+            parents[find(parents, a)] = find(parents, b);
+            if (similarity > similarities[a] || nearest[a] == -1) {
+                similarities[a] = similarity;
+                nearest[a] = b;
+            }
+            if (similarity > similarities[b] || nearest[b] == -1) {
+                similarities[b] = similarity;
+                nearest[b] = a;
+            }
+        }
+        final Map<Integer, List<Integer>> members = new TreeMap<>();
+        for (int talk = 0; talk < signatures.length; talk++) {
+            if (nearest[talk] != -1) {
+                members.computeIfAbsent(find(parents, talk), k -> new ArrayList<>()).add(talk);
+            }
+        }
+        final List<List<Integer>> groups = new ArrayList<>(members.values());
+        groups.sort((a, b) -> a.size() != b.size() ? b.size() - a.size() : a.get(0) - b.get(0));
+        final List<Cluster> clusters = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups) {
+            final List<String> clusterTalks = new ArrayList<>(group.size());
+            final float[] clusterSimilarities = new float[group.size()];
+            final String[] nearestTalks = new String[group.size()];
+            for (int i = 0; i < group.size(); i++) {
+                final int talk = group.get(i);
+                clusterTalks.add(talks.get(talk));
+                clusterSimilarities[i] = similarities[talk];
+                nearestTalks[i] = talks.get(nearest[talk]);
+            }
+            clusters.add(new Cluster(Collections.unmodifiableList(clusterTalks), clusterSimilarities, nearestTalks));
+        }
+        return clusters;
+    }
+
+    /**
+     * @return The signature of each talk, or `null` for a talk too short to have any shingles.
+     */
+    private int[][] sign(int threads) throws IOException {
+        final int[][] signatures = new int[talks.size()][];
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int start = 0; start < files.size(); start += BATCH_SIZE) {
+                final int batchStart = start;
+                futures.add(executor.submit(() -> {
+                    for (int i = batchStart; i < Math.min(batchStart + BATCH_SIZE, files.size()); i++) {
+                        try {
+                            signatures[i] = sign(new String(Files.readAllBytes(files.get(i)), StandardCharsets.UTF_8));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while reading transcripts.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return signatures;
+    }
+
+    /**
+     * @param text Of a transcript.
+     * @return The least value of each hash function over the shingles of the text, or `null` if it has none.
+     */
+    int[] sign(String text) {
+        final List<String> terms = Tokenizer.terms(text);
+        if (terms.size() < SHINGLE_SIZE) {
+            return null;
+        }
+        final long[] termHashes = new long[terms.size()];
+        for (int i = 0; i < termHashes.length; i++) {
+            termHashes[i] = mix(terms.get(i).hashCode());
+        }
+        final int[] signature = new int[HASH_COUNT];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int i = 0; i + SHINGLE_SIZE <= termHashes.length; i++) {
+            long shingle = 0L;
+            for (int j = i; j < i + SHINGLE_SIZE; j++) {
+                shingle = Long.rotateLeft(shingle, 13) ^ termHashes[j];
+            }
+            for (int h = 0; h < HASH_COUNT; h++) {
+                // The high bits of a multiply-add are well mixed, and non-negative once shifted.
+                final int value = (int) ((multipliers[h] * shingle + increments[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @return The fraction of hashes on which the signatures agree, which estimates the Jaccard similarity of the
+     * shingles of their talks.
+     */
+    static float getSimilarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (float) equal / HASH_COUNT;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Write clusters as a TSV file of `cluster`, `talk`, `similarity`, and `nearest` columns.
+     * @param clusters As found by {@link #find(float, int)}.
+     * @param file To write.
+     * @throws IOException When the file can't be written.
+     */
+    public static void write(List<Cluster> clusters, File file) throws IOException {
+        try (OutputFile out = OutputFile.create(file.getParentFile(), file.getName())) {
+            out.printRow(COLUMNS);
+            for (int c = 0; c < clusters.size(); c++) {
+                final Cluster cluster = clusters.get(c);
+                for (int i = 0; i < cluster.getTalks().size(); i++) {
+                    out.printRow(String.valueOf(c + 1), cluster.getTalks().get(i),
+                            String.format(Locale.ROOT, "%.2f", cluster.getSimilarity(i)), cluster.getNearestTalk(i));
+                }
+            }
+            out.commit();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ericrobertbrewer.podium.index;
+
+import com.ericrobertbrewer.podium.Folders;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public final class Index {
+
+    private static final String BUILD = "build";
+    private static final String SEARCH = "search";
+    private static final String CITATIONS = "citations";
+    private static final String CITES = "cites";
+    private static final String DUPLICATES = "duplicates";
+    private static final String INDEX_FILE_NAME = "corpus.idx";
+    private static final String CITATIONS_FILE_NAME = "citations.tsv";
+    private static final String DUPLICATES_FILE_NAME = "duplicates.tsv";
+    private static final int DEFAULT_LIMIT = 20;
+    private static final float DEFAULT_MIN_SIMILARITY = 0.7f;
+
+    public static void main(String[] args) throws IOException {
+        final File indexFile = new File(Folders.INDEX_ROOT, INDEX_FILE_NAME);
+        final File citationsFile = new File(Folders.INDEX_ROOT, CITATIONS_FILE_NAME);
+        if (args.length == 1 && BUILD.equals(args[0])) {
+            build(indexFile);
+        } else if ((args.length == 2 || args.length == 3) && SEARCH.equals(args[0])) {
+            final int limit = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_LIMIT;
+            search(indexFile, args[1], limit);
+        } else if (args.length == 1 && CITATIONS.equals(args[0])) {
+            buildCitations(citationsFile);
+        } else if (args.length == 2 && CITES.equals(args[0])) {
+            cites(citationsFile, args[1]);
+        } else if (args.length >= 1 && args.length <= 3 && DUPLICATES.equals(args[0])) {
+            final float minSimilarity = args.length > 1 ? Float.parseFloat(args[1]) : DEFAULT_MIN_SIMILARITY;
+            final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            findDuplicates(new File(Folders.INDEX_ROOT, DUPLICATES_FILE_NAME), minSimilarity, threads);
+        } else {
+            throw new IllegalArgumentException("Usage: " + BUILD + "\n" +
+                    "   or: " + SEARCH + " <query> [<limit>]\n" +
+                    "   or: " + CITATIONS + "\n" +
+                    "   or: " + CITES + " <reference>\n" +
+                    "   or: " + DUPLICATES + " [<similarity>] [<threads>]");
+        }
+    }
+
+    private static void build(File indexFile) throws IOException {
+        final File indexFolder = indexFile.getParentFile();
+        if (!indexFolder.exists() && !indexFolder.mkdirs()) {
+            throw new RuntimeException("Unable to create index directory: `" + indexFolder.getPath() + "`.");
+        }
+        final long start = System.currentTimeMillis();
+        final IndexWriter writer = new IndexWriter();
+        for (Map.Entry<String, String> collection : Folders.COLLECTIONS.entrySet()) {
+            final File rootFolder = new File(collection.getValue());
+            if (!rootFolder.exists()) {
+                continue;
+            }
+            final int documentCount = writer.getDocumentCount();
+            writer.addFolder(collection.getKey(), rootFolder);
+            System.out.println("Indexed " + (writer.getDocumentCount() - documentCount) + " documents from `" + collection.getKey() + "`.");
+        }
+        writer.write(indexFile);
+        System.out.println("Wrote " + writer.getDocumentCount() + " documents and " + writer.getTermCount() +
+                " terms to `" + indexFile.getPath() + "` (" + indexFile.length() + " bytes) in " +
+                (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    private static void search(File indexFile, String query, int limit) throws IOException {
+        try (SearchIndex index = SearchIndex.open(indexFile)) {
+            final long start = System.nanoTime();
+            final List<SearchIndex.Hit> hits = index.search(query);
+            final long elapsedMicros = (System.nanoTime() - start) / 1000L;
+            System.out.println(hits.size() + " documents match (" + (elapsedMicros / 1000.0) + " ms).");
+            for (SearchIndex.Hit hit : hits.subList(0, Math.min(limit, hits.size()))) {
+                System.out.println(hit.getCount() + "\t" + hit.getPath());
+            }
+        }
+    }
+
+    private static void buildCitations(File citationsFile) throws IOException {
+        final File indexFolder = citationsFile.getParentFile();
+        if (!indexFolder.exists() && !indexFolder.mkdirs()) {
+            throw new RuntimeException("Unable to create index directory: `" + indexFolder.getPath() + "`.");
+        }
+        final long start = System.currentTimeMillis();
+        final VerseTable table = VerseTable.load(new File(Folders.SCRIPTURES_ROOT));
+        System.out.println("Loaded " + table.getVerseCount() + " verses.");
+        final CitationIndex citationIndex = new CitationIndex(table);
+        for (Map.Entry<String, String> collection : Folders.COLLECTIONS.entrySet()) {
+            final File rootFolder = new File(collection.getValue());
+            if (rootFolder.exists()) {
+                citationIndex.addFolder(collection.getKey(), rootFolder);
+            }
+        }
+        final int rowCount = citationIndex.write(citationsFile);
+        System.out.println("Wrote " + rowCount + " citations to `" + citationsFile.getPath() + "` in " +
+                (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    private static void cites(File citationsFile, String reference) throws IOException {
+        final VerseTable table = VerseTable.load(new File(Folders.SCRIPTURES_ROOT));
+        final List<String[]> rows = CitationIndex.find(citationsFile, table, reference);
+        System.out.println(rows.size() + " citations.");
+        for (String[] row : rows) {
+            System.out.println(row[1] + "\t" + row[2] + "\t" + row[3]);
+        }
+    }
+
+    private static void findDuplicates(File duplicatesFile, float minSimilarity, int threads) throws IOException {
+        final File indexFolder = duplicatesFile.getParentFile();
+        if (!indexFolder.exists() && !indexFolder.mkdirs()) {
+            throw new RuntimeException("Unable to create index directory: `" + indexFolder.getPath() + "`.");
+        }
+        final long start = System.currentTimeMillis();
+        final DuplicateDetector detector = new DuplicateDetector();
+        for (Map.Entry<String, String> collection : Folders.COLLECTIONS.entrySet()) {
+            final File rootFolder = new File(collection.getValue());
+            if (rootFolder.exists()) {
+                detector.addFolder(collection.getKey(), rootFolder);
+            }
+        }
+        final List<DuplicateDetector.Cluster> clusters = detector.find(minSimilarity, threads);
+        DuplicateDetector.write(clusters, duplicatesFile);
+        System.out.println("Found " + clusters.size() + " clusters of duplicates among " + detector.getTalkCount() +
+                " talks in " + (System.currentTimeMillis() - start) + " ms.");
+        for (DuplicateDetector.Cluster cluster : clusters.subList(0, Math.min(DEFAULT_LIMIT, clusters.size()))) {
+            System.out.println(String.join("\t", cluster.getTalks()));
+        }
+    }
+
+    private Index() {
+    }
+}
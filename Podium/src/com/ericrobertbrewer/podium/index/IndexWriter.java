@@ -0,0 +1,210 @@
+package com.ericrobertbrewer.podium.index;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds an inverted index of the text files of the corpus, which is then searched with {@link SearchIndex}.
+ *
+ * The index is a single file:
+ * <pre>
+ * header:     magic, version, document count, term count, then the offset of each section (all `int`)
+ * documents:  for each document, its path (varint length, UTF-8 bytes)
+ * dictionary: for each term, in unsigned byte order: term offset, term length, document frequency, postings offset
+ * terms:      UTF-8 bytes of every term
+ * postings:   for each term, for each document which contains it:
+ *             varint document ID delta, varint frequency, then (frequency) varint position deltas
+ * </pre>
+ * The dictionary has a fixed width, so that it may be searched in place.
+ */
+public class IndexWriter {
+
+    static final int MAGIC = 0x50444958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 9 * Integer.BYTES;
+    static final int DICTIONARY_ENTRY_SIZE = 4 * Integer.BYTES;
+
+    private final List<String> paths = new ArrayList<>();
+    private final Map<String, Postings> postingsMap = new HashMap<>();
+
+    /**
+     * Add every text file (transcript) within a folder, such as the root folder of a scraped content option.
+     * Files are added in the order of their paths.
+     * @param prefix Of the path of each document, such as `gc`.
+     * @param folder To search recursively.
+     * @throws IOException When a file can't be read.
+     */
+    public void addFolder(String prefix, File folder) throws IOException {
+        final Path root = folder.toPath();
+        final List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(TalkFiles.TEXT_SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            final StringBuilder path = new StringBuilder(prefix);
+            for (Path component : root.relativize(file)) {
+                path.append('/').append(component.toString());
+            }
+            addDocument(path.toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @param path By which the document is returned from searches.
+     * @param text In the plain text encoding of the scrapers.
+     */
+    public void addDocument(String path, String text) {
+        final int documentId = paths.size();
+        paths.add(path);
+        // Collect the positions of each term in this document.
+        final Map<String, IntList> positionsMap = new HashMap<>();
+        Tokenizer.tokenize(text, (term, position) -> positionsMap.computeIfAbsent(term, key -> new IntList()).add(position));
+        for (Map.Entry<String, IntList> entry : positionsMap.entrySet()) {
+            postingsMap.computeIfAbsent(entry.getKey(), Postings::new).add(documentId, entry.getValue());
+        }
+    }
+
+    public int getDocumentCount() {
+        return paths.size();
+    }
+
+    public int getTermCount() {
+        return postingsMap.size();
+    }
+
+    /**
+     * Write the index. The file is replaced only once it has been written completely.
+     * @param file To write.
+     * @throws IOException When the file can't be written.
+     */
+    public void write(File file) throws IOException {
+        // Sort terms in the order in which they are searched.
+        final List<Postings> terms = new ArrayList<>(postingsMap.values());
+        terms.sort((a, b) -> Arrays.compareUnsigned(a.term, b.term));
+        // Lay out each section.
+        final ByteArrayOutputStream documentsBytes = new ByteArrayOutputStream();
+        for (String path : paths) {
+            final byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(documentsBytes, pathBytes.length);
+            documentsBytes.write(pathBytes);
+        }
+        long termsSize = 0;
+        long postingsSize = 0;
+        for (Postings postings : terms) {
+            termsSize += postings.term.length;
+            postingsSize += postings.size;
+        }
+        final long documentsOffset = HEADER_SIZE;
+        final long dictionaryOffset = documentsOffset + documentsBytes.size();
+        final long termsOffset = dictionaryOffset + (long) terms.size() * DICTIONARY_ENTRY_SIZE;
+        final long postingsOffset = termsOffset + termsSize;
+        final long end = postingsOffset + postingsSize;
+        // A memory-mapped buffer is indexed by `int`.
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("Index would be too large to map: " + end + " bytes.");
+        }
+        final File partFile = new File(file.getPath() + ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(paths.size());
+            out.writeInt(terms.size());
+            out.writeInt((int) documentsOffset);
+            out.writeInt((int) dictionaryOffset);
+            out.writeInt((int) termsOffset);
+            out.writeInt((int) postingsOffset);
+            out.writeInt((int) end);
+            documentsBytes.writeTo(out);
+            int termOffset = 0;
+            int postingsOffsetOfTerm = 0;
+            for (Postings postings : terms) {
+                out.writeInt(termOffset);
+                out.writeInt(postings.term.length);
+                out.writeInt(postings.documentFrequency);
+                out.writeInt(postingsOffsetOfTerm);
+                termOffset += postings.term.length;
+                postingsOffsetOfTerm += postings.size;
+            }
+            for (Postings postings : terms) {
+                out.write(postings.term);
+            }
+            for (Postings postings : terms) {
+                out.write(postings.bytes, 0, postings.size);
+            }
+        }
+        Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The compressed postings of one term, as they are built.
+     */
+    private static class Postings {
+
+        private final byte[] term;
+        private byte[] bytes = new byte[16];
+        private int size = 0;
+        private int documentFrequency = 0;
+        private int lastDocumentId = 0;
+
+        private Postings(String term) {
+            this.term = term.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void add(int documentId, IntList positions) {
+            writeVarInt(documentId - lastDocumentId);
+            writeVarInt(positions.size);
+            int lastPosition = 0;
+            for (int i = 0; i < positions.size; i++) {
+                writeVarInt(positions.values[i] - lastPosition);
+                lastPosition = positions.values[i];
+            }
+            lastDocumentId = documentId;
+            documentFrequency++;
+        }
+
+        private void writeVarInt(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
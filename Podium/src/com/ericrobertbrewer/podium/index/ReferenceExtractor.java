@@ -0,0 +1,226 @@
+package com.ericrobertbrewer.podium.index;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds citations of scripture verses in text, such as `Alma 32:21`, `D&C 88:118`, `1 Ne. 3:7, 9-10`, or
+ * `Moro. 10:4; 7:47`, and resolves them to the canonical IDs of a {@link VerseTable}.
+ *
+ * Text is only examined closely around each `chapter:verse`, so an extractor may be used for every line of the
+ * corpus in turn. An instance is not thread-safe, but it may be reused.
+ */
+public class ReferenceExtractor {
+
+    public interface VerseConsumer {
+        void accept(int verseId);
+    }
+
+    private static final Pattern CHAPTER_VERSE_PATTERN = Pattern.compile("(?<![0-9:])([0-9]{1,3}):([0-9]{1,3})");
+    /**
+     * The most verses of a single range to cite, which rejects numbers which only look like ranges.
+     */
+    private static final int MAX_RANGE_LENGTH = 200;
+
+    private final VerseTable table;
+    private final Matcher matcher = CHAPTER_VERSE_PATTERN.matcher("");
+    private final int[] wordStarts;
+
+    public ReferenceExtractor(VerseTable table) {
+        this.table = table;
+        this.wordStarts = new int[table.getMaxBookNameWords()];
+    }
+
+    /**
+     * @param text Such as a line of a transcript or notes file.
+     * @param consumer Of the ID of each cited verse, in order. A verse may be cited more than once.
+     * @return The number of verses cited.
+     */
+    public int extract(CharSequence text, VerseConsumer consumer) {
+        // Most lines cite nothing.
+        if (!contains(text, ':')) {
+            return 0;
+        }
+        int count = 0;
+        int lastBook = -1;
+        int lastEnd = -1;
+        matcher.reset(text);
+        int from = 0;
+        while (from < text.length() && matcher.find(from)) {
+            final int chapterStart = matcher.start(1);
+            int book = findBookBefore(text, chapterStart);
+            if (book == -1 && lastBook != -1 && isContinuation(text, lastEnd, chapterStart)) {
+                // As in `Alma 32:21; 34:15`.
+                book = lastBook;
+            }
+            if (book == -1) {
+                from = matcher.end();
+                continue;
+            }
+            final int chapter = Integer.parseInt(matcher.group(1));
+            // Read the list of verses, as in `9-10, 12`.
+            int i = matcher.start(2);
+            boolean isFirst = true;
+            while (true) {
+                int j = i;
+                if (!isFirst) {
+                    j = skipSpaces(text, j);
+                    if (j == text.length() || text.charAt(j) != ',') {
+                        break;
+                    }
+                    j = skipSpaces(text, j + 1);
+                }
+                final int numberEnd = skipDigits(text, j);
+                if (numberEnd == j || numberEnd - j > 3) {
+                    break;
+                }
+                final int verse = parse(text, j, numberEnd);
+                int last = verse;
+                int end = numberEnd;
+                // A range, as in `9-10`.
+                final int dash = skipSpaces(text, numberEnd);
+                if (dash < text.length() && isDash(text.charAt(dash))) {
+                    final int rangeStart = skipSpaces(text, dash + 1);
+                    final int rangeEnd = skipDigits(text, rangeStart);
+                    if (rangeEnd > rangeStart && rangeEnd - rangeStart <= 3) {
+                        final int rangeLast = parse(text, rangeStart, rangeEnd);
+                        if (rangeLast > verse && rangeLast - verse < MAX_RANGE_LENGTH) {
+                            last = rangeLast;
+                            end = rangeEnd;
+                        }
+                    }
+                }
+                // Stop at the chapter of the next citation, as in `, 34:15`, or at the next book, as in `, 1 Ne. 3:7`.
+                if (!isFirst && ((end < text.length() && text.charAt(end) == ':') || startsBookName(text, j))) {
+                    break;
+                }
+                for (int v = verse; v <= last; v++) {
+                    final int verseId = table.getVerseId(book, chapter, v);
+                    if (verseId != -1) {
+                        consumer.accept(verseId);
+                        count++;
+                    }
+                }
+                i = end;
+                isFirst = false;
+            }
+            lastBook = book;
+            lastEnd = i;
+            from = Math.max(i, matcher.end());
+        }
+        return count;
+    }
+
+    /**
+     * @return The book whose name (of up to a few words) ends right before the chapter, or `-1`.
+     */
+    private int findBookBefore(CharSequence text, int chapterStart) {
+        int bookEnd = chapterStart;
+        while (bookEnd > 0 && isSpace(text.charAt(bookEnd - 1))) {
+            bookEnd--;
+        }
+        if (bookEnd == chapterStart) {
+            return -1;
+        }
+        // Find the start of each preceding word.
+        int words = 0;
+        int k = bookEnd;
+        while (words < wordStarts.length && k > 0) {
+            while (k > 0 && !isSpace(text.charAt(k - 1))) {
+                k--;
+            }
+            wordStarts[words++] = k;
+            while (k > 0 && isSpace(text.charAt(k - 1))) {
+                k--;
+            }
+        }
+        // Prefer the longest name, as in `Words of Mormon` rather than `Mormon`.
+        for (int w = words - 1; w >= 0; w--) {
+            final int book = table.findBook(VerseTable.normalizeBookName(text.subSequence(wordStarts[w], bookEnd)));
+            if (book != -1) {
+                return book;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Whether a book name (such as `1 Ne.`) starts at the position.
+     */
+    private boolean startsBookName(CharSequence text, int start) {
+        int end = start;
+        for (int w = 0; w < wordStarts.length && end < text.length(); w++) {
+            while (end < text.length() && !isSpace(text.charAt(end))) {
+                end++;
+            }
+            if (table.findBook(VerseTable.normalizeBookName(text.subSequence(start, end))) != -1) {
+                return true;
+            }
+            end = skipSpaces(text, end);
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether only a separator (`;` or `,`) lies between the end of the last citation and this chapter.
+     */
+    private static boolean isContinuation(CharSequence text, int lastEnd, int chapterStart) {
+        if (lastEnd < 0 || lastEnd > chapterStart) {
+            return false;
+        }
+        boolean hasSeparator = false;
+        for (int i = lastEnd; i < chapterStart; i++) {
+            final char c = text.charAt(i);
+            if (c == ';' || c == ',') {
+                if (hasSeparator) {
+                    return false;
+                }
+                hasSeparator = true;
+            } else if (!isSpace(c)) {
+                return false;
+            }
+        }
+        return hasSeparator;
+    }
+
+    private static boolean contains(CharSequence text, char c) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipSpaces(CharSequence text, int start) {
+        int i = start;
+        while (i < text.length() && isSpace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence text, int start) {
+        int i = start;
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parse(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\u00A0' || c == '\t';
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || c == '\u2013' || c == '\u2014';
+    }
+}
@@ -0,0 +1,427 @@
+package com.ericrobertbrewer.podium.index;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Searches an index written by {@link IndexWriter}.
+ * The file is memory-mapped; only the paths of documents are read into memory when it is opened.
+ * An instance may be shared between threads.
+ *
+ * A query is a list of clauses, every one of which must match:
+ * <ul>
+ *     <li>`faith` matches a term.</li>
+ *     <li>`"faith in jesus christ"` (or `faith-in-jesus-christ`) matches a phrase.</li>
+ *     <li>`faith OR hope` matches either clause.</li>
+ *     <li>`-fear` excludes documents which match the clause.</li>
+ * </ul>
+ */
+public class SearchIndex implements Closeable {
+
+    public static final String OR = "OR";
+
+    /**
+     * A document which matches a query.
+     */
+    public static class Hit {
+
+        private final String path;
+        private final int count;
+
+        private Hit(String path, int count) {
+            this.path = path;
+            this.count = count;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return The number of times that the terms and phrases of the query occur in the document.
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * @param file Written by {@link IndexWriter#write(File)}.
+     * @return The opened index.
+     * @throws IOException When the file can't be read or isn't an index.
+     */
+    public static SearchIndex open(File file) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SearchIndex(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final String[] paths;
+    private final int termCount;
+    private final int dictionaryOffset;
+    private final int termsOffset;
+    private final int postingsOffset;
+
+    private SearchIndex(FileChannel channel, ByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < IndexWriter.HEADER_SIZE || buffer.getInt(0) != IndexWriter.MAGIC) {
+            throw new IOException("Not an index file.");
+        }
+        if (buffer.getInt(4) != IndexWriter.VERSION) {
+            throw new IOException("Unsupported index version: `" + buffer.getInt(4) + "`.");
+        }
+        paths = new String[buffer.getInt(8)];
+        termCount = buffer.getInt(12);
+        final int documentsOffset = buffer.getInt(16);
+        dictionaryOffset = buffer.getInt(20);
+        termsOffset = buffer.getInt(24);
+        postingsOffset = buffer.getInt(28);
+        if (buffer.getInt(32) != buffer.capacity()) {
+            throw new IOException("Index file is truncated.");
+        }
+        final int[] position = {documentsOffset};
+        for (int i = 0; i < paths.length; i++) {
+            final int length = readVarInt(position);
+            final byte[] bytes = new byte[length];
+            buffer.duplicate().position(position[0]).get(bytes);
+            paths[i] = new String(bytes, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+    }
+
+    public int getDocumentCount() {
+        return paths.length;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * @param query As described in {@link SearchIndex}.
+     * @return The documents which match, with the most occurrences first.
+     */
+    public List<Hit> search(String query) {
+        // Group clauses which are joined by `OR`.
+        final List<List<String>> groups = new ArrayList<>();
+        final List<String> excluded = new ArrayList<>();
+        boolean isOr = false;
+        for (String clause : splitClauses(query)) {
+            if (OR.equals(clause)) {
+                isOr = !groups.isEmpty();
+                continue;
+            }
+            if (clause.startsWith("-") && clause.length() > 1) {
+                excluded.add(clause.substring(1));
+            } else if (isOr) {
+                groups.get(groups.size() - 1).add(clause);
+            } else {
+                groups.add(new ArrayList<>(Collections.singletonList(clause)));
+            }
+            isOr = false;
+        }
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+        DocumentSet result = null;
+        for (List<String> group : groups) {
+            DocumentSet groupResult = DocumentSet.EMPTY;
+            for (String clause : group) {
+                groupResult = groupResult.or(matchClause(clause));
+            }
+            result = result == null ? groupResult : result.and(groupResult);
+        }
+        for (String clause : excluded) {
+            result = result.andNot(matchClause(clause));
+        }
+        final List<Hit> hits = new ArrayList<>(result.size);
+        for (int i = 0; i < result.size; i++) {
+            hits.add(new Hit(paths[result.documentIds[i]], result.counts[i]));
+        }
+        hits.sort((a, b) -> Integer.compare(b.count, a.count));
+        return hits;
+    }
+
+    /**
+     * Split a query on whitespace, except within quotes.
+     */
+    private static List<String> splitClauses(String query) {
+        final List<String> clauses = new ArrayList<>();
+        final StringBuilder clause = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < query.length(); i++) {
+            final char c = query.charAt(i);
+            if (c == '"') {
+                isQuoted = !isQuoted;
+            } else if (Character.isWhitespace(c) && !isQuoted) {
+                if (clause.length() > 0) {
+                    clauses.add(clause.toString());
+                    clause.setLength(0);
+                }
+            } else {
+                clause.append(c);
+            }
+        }
+        if (clause.length() > 0) {
+            clauses.add(clause.toString());
+        }
+        return clauses;
+    }
+
+    private DocumentSet matchClause(String clause) {
+        final List<String> terms = Tokenizer.terms(clause);
+        if (terms.isEmpty()) {
+            return DocumentSet.EMPTY;
+        }
+        if (terms.size() == 1) {
+            return matchTerm(terms.get(0));
+        }
+        return matchPhrase(terms);
+    }
+
+    private DocumentSet matchTerm(String term) {
+        final int entry = findTerm(term);
+        if (entry == -1) {
+            return DocumentSet.EMPTY;
+        }
+        final int documentFrequency = buffer.getInt(entry + 8);
+        final DocumentSet result = new DocumentSet(documentFrequency);
+        final int[] position = {postingsOffset + buffer.getInt(entry + 12)};
+        int documentId = 0;
+        for (int i = 0; i < documentFrequency; i++) {
+            documentId += readVarInt(position);
+            final int frequency = readVarInt(position);
+            for (int j = 0; j < frequency; j++) {
+                readVarInt(position);
+            }
+            result.add(documentId, frequency);
+        }
+        return result;
+    }
+
+    private DocumentSet matchPhrase(List<String> terms) {
+        final int[] entries = new int[terms.size()];
+        int rarest = 0;
+        for (int t = 0; t < terms.size(); t++) {
+            entries[t] = findTerm(terms.get(t));
+            if (entries[t] == -1) {
+                return DocumentSet.EMPTY;
+            }
+            if (buffer.getInt(entries[t] + 8) < buffer.getInt(entries[rarest] + 8)) {
+                rarest = t;
+            }
+        }
+        // Only keep the positions of documents which contain every term so far, starting with the rarest.
+        final List<Map<Integer, int[]>> postingsList = new ArrayList<>(Collections.nCopies(terms.size(), null));
+        Map<Integer, int[]> candidates = readPostings(entries[rarest], null);
+        postingsList.set(rarest, candidates);
+        for (int t = 0; t < terms.size() && !candidates.isEmpty(); t++) {
+            if (t != rarest) {
+                final Map<Integer, int[]> postings = readPostings(entries[t], candidates.keySet());
+                postingsList.set(t, postings);
+                candidates.keySet().retainAll(postings.keySet());
+            }
+        }
+        final DocumentSet result = new DocumentSet(candidates.size());
+        for (Map.Entry<Integer, int[]> entry : candidates.entrySet()) {
+            final int documentId = entry.getKey();
+            int count = 0;
+            // Align every term with each occurrence of the rarest one.
+            for (int start : entry.getValue()) {
+                boolean isMatch = true;
+                for (int t = 0; t < terms.size() && isMatch; t++) {
+                    isMatch = Arrays.binarySearch(postingsList.get(t).get(documentId), start - rarest + t) >= 0;
+                }
+                if (isMatch) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                result.add(documentId, count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param documentIds To read, or `null` for every document.
+     * @return Positions by document ID, in order of document ID.
+     */
+    private Map<Integer, int[]> readPostings(int entry, Set<Integer> documentIds) {
+        final int documentFrequency = buffer.getInt(entry + 8);
+        final Map<Integer, int[]> postings = new LinkedHashMap<>();
+        final int[] position = {postingsOffset + buffer.getInt(entry + 12)};
+        int documentId = 0;
+        for (int i = 0; i < documentFrequency; i++) {
+            documentId += readVarInt(position);
+            final int frequency = readVarInt(position);
+            if (documentIds != null && !documentIds.contains(documentId)) {
+                for (int j = 0; j < frequency; j++) {
+                    readVarInt(position);
+                }
+                continue;
+            }
+            final int[] positions = new int[frequency];
+            int termPosition = 0;
+            for (int j = 0; j < frequency; j++) {
+                termPosition += readVarInt(position);
+                positions[j] = termPosition;
+            }
+            postings.put(documentId, positions);
+        }
+        return postings;
+    }
+
+    /**
+     * Binary search the dictionary.
+     * @return The offset of the dictionary entry of the term, or `-1` if it isn't indexed.
+     */
+    private int findTerm(String term) {
+        final byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int entry = dictionaryOffset + middle * IndexWriter.DICTIONARY_ENTRY_SIZE;
+            final int comparison = compareTerm(entry, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compare the term of a dictionary entry with a key, as unsigned bytes.
+     */
+    private int compareTerm(int entry, byte[] key) {
+        final int offset = termsOffset + buffer.getInt(entry);
+        final int length = buffer.getInt(entry + 4);
+        final int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            final int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Read a varint with absolute gets, which leave the shared buffer untouched.
+     * @param position Of the varint, which is advanced past it.
+     */
+    private int readVarInt(int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Document IDs in ascending order, each with a count of occurrences.
+     */
+    private static class DocumentSet {
+
+        private static final DocumentSet EMPTY = new DocumentSet(0);
+
+        private int[] documentIds;
+        private int[] counts;
+        private int size = 0;
+
+        private DocumentSet(int capacity) {
+            documentIds = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        private void add(int documentId, int count) {
+            if (size == documentIds.length) {
+                documentIds = Arrays.copyOf(documentIds, Math.max(4, size * 2));
+                counts = Arrays.copyOf(counts, documentIds.length);
+            }
+            documentIds[size] = documentId;
+            counts[size] = count;
+            size++;
+        }
+
+        private DocumentSet and(DocumentSet other) {
+            final DocumentSet result = new DocumentSet(Math.min(size, other.size));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (documentIds[i] < other.documentIds[j]) {
+                    i++;
+                } else if (documentIds[i] > other.documentIds[j]) {
+                    j++;
+                } else {
+                    result.add(documentIds[i], counts[i] + other.counts[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private DocumentSet or(DocumentSet other) {
+            final DocumentSet result = new DocumentSet(size + other.size);
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || (i < size && documentIds[i] < other.documentIds[j])) {
+                    result.add(documentIds[i], counts[i]);
+                    i++;
+                } else if (i == size || documentIds[i] > other.documentIds[j]) {
+                    result.add(other.documentIds[j], other.counts[j]);
+                    j++;
+                } else {
+                    result.add(documentIds[i], counts[i] + other.counts[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private DocumentSet andNot(DocumentSet other) {
+            final DocumentSet result = new DocumentSet(size);
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                while (j < other.size && other.documentIds[j] < documentIds[i]) {
+                    j++;
+                }
+                if (j == other.size || other.documentIds[j] != documentIds[i]) {
+                    result.add(documentIds[i], counts[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
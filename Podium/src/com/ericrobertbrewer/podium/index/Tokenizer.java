@@ -0,0 +1,122 @@
+package com.ericrobertbrewer.podium.index;
+
+import com.ericrobertbrewer.podium.Encoding;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits the text of a talk (as written by the scrapers, in the plain text {@link Encoding}) into the terms of spoken
+ * text and their positions.
+ *
+ * Headers (`{{...}}`) and reference numbers (`<<#>>`) are not spoken, so they are skipped.
+ * Each line and each paragraph separator (`||`) leaves a gap in positions, so that phrases never match across
+ * paragraphs.
+ *
+ * Terms are lower case letters and digits, without accents. Apostrophes are dropped (`don't` is `dont`) and any other
+ * character separates terms (`well-known` is `well` followed by `known`).
+ */
+final class Tokenizer {
+
+    interface TermConsumer {
+        void accept(String term, int position);
+    }
+
+    /**
+     * @param text Of a talk or a query.
+     * @param consumer Of each term, in order.
+     * @return The number of positions used, including gaps.
+     */
+    static int tokenize(String text, TermConsumer consumer) {
+        final StringBuilder word = new StringBuilder();
+        int position = 0;
+        // Whether a term has been found since the last gap.
+        boolean needsGap = false;
+        int i = 0;
+        while (i < text.length()) {
+            final char c = text.charAt(i);
+            // Skip headers and reference numbers entirely.
+            final String skipStart;
+            final String skipEnd;
+            if (text.startsWith(Encoding.HEADER_START, i)) {
+                skipStart = Encoding.HEADER_START;
+                skipEnd = Encoding.HEADER_END;
+            } else if (text.startsWith(Encoding.REFERENCE_NUMBER_START, i)) {
+                skipStart = Encoding.REFERENCE_NUMBER_START;
+                skipEnd = Encoding.REFERENCE_NUMBER_END;
+            } else {
+                skipStart = null;
+                skipEnd = null;
+            }
+            if (skipEnd != null) {
+                if (word.length() > 0) {
+                    consumer.accept(toTerm(word), position++);
+                    word.setLength(0);
+                    needsGap = true;
+                }
+                final int end = text.indexOf(skipEnd, i + skipStart.length());
+                i = end == -1 ? text.length() : end + skipEnd.length();
+                if (skipStart.equals(Encoding.HEADER_START) && needsGap) {
+                    position++;
+                    needsGap = false;
+                }
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+                i++;
+                continue;
+            }
+            if (isApostrophe(c) && word.length() > 0) {
+                i++;
+                continue;
+            }
+            if (word.length() > 0) {
+                consumer.accept(toTerm(word), position++);
+                word.setLength(0);
+                needsGap = true;
+            }
+            if (c == '\n' || text.startsWith(Encoding.PARAGRAPH_SEPARATOR, i)) {
+                if (needsGap) {
+                    position++;
+                    needsGap = false;
+                }
+            }
+            i++;
+        }
+        if (word.length() > 0) {
+            consumer.accept(toTerm(word), position++);
+        }
+        return position;
+    }
+
+    /**
+     * @param text Of a query.
+     * @return Its terms, in order.
+     */
+    static List<String> terms(String text) {
+        final List<String> terms = new ArrayList<>();
+        tokenize(text, (term, position) -> terms.add(term));
+        return terms;
+    }
+
+    private static boolean isApostrophe(char c) {
+        return c == '\'' || c == '\u2019' || c == '\u2018';
+    }
+
+    private static String toTerm(CharSequence word) {
+        final String lower = word.toString().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                // Remove accents (diacritical marks).
+                return Normalizer.normalize(lower, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+
+    private Tokenizer() {
+    }
+}
@@ -0,0 +1,294 @@
+package com.ericrobertbrewer.podium.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Every verse of the standard works, as read from the `@bencrowder/scriptures-json` package
+ * (see {@link com.ericrobertbrewer.podium.Folders#SCRIPTURES_ROOT}).
+ *
+ * Each verse has a canonical ID: its index in the order of the volumes (Old Testament, New Testament, Book of Mormon,
+ * Doctrine and Covenants, Pearl of Great Price), books, chapters, and verses. The table only holds a few small arrays,
+ * so the verse of a citation is found without creating any objects.
+ */
+public class VerseTable {
+
+    /**
+     * Volumes in canonical order. Any other files in the folder are read afterward, in order of name.
+     */
+    private static final String[] VOLUME_FILE_NAMES = {
+            "old-testament.json",
+            "new-testament.json",
+            "book-of-mormon.json",
+            "doctrine-and-covenants.json",
+            "pearl-of-great-price.json"
+    };
+
+    /**
+     * The reference of each verse, such as `"reference": "Alma 32:21"`.
+     * Chapters and sections have references too (`"Alma 32"`), but without a verse.
+     */
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("\"reference\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern VERSE_REFERENCE_PATTERN = Pattern.compile("(.*\\S)\\s+([0-9]+):([0-9]+)");
+
+    /**
+     * Names by which each book is cited, including the abbreviations of the LDS edition of the scriptures.
+     * The first name of each group is only for readability; any of them may be the name used in the data.
+     */
+    private static final String[][] BOOK_NAME_GROUPS = {
+            {"Genesis", "Gen."}, {"Exodus", "Ex.", "Exod."}, {"Leviticus", "Lev."}, {"Numbers", "Num."},
+            {"Deuteronomy", "Deut."}, {"Joshua", "Josh."}, {"Judges", "Judg."}, {"Ruth"},
+            {"1 Samuel", "1 Sam."}, {"2 Samuel", "2 Sam."}, {"1 Kings", "1 Kgs."}, {"2 Kings", "2 Kgs."},
+            {"1 Chronicles", "1 Chr."}, {"2 Chronicles", "2 Chr."}, {"Ezra"}, {"Nehemiah", "Neh."},
+            {"Esther", "Esth."}, {"Job"}, {"Psalms", "Psalm", "Ps."}, {"Proverbs", "Prov."},
+            {"Ecclesiastes", "Eccl."}, {"Song of Solomon", "Song"}, {"Isaiah", "Isa."}, {"Jeremiah", "Jer."},
+            {"Lamentations", "Lam."}, {"Ezekiel", "Ezek."}, {"Daniel", "Dan."}, {"Hosea"}, {"Joel"}, {"Amos"},
+            {"Obadiah", "Obad."}, {"Jonah"}, {"Micah"}, {"Nahum"}, {"Habakkuk", "Hab."}, {"Zephaniah", "Zeph."},
+            {"Haggai", "Hag."}, {"Zechariah", "Zech."}, {"Malachi", "Mal."},
+            {"Matthew", "Matt."}, {"Mark"}, {"Luke"}, {"John"}, {"Acts"}, {"Romans", "Rom."},
+            {"1 Corinthians", "1 Cor."}, {"2 Corinthians", "2 Cor."}, {"Galatians", "Gal."}, {"Ephesians", "Eph."},
+            {"Philippians", "Philip.", "Phil."}, {"Colossians", "Col."},
+            {"1 Thessalonians", "1 Thes.", "1 Thess."}, {"2 Thessalonians", "2 Thes.", "2 Thess."},
+            {"1 Timothy", "1 Tim."}, {"2 Timothy", "2 Tim."}, {"Titus"}, {"Philemon", "Philem."},
+            {"Hebrews", "Heb."}, {"James"}, {"1 Peter", "1 Pet."}, {"2 Peter", "2 Pet."}, {"1 John"}, {"2 John"},
+            {"3 John"}, {"Jude"}, {"Revelation", "Rev."},
+            {"1 Nephi", "1 Ne."}, {"2 Nephi", "2 Ne."}, {"Jacob"}, {"Enos"}, {"Jarom"}, {"Omni"},
+            {"Words of Mormon", "W of M"}, {"Mosiah"}, {"Alma"}, {"Helaman", "Hel."}, {"3 Nephi", "3 Ne."},
+            {"4 Nephi", "4 Ne."}, {"Mormon", "Morm."}, {"Ether"}, {"Moroni", "Moro."},
+            {"Doctrine and Covenants", "D&C", "D. & C."},
+            {"Moses"}, {"Abraham", "Abr."}, {"Joseph Smith—Matthew", "JS—M"},
+            {"Joseph Smith—History", "JS—H"}, {"Articles of Faith", "A of F"}
+    };
+
+    /**
+     * @param folder Of the `@bencrowder/scriptures-json` package.
+     * @return The table of every verse in the folder.
+     * @throws IOException When a file can't be read.
+     */
+    public static VerseTable load(File folder) throws IOException {
+        final File[] files = folder.listFiles((dir, name) -> name.endsWith(".json") && !"package.json".equals(name));
+        if (files == null) {
+            throw new IOException("Unable to list scriptures in: `" + folder.getPath() + "`.");
+        }
+        final List<String> order = Arrays.asList(VOLUME_FILE_NAMES);
+        Arrays.sort(files, Comparator.<File>comparingInt(file -> {
+            final int index = order.indexOf(file.getName());
+            return index == -1 ? order.size() : index;
+        }).thenComparing(File::getName));
+        final Builder builder = new Builder();
+        for (File file : files) {
+            final String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            final Matcher matcher = REFERENCE_PATTERN.matcher(json);
+            while (matcher.find()) {
+                final Matcher verseMatcher = VERSE_REFERENCE_PATTERN.matcher(unescape(matcher.group(1)));
+                if (verseMatcher.matches()) {
+                    builder.add(verseMatcher.group(1), Integer.parseInt(verseMatcher.group(2)), Integer.parseInt(verseMatcher.group(3)));
+                }
+            }
+        }
+        if (builder.bookNames.isEmpty()) {
+            throw new IOException("No verses found in: `" + folder.getPath() + "`.");
+        }
+        return builder.build();
+    }
+
+    private static String unescape(String jsonString) {
+        if (jsonString.indexOf('\\') == -1) {
+            return jsonString;
+        }
+        final StringBuilder sb = new StringBuilder(jsonString.length());
+        for (int i = 0; i < jsonString.length(); i++) {
+            final char c = jsonString.charAt(i);
+            if (c != '\\' || i + 1 == jsonString.length()) {
+                sb.append(c);
+                continue;
+            }
+            final char escaped = jsonString.charAt(++i);
+            if (escaped == 'u' && i + 4 < jsonString.length()) {
+                sb.append((char) Integer.parseInt(jsonString.substring(i + 1, i + 5), 16));
+                i += 4;
+            } else if (escaped == 'n') {
+                sb.append('\n');
+            } else if (escaped == 't') {
+                sb.append('\t');
+            } else {
+                sb.append(escaped);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param name Of a book, as it might be cited.
+     * @return The name, without case, periods, or extra spaces, and with a plain hyphen for any dash.
+     */
+    static String normalizeBookName(CharSequence name) {
+        final StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\u2014' || c == '\u2013') {
+                c = '-';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (c == '&' || c == '-') {
+                // Ignore spaces around joining characters, as in `D. & C.`.
+                while (sb.length() > 0 && sb.charAt(sb.length() - 1) == ' ') {
+                    sb.setLength(sb.length() - 1);
+                }
+                sb.append(c);
+            } else if (Character.isWhitespace(c) || c == '\u00A0') {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ' &&
+                        sb.charAt(sb.length() - 1) != '&' && sb.charAt(sb.length() - 1) != '-') {
+                    sb.append(' ');
+                }
+            }
+        }
+        int length = sb.length();
+        while (length > 0 && sb.charAt(length - 1) == ' ') {
+            length--;
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    private final String[] bookNames;
+    private final Map<String, Integer> bookAliases;
+    private final int maxAliasWords;
+    /**
+     * The ID of the first verse of each chapter of each book, with an extra entry for the end of the book.
+     * Chapter `c` of book `b` is the range `chapterStarts[b][c - 1]` (inclusive) to `chapterStarts[b][c]` (exclusive).
+     */
+    private final int[][] chapterStarts;
+    private final short[] verseBooks;
+    private final short[] verseChapters;
+    private final short[] verseNumbers;
+
+    private VerseTable(String[] bookNames, Map<String, Integer> bookAliases, int[][] chapterStarts) {
+        this.bookNames = bookNames;
+        this.bookAliases = bookAliases;
+        this.chapterStarts = chapterStarts;
+        int maxAliasWords = 1;
+        for (String alias : bookAliases.keySet()) {
+            maxAliasWords = Math.max(maxAliasWords, alias.split(" ").length);
+        }
+        this.maxAliasWords = maxAliasWords;
+        final int verseCount = chapterStarts[chapterStarts.length - 1][chapterStarts[chapterStarts.length - 1].length - 1];
+        verseBooks = new short[verseCount];
+        verseChapters = new short[verseCount];
+        verseNumbers = new short[verseCount];
+        for (int b = 0; b < chapterStarts.length; b++) {
+            for (int c = 0; c + 1 < chapterStarts[b].length; c++) {
+                for (int id = chapterStarts[b][c]; id < chapterStarts[b][c + 1]; id++) {
+                    verseBooks[id] = (short) b;
+                    verseChapters[id] = (short) (c + 1);
+                    verseNumbers[id] = (short) (id - chapterStarts[b][c] + 1);
+                }
+            }
+        }
+    }
+
+    public int getVerseCount() {
+        return verseBooks.length;
+    }
+
+    /**
+     * @param normalizedName As from {@link #normalizeBookName(CharSequence)}.
+     * @return The index of the book, or `-1` if no book is cited by that name.
+     */
+    int findBook(String normalizedName) {
+        final Integer book = bookAliases.get(normalizedName);
+        return book == null ? -1 : book;
+    }
+
+    /**
+     * @return The most words in the name of a book, such as `3` for `Words of Mormon`.
+     */
+    int getMaxBookNameWords() {
+        return maxAliasWords;
+    }
+
+    /**
+     * @return The canonical ID of the verse, or `-1` if there is no such verse.
+     */
+    public int getVerseId(int book, int chapter, int verse) {
+        if (book < 0 || book >= chapterStarts.length || chapter < 1 || chapter >= chapterStarts[book].length ||
+                verse < 1 || chapterStarts[book][chapter - 1] + verse > chapterStarts[book][chapter]) {
+            return -1;
+        }
+        return chapterStarts[book][chapter - 1] + verse - 1;
+    }
+
+    /**
+     * @return The reference of the verse, such as `Alma 32:21`.
+     */
+    public String getReference(int verseId) {
+        return bookNames[verseBooks[verseId]] + " " + verseChapters[verseId] + ":" + verseNumbers[verseId];
+    }
+
+    private static class Builder {
+
+        private final List<String> bookNames = new ArrayList<>();
+        private final Map<String, Integer> bookIndices = new HashMap<>();
+        private final List<List<Integer>> chapterLengths = new ArrayList<>();
+
+        private void add(String bookName, int chapter, int verse) {
+            Integer book = bookIndices.get(bookName);
+            if (book == null) {
+                book = bookNames.size();
+                bookNames.add(bookName);
+                bookIndices.put(bookName, book);
+                chapterLengths.add(new ArrayList<>());
+            }
+            final List<Integer> lengths = chapterLengths.get(book);
+            // Only append to the last chapter of the last book; anything else has already been read.
+            if (book != bookNames.size() - 1) {
+                return;
+            }
+            if (chapter == lengths.size() + 1 && verse == 1) {
+                lengths.add(1);
+            } else if (chapter == lengths.size() && verse == lengths.get(chapter - 1) + 1) {
+                lengths.set(chapter - 1, verse);
+            } else if (chapter > lengths.size() || verse > lengths.get(chapter - 1)) {
+                throw new RuntimeException("Unexpected verse: `" + bookName + " " + chapter + ":" + verse + "`.");
+            }
+        }
+
+        private VerseTable build() {
+            final int[][] chapterStarts = new int[bookNames.size()][];
+            int id = 0;
+            for (int b = 0; b < bookNames.size(); b++) {
+                final List<Integer> lengths = chapterLengths.get(b);
+                chapterStarts[b] = new int[lengths.size() + 1];
+                for (int c = 0; c < lengths.size(); c++) {
+                    chapterStarts[b][c] = id;
+                    id += lengths.get(c);
+                }
+                chapterStarts[b][lengths.size()] = id;
+            }
+            // Cite each book by its own name and by any other name in its group.
+            final Map<String, Integer> bookAliases = new HashMap<>();
+            for (int b = 0; b < bookNames.size(); b++) {
+                final String normalizedName = normalizeBookName(bookNames.get(b));
+                bookAliases.put(normalizedName, b);
+                for (String[] group : BOOK_NAME_GROUPS) {
+                    boolean isInGroup = false;
+                    for (String name : group) {
+                        isInGroup |= normalizeBookName(name).equals(normalizedName);
+                    }
+                    if (isInGroup) {
+                        for (String name : group) {
+                            bookAliases.put(normalizeBookName(name), b);
+                        }
+                    }
+                }
+            }
+            return new VerseTable(bookNames.toArray(new String[0]), bookAliases, chapterStarts);
+        }
+    }
+}
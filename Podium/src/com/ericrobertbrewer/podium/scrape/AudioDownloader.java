@@ -0,0 +1,431 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the audio (MP3) of every speech whose row in a summary has an `audio_url`.
+ * This runs apart from the text crawl, so that large transfers never hold up the browsers.
+ *
+ * Each file is streamed to `<folder>/audio/<name>.part` and only renamed once its size matches the size reported by
+ * the server. A `.part` file left by an interrupted download is resumed with an HTTP `Range` request. The name which
+ * was given to each URL is kept in `<folder>/audio/files.tsv`, so that a file keeps its name in later runs.
+ *
+ * Requests are limited by a {@link HostScheduler}, and downloads are queued in turn from each host, so that a host
+ * which is being waited on doesn't hold up the others.
+ */
+public class AudioDownloader {
+
+    public static final String AUDIO_URL_COLUMN = "audio_url";
+    public static final String AUDIO_FOLDER_NAME = "audio";
+    /**
+     * Of the table of the name of the file of each URL, within the audio folder.
+     */
+    public static final String FILES_FILE_NAME = "files.tsv";
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; Podium)";
+    private static final int CONNECT_TIMEOUT_MILLIS = 30000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+    private static final int MAX_REDIRECTS = 5;
+    /**
+     * The most bytes to move from the connection to the file in one call.
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 1L << 20;
+
+    private final int connections;
+    private final HostScheduler scheduler;
+    private final AtomicInteger downloadedCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * @param connections The most files to download at once. Must be positive.
+     * @param scheduler Which limits the requests to each host.
+     */
+    public AudioDownloader(int connections, HostScheduler scheduler) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("Number of connections must be positive: `" + connections + "`.");
+        }
+        this.connections = connections;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Download the audio of every folder (year) of a scraped root folder.
+     * Files which have already been completely downloaded are skipped.
+     * @param rootFolder Which has already been scraped.
+     */
+    public void downloadAll(File rootFolder) {
+        final File[] folders = rootFolder.listFiles(File::isDirectory);
+        if (folders == null) {
+            throw new RuntimeException("Unable to list folders in: `" + rootFolder.getPath() + "`.");
+        }
+        Arrays.sort(folders);
+        // Files to download, by host.
+        final Map<String, Deque<Runnable>> hostDownloads = new LinkedHashMap<>();
+        for (File folder : folders) {
+            final Set<String> urls;
+            try {
+                urls = readAudioUrls(folder);
+            } catch (IOException e) {
+                e.printStackTrace();
+                continue;
+            }
+            if (urls.isEmpty()) {
+                continue;
+            }
+            System.out.println("Queueing " + urls.size() + " audio files in folder `" + folder.getName() + "`.");
+            final File audioFolder = new File(folder, AUDIO_FOLDER_NAME);
+            if (!audioFolder.exists() && !audioFolder.mkdirs()) {
+                throw new RuntimeException("Unable to create folder: `" + audioFolder.getPath() + "`.");
+            }
+            final Map<String, String> fileNames;
+            try {
+                fileNames = readFileNames(audioFolder);
+                addFileNames(urls, fileNames);
+                writeFileNames(audioFolder, fileNames);
+            } catch (IOException e) {
+                // Without the names of the previous runs, files could be downloaded again under other names.
+                e.printStackTrace();
+                continue;
+            }
+            for (String url : urls) {
+                final File file = new File(audioFolder, fileNames.get(url));
+                hostDownloads.computeIfAbsent(getHost(url), k -> new ArrayDeque<>())
+                        .add(() -> downloadOrSkip(url, file));
+            }
+        }
+        // Queue one download from each host in turn.
+        final ExecutorService executor = Executors.newFixedThreadPool(connections);
+        final List<Future<?>> downloads = new ArrayList<>();
+        while (!hostDownloads.isEmpty()) {
+            final Iterator<Deque<Runnable>> iterator = hostDownloads.values().iterator();
+            while (iterator.hasNext()) {
+                final Deque<Runnable> queue = iterator.next();
+                downloads.add(executor.submit(queue.removeFirst()));
+                if (queue.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        for (Future<?> download : downloads) {
+            try {
+                download.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        executor.shutdown();
+        System.out.println("Downloaded: " + downloadedCount.get() + ", skipped: " + skippedCount.get() +
+                ", failed: " + failedCount.get() + ".");
+    }
+
+    /**
+     * @return Every distinct audio URL in the tables (summaries) of the folder, in the order in which they appear.
+     */
+    private static Set<String> readAudioUrls(File folder) throws IOException {
+        final Set<String> urls = new LinkedHashSet<>();
+        final File[] tableFiles = folder.listFiles((dir, name) -> name.endsWith(".tsv"));
+        if (tableFiles == null) {
+            return urls;
+        }
+        Arrays.sort(tableFiles);
+        for (File tableFile : tableFiles) {
+            final List<String> lines = Files.readAllLines(tableFile.toPath());
+            if (lines.isEmpty()) {
+                continue;
+            }
+            final int column = Arrays.asList(Tsv.split(lines.get(0))).indexOf(AUDIO_URL_COLUMN);
+            if (column == -1) {
+                continue;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                final String[] values = Tsv.split(line);
+                if (column < values.length && !values[column].trim().isEmpty()) {
+                    urls.add(values[column].trim());
+                }
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * @return The host of the URL, or blank if it has none.
+     */
+    private static String getHost(String url) {
+        try {
+            final String host = new URL(url).getHost();
+            return host != null ? host : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * @return The decoded last component of the URL path, which is used as the name of the file.
+     */
+    static String getFileName(String url) {
+        String path = url;
+        final int queryIndex = path.indexOf('?');
+        if (queryIndex != -1) {
+            path = path.substring(0, queryIndex);
+        }
+        final String name = URLDecoder.decode(DriverUtils.getLastComponent(path), StandardCharsets.UTF_8);
+        // Never write outside of the audio folder.
+        return name.replaceAll("[\\\\/:*?\"<>|]", "_");
+    }
+
+    /**
+     * @param audioFolder Of a folder (year).
+     * @return The name of the file of each URL which was named by a previous run, by URL, in order.
+     * @throws IOException When the table exists but can't be read.
+     */
+    private static Map<String, String> readFileNames(File audioFolder) throws IOException {
+        final Map<String, String> fileNames = new LinkedHashMap<>();
+        final File filesFile = new File(audioFolder, FILES_FILE_NAME);
+        if (!filesFile.exists()) {
+            return fileNames;
+        }
+        final List<String> lines = Files.readAllLines(filesFile.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            final String[] values = Tsv.split(line);
+            if (values.length > 1 && !values[0].isEmpty() && !values[1].isEmpty()) {
+                fileNames.put(values[0], values[1]);
+            }
+        }
+        return fileNames;
+    }
+
+    private static void writeFileNames(File audioFolder, Map<String, String> fileNames) throws IOException {
+        try (OutputFile out = OutputFile.create(audioFolder, FILES_FILE_NAME)) {
+            out.printRow("url", "file");
+            for (Map.Entry<String, String> entry : fileNames.entrySet()) {
+                out.printRow(entry.getKey(), entry.getValue());
+            }
+            out.commit();
+        }
+    }
+
+    /**
+     * Name the file of each URL of a folder which hasn't been named yet. Different URLs which end in the same name (such
+     * as `audio.mp3` on two paths) would otherwise share one file, and all but the first would be skipped as already
+     * downloaded. Each such URL, or one whose name was already given to another URL, is instead named with a hash of
+     * the whole URL. Names which were given before are never changed, so a file is never downloaded again.
+     * @param urls Of the folder.
+     * @param fileNames The name of the file of each URL which was named before, by URL. New names are added.
+     */
+    static void addFileNames(Collection<String> urls, Map<String, String> fileNames) {
+        final Set<String> takenFileNames = new HashSet<>(fileNames.values());
+        final Map<String, Integer> counts = new HashMap<>();
+        for (String url : urls) {
+            if (!fileNames.containsKey(url)) {
+                counts.merge(getFileName(url), 1, Integer::sum);
+            }
+        }
+        for (String url : urls) {
+            if (fileNames.containsKey(url)) {
+                continue;
+            }
+            final String fileName = getFileName(url);
+            if (counts.get(fileName) > 1 || takenFileNames.contains(fileName)) {
+                final String uniqueFileName = getUniqueFileName(fileName, url);
+                System.out.println("Audio file name `" + fileName + "` is already taken or shared by more than one URL; naming `" + url +
+                        "` as `" + uniqueFileName + "`.");
+                fileNames.put(url, uniqueFileName);
+            } else {
+                fileNames.put(url, fileName);
+            }
+        }
+    }
+
+    /**
+     * @return The file name, with the first 8 hexadecimal digits of the SHA-256 hash of the URL before its extension.
+     */
+    private static String getUniqueFileName(String fileName, String url) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to hash URL.", e);
+        }
+        final StringBuilder suffix = new StringBuilder("-");
+        for (int i = 0; i < 4; i++) {
+            suffix.append(String.format("%02x", hash[i] & 0xff));
+        }
+        final int dotIndex = fileName.lastIndexOf('.');
+        if (dotIndex <= 0) {
+            return fileName + suffix;
+        }
+        return fileName.substring(0, dotIndex) + suffix + fileName.substring(dotIndex);
+    }
+
+    private void downloadOrSkip(String url, File file) {
+        if (file.exists()) {
+            skippedCount.incrementAndGet();
+            return;
+        }
+        try {
+            download(url, file, scheduler);
+            downloadedCount.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to download audio `" + url + "`: " + e.getMessage());
+            failedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Download a file, resuming a previous partial download if one exists.
+     * Redirects between HTTP and HTTPS are followed (which `HttpURLConnection` won't do on its own).
+     * Each request holds a permit of its host until its response is complete.
+     * @param url Of the file.
+     * @param file To which the complete file will be written.
+     * @param scheduler Which limits the requests to each host.
+     * @throws IOException When the download fails. Any partial file is kept, to be resumed later.
+     */
+    public static void download(String url, File file, HostScheduler scheduler) throws IOException {
+        final File partFile = new File(file.getPath() + PART_SUFFIX);
+        final long existingLength = partFile.exists() ? partFile.length() : 0L;
+        String location = url;
+        for (int i = 0; i <= MAX_REDIRECTS; i++) {
+            try (HostScheduler.Permit permit = scheduler.acquire(location)) {
+                final HttpURLConnection connection = open(location, existingLength);
+                try {
+                    final int status = connection.getResponseCode();
+                    permit.setStatus(status, connection.getHeaderField("Retry-After"));
+                    if (status < 300 || status >= 400 || status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                        receive(connection, status, file, partFile, existingLength);
+                        return;
+                    }
+                    final String next = connection.getHeaderField("Location");
+                    if (next == null) {
+                        throw new IOException("Redirect without a location from: `" + location + "`.");
+                    }
+                    location = new URL(new URL(location), next).toString();
+                } finally {
+                    connection.disconnect();
+                }
+            }
+        }
+        throw new IOException("Too many redirects from: `" + url + "`.");
+    }
+
+    /**
+     * Write the body of a response to the part file, then move it into place once it is complete.
+     */
+    private static void receive(HttpURLConnection connection, int status, File file, File partFile, long existingLength) throws IOException {
+        final long start;
+        final long totalLength;
+        if (status == HttpURLConnection.HTTP_PARTIAL) {
+            // The server is resuming where the partial file ends.
+            final long[] range = parseContentRange(connection.getHeaderField("Content-Range"));
+            if (range[0] != existingLength) {
+                throw new IOException("Server resumed at byte " + range[0] + " instead of " + existingLength + ".");
+            }
+            start = existingLength;
+            totalLength = range[1];
+        } else if (status == HttpURLConnection.HTTP_OK) {
+            // The server sent the whole file, either because nothing was requested or because it ignores ranges.
+            start = 0L;
+            totalLength = connection.getContentLengthLong();
+        } else if (status == 416 && existingLength > 0L) {
+            // Range Not Satisfiable: the partial file may already be complete.
+            final long[] range = parseContentRange(connection.getHeaderField("Content-Range"));
+            if (range[1] != existingLength) {
+                throw new IOException("Partial file is longer than the file on the server.");
+            }
+            start = existingLength;
+            totalLength = existingLength;
+        } else {
+            throw new IOException("Unexpected HTTP status " + status + ".");
+        }
+        writeBody(connection, partFile, start, status != 416);
+        // Verify the size before making the file visible.
+        final long length = partFile.length();
+        if (totalLength >= 0L && length != totalLength) {
+            throw new IOException("Downloaded " + length + " of " + totalLength + " bytes.");
+        }
+        Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Open a connection, which doesn't follow redirects itself.
+     */
+    private static HttpURLConnection open(String url, long rangeStart) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        connection.setInstanceFollowRedirects(false);
+        if (rangeStart > 0L) {
+            connection.setRequestProperty("Range", "bytes=" + rangeStart + "-");
+        }
+        return connection;
+    }
+
+    /**
+     * Stream the body of a response straight into the file, without copying it through the heap.
+     * @param start The position in the file at which the body begins.
+     * @param hasBody Whether the response has a body to read.
+     */
+    private static void writeBody(HttpURLConnection connection, File partFile, long start, boolean hasBody) throws IOException {
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop anything past the point at which this response begins.
+            channel.truncate(start);
+            if (!hasBody) {
+                return;
+            }
+            try (ReadableByteChannel source = Channels.newChannel(connection.getInputStream())) {
+                long position = start;
+                long transferred;
+                // A blocking stream only transfers nothing once it has ended.
+                while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0L) {
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param contentRange As `bytes <start>-<end>/<total>` or `bytes *&#47;<total>`.
+     * @return The start (or `-1`) and the total length (or `-1` if unknown).
+     */
+    private static long[] parseContentRange(String contentRange) throws IOException {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            throw new IOException("Missing or unrecognized Content-Range: `" + contentRange + "`.");
+        }
+        final String[] rangeAndTotal = contentRange.substring("bytes ".length()).trim().split("/");
+        if (rangeAndTotal.length != 2) {
+            throw new IOException("Unrecognized Content-Range: `" + contentRange + "`.");
+        }
+        try {
+            final long start;
+            if ("*".equals(rangeAndTotal[0])) {
+                start = -1L;
+            } else {
+                start = Long.parseLong(rangeAndTotal[0].substring(0, rangeAndTotal[0].indexOf('-')));
+            }
+            final long total = "*".equals(rangeAndTotal[1]) ? -1L : Long.parseLong(rangeAndTotal[1]);
+            return new long[] {start, total};
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IOException("Unrecognized Content-Range: `" + contentRange + "`.", e);
+        }
+    }
+}
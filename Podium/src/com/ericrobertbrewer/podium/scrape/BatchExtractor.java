@@ -0,0 +1,161 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.*;
+
+/**
+ * Reads the same fields from every item of a listing page (years, conferences) at once.
+ * In a browser, the whole listing is read by a single script, rather than with a round trip to the driver for every
+ * `findElement`, `getText`, and `getAttribute` of every item.
+ * Drivers which can't run scripts (such as {@link StaticDriver}) read the listing element by element, which is
+ * already cheap, since nothing leaves the process.
+ */
+public class BatchExtractor {
+
+    /**
+     * Reads each field of every item, returning rows of strings in the order of the fields.
+     * Arguments are the item selector followed by the selector and attribute of each field.
+     * Like `WebElement.getAttribute`, links are resolved relative to the page.
+     */
+    private static final String SCRIPT =
+            "var items = document.querySelectorAll(arguments[0]);\n" +
+            "var rows = [];\n" +
+            "for (var i = 0; i < items.length; i++) {\n" +
+            "  var row = [];\n" +
+            "  for (var f = 1; f + 1 < arguments.length; f += 2) {\n" +
+            "    var selector = arguments[f];\n" +
+            "    var attribute = arguments[f + 1];\n" +
+            "    var element = selector ? items[i].querySelector(selector) : items[i];\n" +
+            "    var value = null;\n" +
+            "    if (element) {\n" +
+            "      if (!attribute) {\n" +
+            "        value = element.innerText;\n" +
+            "      } else if (attribute === 'href' || attribute === 'src') {\n" +
+            "        value = element.getAttribute(attribute) === null ? null : element[attribute];\n" +
+            "      } else {\n" +
+            "        value = element.getAttribute(attribute);\n" +
+            "      }\n" +
+            "    }\n" +
+            "    row.push(value === null || value === undefined ? '' : String(value).trim());\n" +
+            "  }\n" +
+            "  rows.push(row);\n" +
+            "}\n" +
+            "return rows;";
+
+    /**
+     * A value to read from each item.
+     */
+    public static class Field {
+
+        private final String name;
+        private final String selector;
+        private final String attribute;
+
+        private Field(String name, String selector, String attribute) {
+            this.name = name;
+            this.selector = selector;
+            this.attribute = attribute;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param name Of the field in each row.
+         * @param selector CSS selector of the element within the item, or blank for the item itself.
+         * @return A field which reads the visible text of the element.
+         */
+        public static Field text(String name, String selector) {
+            return new Field(name, selector, "");
+        }
+
+        /**
+         * @param name Of the field in each row.
+         * @param selector CSS selector of the element within the item, or blank for the item itself.
+         * @param attribute To read. `href` and `src` are resolved relative to the page.
+         * @return A field which reads an attribute of the element.
+         */
+        public static Field attribute(String name, String selector, String attribute) {
+            return new Field(name, selector, attribute);
+        }
+    }
+
+    private final String itemSelector;
+    private final Field[] fields;
+
+    /**
+     * @param itemSelector CSS selector of every item in the listing.
+     * @param fields To read from each item.
+     */
+    public BatchExtractor(String itemSelector, Field... fields) {
+        this.itemSelector = itemSelector;
+        this.fields = fields.clone();
+    }
+
+    /**
+     * Read every item of the page which is loaded in the driver.
+     * Values are trimmed. A field whose element or attribute doesn't exist is blank.
+     * @param driver Which has loaded the listing page.
+     * @return One row per item, in the order of the page, of values by field name.
+     */
+    public List<Map<String, String>> extract(WebDriver driver) {
+        if (driver instanceof JavascriptExecutor) {
+            return extractWithScript((JavascriptExecutor) driver);
+        }
+        return extractWithElements(driver);
+    }
+
+    private List<Map<String, String>> extractWithScript(JavascriptExecutor executor) {
+        final Object[] args = new Object[1 + 2 * fields.length];
+        args[0] = itemSelector;
+        for (int i = 0; i < fields.length; i++) {
+            args[1 + 2 * i] = fields[i].selector;
+            args[2 + 2 * i] = fields[i].attribute;
+        }
+        final Object result = executor.executeScript(SCRIPT, args);
+        if (!(result instanceof List)) {
+            throw new RuntimeException("Unexpected result of listing script: `" + result + "`.");
+        }
+        final List<Map<String, String>> rows = new ArrayList<>();
+        for (Object item : (List<?>) result) {
+            final List<?> values = (List<?>) item;
+            final Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.length; i++) {
+                row.put(fields[i].name, String.valueOf(values.get(i)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<Map<String, String>> extractWithElements(WebDriver driver) {
+        final List<Map<String, String>> rows = new ArrayList<>();
+        for (WebElement item : driver.findElements(By.cssSelector(itemSelector))) {
+            final Map<String, String> row = new LinkedHashMap<>();
+            for (Field field : fields) {
+                final WebElement element;
+                if (field.selector.isEmpty()) {
+                    element = item;
+                } else {
+                    element = DriverUtils.findElementOrNull(item, By.cssSelector(field.selector));
+                }
+                String value = null;
+                if (element != null) {
+                    if (field.attribute.isEmpty()) {
+                        value = element.getText();
+                    } else {
+                        value = element.getAttribute(field.attribute);
+                    }
+                }
+                row.put(field.name, value == null ? "" : value.trim());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * An append-only record of the talks (speeches) which have been completely scraped, so that an interrupted crawl
+ * can continue where it stopped.
+ *
+ * Each line is one of:
+ * `talk  folder  name  files  row` - A talk was written. `name` is the base of its file names, which is unique within
+ * its folder. `files` lists each output file as `name:length`, separated by `/`. `row` is its row in the summary
+ * (program) and may itself contain tabs.
+ * `folder  folder  complete` - Every talk in the folder was written, as was its summary (program).
+ * `folder  folder  reset` - The folder was deleted to be scraped again. Previous lines about it no longer apply.
+ *
+ * Lines which were only partially written before a crash are ignored.
+ */
+public class CrawlJournal implements Closeable {
+
+    public static final String FILE_NAME = "journal.tsv";
+
+    private static final String TYPE_TALK = "talk";
+    private static final String TYPE_FOLDER = "folder";
+    private static final String STATUS_COMPLETE = "complete";
+    private static final String STATUS_RESET = "reset";
+    private static final String FILES_SEPARATOR = "/";
+    private static final String LENGTH_SEPARATOR = ":";
+
+    /**
+     * A talk which has been completely written.
+     */
+    public static class Entry {
+
+        private final Map<String, Long> fileLengths;
+        private final String row;
+
+        Entry(Map<String, Long> fileLengths, String row) {
+            this.fileLengths = fileLengths;
+            this.row = row;
+        }
+
+        public String getRow() {
+            return row;
+        }
+
+        /**
+         * @param folder Of the talk.
+         * @return Whether every output file still exists with the length that it had when it was written.
+         */
+        public boolean isIntact(File folder) {
+            for (Map.Entry<String, Long> fileLength : fileLengths.entrySet()) {
+                final File file = new File(folder, fileLength.getKey());
+                if (!file.exists() || file.length() != fileLength.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<String, Entry> talks = new HashMap<>();
+    private final Set<String> folders = new HashSet<>();
+    private final Set<String> completeFolders = new HashSet<>();
+    private final PrintStream out;
+
+    /**
+     * Read the journal of the given root folder, if it exists, and open it for appending.
+     * @param rootFolder Of the crawl.
+     * @throws IOException When I/O error occurs.
+     */
+    public CrawlJournal(File rootFolder) throws IOException {
+        final File file = new File(rootFolder, FILE_NAME);
+        if (file.exists()) {
+            final String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            final String[] lines = text.split("\n");
+            // The last line is incomplete if the previous crawl stopped while writing it.
+            final int completeLineCount = text.endsWith("\n") ? lines.length : lines.length - 1;
+            for (int i = 0; i < completeLineCount; i++) {
+                read(lines[i].replace("\r", ""));
+            }
+        }
+        out = new PrintStream(new FileOutputStream(file, true), true, StandardCharsets.UTF_8);
+    }
+
+    private void read(String line) {
+        final String[] parts = line.split("\t", 5);
+        if (TYPE_TALK.equals(parts[0]) && parts.length == 5) {
+            final Map<String, Long> fileLengths = new HashMap<>();
+            if (!parts[3].isEmpty()) {
+                for (String file : parts[3].split(FILES_SEPARATOR)) {
+                    final int separatorIndex = file.lastIndexOf(LENGTH_SEPARATOR);
+                    if (separatorIndex == -1) {
+                        return;
+                    }
+                    try {
+                        fileLengths.put(file.substring(0, separatorIndex), Long.parseLong(file.substring(separatorIndex + 1)));
+                    } catch (NumberFormatException e) {
+                        // Partially written line.
+                        return;
+                    }
+                }
+            }
+            folders.add(parts[1]);
+            talks.put(getKey(parts[1], parts[2]), new Entry(fileLengths, parts[4]));
+        } else if (TYPE_FOLDER.equals(parts[0]) && parts.length == 3) {
+            if (STATUS_COMPLETE.equals(parts[2])) {
+                folders.add(parts[1]);
+                completeFolders.add(parts[1]);
+            } else if (STATUS_RESET.equals(parts[2])) {
+                forget(parts[1]);
+            }
+        }
+    }
+
+    private void forget(String folder) {
+        folders.remove(folder);
+        completeFolders.remove(folder);
+        talks.keySet().removeIf(key -> key.startsWith(folder + "\t"));
+    }
+
+    private static String getKey(String folder, String name) {
+        return folder + "\t" + name;
+    }
+
+    /**
+     * @return Whether anything has been recorded about this folder.
+     */
+    public synchronized boolean hasFolder(String folder) {
+        return folders.contains(folder);
+    }
+
+    public synchronized boolean isFolderComplete(String folder) {
+        return completeFolders.contains(folder);
+    }
+
+    /**
+     * @return The talk, or `null` if it has not been completely written.
+     */
+    public synchronized Entry getTalk(String folder, String name) {
+        return talks.get(getKey(folder, name));
+    }
+
+    /**
+     * Record that a talk has been completely written.
+     * @param folder Of the talk.
+     * @param name The base of the file names of the talk.
+     * @param files The output files of the talk, which must already exist.
+     * @param row Of the talk in the summary (program).
+     */
+    public synchronized void recordTalk(String folder, String name, List<File> files, String row) {
+        final Map<String, Long> fileLengths = new LinkedHashMap<>();
+        final StringBuilder filesText = new StringBuilder();
+        for (File file : files) {
+            fileLengths.put(file.getName(), file.length());
+            if (filesText.length() > 0) {
+                filesText.append(FILES_SEPARATOR);
+            }
+            filesText.append(file.getName()).append(LENGTH_SEPARATOR).append(file.length());
+        }
+        folders.add(folder);
+        talks.put(getKey(folder, name), new Entry(fileLengths, row));
+        out.println(TYPE_TALK + "\t" + folder + "\t" + name + "\t" + filesText + "\t" + row);
+    }
+
+    public synchronized void completeFolder(String folder) {
+        folders.add(folder);
+        completeFolders.add(folder);
+        out.println(TYPE_FOLDER + "\t" + folder + "\t" + STATUS_COMPLETE);
+    }
+
+    public synchronized void resetFolder(String folder) {
+        forget(folder);
+        out.println(TYPE_FOLDER + "\t" + folder + "\t" + STATUS_RESET);
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+}
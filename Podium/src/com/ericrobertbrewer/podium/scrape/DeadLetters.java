@@ -0,0 +1,107 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The talks (and folders) which could not be scraped even after every retry, so that they can be looked into, or
+ * simply scraped again, without searching the log of a long crawl.
+ *
+ * The list is kept in `failed.tsv` in the root folder, with the columns `folder`, `name`, `url`, `attempts`, `time`,
+ * and `error`. `name` is blank for a folder whose listing failed. Failures from previous crawls are kept until the
+ * talk or folder is scraped successfully. The file is replaced as a whole whenever the list changes, which is rare.
+ */
+public class DeadLetters {
+
+    public static final String FILE_NAME = "failed.tsv";
+
+    private static final String[] COLUMNS = {"folder", "name", "url", "attempts", "time", "error"};
+
+    private final File file;
+    /**
+     * Rows by folder and name, so that the file stays in order.
+     */
+    private final Map<String, String[]> rows = new TreeMap<>();
+
+    /**
+     * Read the list of the given root folder, if it exists.
+     * @param rootFolder Of the crawl.
+     * @throws IOException When the list can't be read.
+     */
+    public DeadLetters(File rootFolder) throws IOException {
+        this.file = new File(rootFolder, FILE_NAME);
+        if (file.exists()) {
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                final String[] row = Tsv.split(line);
+                if (row.length == COLUMNS.length) {
+                    rows.put(getKey(row[0], row[1]), row);
+                }
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    /**
+     * Record a talk or folder which has failed for good.
+     * @param folder Such as `2018`.
+     * @param name The base of the file names of the talk, or blank for the folder itself.
+     * @param url Of the page which failed, or `null` if it isn't known.
+     * @param attempts Which were made.
+     * @param e The last failure.
+     */
+    public synchronized void add(String folder, String name, String url, int attempts, Throwable e) {
+        final String error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        rows.put(getKey(folder, name), new String[]{folder, name, url != null ? url : "", String.valueOf(attempts),
+                Instant.now().toString(), getFirstLine(error)});
+        write();
+    }
+
+    /**
+     * Forget a previous failure of a talk or folder which has since been scraped.
+     * @param folder Such as `2018`.
+     * @param name The base of the file names of the talk, or blank for the folder itself.
+     */
+    public synchronized void remove(String folder, String name) {
+        if (rows.remove(getKey(folder, name)) != null) {
+            write();
+        }
+    }
+
+    private void write() {
+        try (OutputFile out = OutputFile.create(file.getParentFile(), file.getName())) {
+            out.printRow(COLUMNS);
+            for (String[] row : rows.values()) {
+                out.printRow(row);
+            }
+            out.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String getKey(String folder, String name) {
+        return folder + "\t" + name;
+    }
+
+    /**
+     * WebDriver messages go on to list the capabilities and build of the driver, which aren't worth keeping.
+     */
+    private static String getFirstLine(String text) {
+        final int newlineIndex = text.indexOf('\n');
+        return (newlineIndex == -1 ? text : text.substring(0, newlineIndex)).trim();
+    }
+}
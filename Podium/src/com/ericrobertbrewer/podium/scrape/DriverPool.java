@@ -0,0 +1,157 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded collection of web drivers which may be shared between threads.
+ * Drivers are only launched when they are first needed, so a small crawl will never start every browser.
+ * Every driver which is still running when the JVM exits (such as when a crawl is interrupted) is quit, so that no
+ * browser is left behind.
+ */
+public class DriverPool {
+
+    /**
+     * The longest to wait for a driver to quit. A browser which has hung may never respond.
+     */
+    private static final long QUIT_TIMEOUT_MILLIS = 30000L;
+
+    private final int size;
+    private final Supplier<WebDriver> factory;
+    private final Consumer<WebDriver> onQuit;
+    private final BlockingQueue<WebDriver> idleDrivers = new LinkedBlockingQueue<>();
+    private final List<WebDriver> allDrivers = new ArrayList<>();
+    private boolean isHooked = false;
+
+    /**
+     * @param size The maximum number of drivers to launch. Must be positive.
+     * @param factory Launches a new driver.
+     */
+    public DriverPool(int size, Supplier<WebDriver> factory) {
+        this(size, factory, driver -> {
+        });
+    }
+
+    /**
+     * @param size The maximum number of drivers to launch. Must be positive.
+     * @param factory Launches a new driver.
+     * @param onQuit Is given each driver once it has quit, such as to free its profile folder.
+     */
+    public DriverPool(int size, Supplier<WebDriver> factory, Consumer<WebDriver> onQuit) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Driver pool size must be positive: `" + size + "`.");
+        }
+        this.size = size;
+        this.factory = factory;
+        this.onQuit = onQuit;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Take an idle driver, launching a new one if the pool has not yet reached its size.
+     * Otherwise, block until another thread releases one.
+     * @return A driver which must eventually be given back with {@link #release(WebDriver)}.
+     */
+    public WebDriver acquire() {
+        final WebDriver idleDriver = idleDrivers.poll();
+        if (idleDriver != null) {
+            return idleDriver;
+        }
+        synchronized (allDrivers) {
+            if (allDrivers.size() < size) {
+                return launch();
+            }
+        }
+        try {
+            return idleDrivers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a driver.", e);
+        }
+    }
+
+    public void release(WebDriver driver) {
+        idleDrivers.offer(driver);
+    }
+
+    /**
+     * Quit a driver which is dead, leaking, or worn out, and launch another in its place.
+     * @param driver Which was acquired from this pool.
+     * @return The new driver, which takes the place of the old one.
+     */
+    public WebDriver replace(WebDriver driver) {
+        synchronized (allDrivers) {
+            allDrivers.remove(driver);
+        }
+        if (quitQuietly(driver)) {
+            onQuit.accept(driver);
+        }
+        synchronized (allDrivers) {
+            return launch();
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of {@link #allDrivers}.
+     */
+    private WebDriver launch() {
+        if (!isHooked) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::quitAll, "quit-drivers"));
+            isHooked = true;
+        }
+        final WebDriver driver = factory.get();
+        allDrivers.add(driver);
+        return driver;
+    }
+
+    /**
+     * Quit a driver, giving up on it if it doesn't respond in time.
+     * @param driver To quit.
+     * @return Whether the driver quit (or was already gone) in time.
+     */
+    public static boolean quitQuietly(WebDriver driver) {
+        final Thread quitter = new Thread(() -> {
+            try {
+                driver.quit();
+            } catch (RuntimeException e) {
+                // The driver is already gone.
+            }
+        }, "quit-driver");
+        quitter.setDaemon(true);
+        quitter.start();
+        try {
+            quitter.join(QUIT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (quitter.isAlive()) {
+            System.err.println("Driver did not quit within " + QUIT_TIMEOUT_MILLIS + "ms; abandoning it.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Quit every driver that has been launched by this pool.
+     */
+    public void quitAll() {
+        synchronized (allDrivers) {
+            for (WebDriver driver : allDrivers) {
+                if (quitQuietly(driver)) {
+                    onQuit.accept(driver);
+                }
+            }
+            allDrivers.clear();
+        }
+        idleDrivers.clear();
+    }
+}
@@ -0,0 +1,309 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * How a browser is set up for scraping: whether it shows a window, what it loads besides the page itself, how long a
+ * navigation waits, and whether it keeps its profile (cache, cookies) between launches.
+ *
+ * A browser which only has to produce the text of a page needn't draw it, fetch its images, fonts, or videos, or report
+ * to analytics, so a lean browser loads each page in a fraction of the time and memory, and more of them fit on one
+ * machine. Pages which are rendered by scripts still need the scripts and styles of their own site, which are kept.
+ *
+ * Options are given to the drivers as capabilities, so that they apply to any version of the driver which reads them.
+ */
+public class DriverProfile {
+
+    /**
+     * A visible browser which loads everything, as a person would see it. Best for watching or debugging a scraper.
+     */
+    public static final DriverProfile VISIBLE = new DriverProfile("visible",
+            "A visible browser which loads everything", false, false, false, false, false);
+    /**
+     * A browser without a window, which loads everything but trackers, and waits for each page to finish loading.
+     */
+    public static final DriverProfile HEADLESS = new DriverProfile("headless",
+            "A headless browser which blocks trackers", true, false, true, false, true);
+    /**
+     * A browser without a window, which loads only what the page needs to render its text, and returns from each
+     * navigation once the document has been parsed (scrapers wait for the elements which they read).
+     */
+    public static final DriverProfile LEAN = new DriverProfile("lean",
+            "A headless browser which blocks images, media, fonts, and trackers, and doesn't wait for them", true, true,
+            true, true, true);
+
+    public static final DriverProfile[] PROFILES = {VISIBLE, HEADLESS, LEAN};
+
+    /**
+     * Hosts of analytics, advertising, fonts, and embedded video players, none of which affect the text of a talk.
+     * A leading `*.` also matches every subdomain.
+     */
+    private static final String[] TRACKER_HOSTS = {
+            "*.google-analytics.com", "*.googletagmanager.com", "*.doubleclick.net", "*.googlesyndication.com",
+            "*.adobedtm.com", "*.omtrdc.net", "*.demdex.net", "*.everesttech.net", "*.hotjar.com",
+            "connect.facebook.net", "*.facebook.com", "platform.twitter.com", "*.newrelic.com", "*.nr-data.net",
+            "*.optimizely.com", "*.qualtrics.com"
+    };
+    private static final String[] MEDIA_HOSTS = {
+            "fonts.googleapis.com", "fonts.gstatic.com", "use.typekit.net", "*.youtube.com", "*.ytimg.com",
+            "*.vimeo.com", "*.vimeocdn.com", "*.brightcove.net", "*.brightcove.com", "*.brightcovecdn.com"
+    };
+    private static final String WINDOW_SIZE = "1920,1080";
+
+    private final String name;
+    private final String description;
+    private final boolean isHeadless;
+    private final boolean isMediaBlocked;
+    private final boolean isTrackingBlocked;
+    private final boolean isEager;
+    private final boolean isReused;
+
+    /**
+     * @param isHeadless Whether the browser has no window.
+     * @param isMediaBlocked Whether images, audio, video, and web fonts are blocked.
+     * @param isTrackingBlocked Whether analytics and advertising are blocked.
+     * @param isEager Whether a navigation returns once the document is parsed, before its resources have loaded.
+     * @param isReused Whether each browser keeps its profile in a folder, to be used again by the next launch.
+     */
+    private DriverProfile(String name, String description, boolean isHeadless, boolean isMediaBlocked,
+                          boolean isTrackingBlocked, boolean isEager, boolean isReused) {
+        this.name = name;
+        this.description = description;
+        this.isHeadless = isHeadless;
+        this.isMediaBlocked = isMediaBlocked;
+        this.isTrackingBlocked = isTrackingBlocked;
+        this.isEager = isEager;
+        this.isReused = isReused;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isReused() {
+        return isReused;
+    }
+
+    /**
+     * @param name Such as `lean`.
+     * @return The profile, or `null` if there is none by that name.
+     */
+    public static DriverProfile get(String name) {
+        for (DriverProfile profile : PROFILES) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param profileFolder In which Chrome keeps its profile, or `null` for a new, temporary profile.
+     * @return The capabilities of a ChromeDriver.
+     */
+    public Capabilities toChromeCapabilities(File profileFolder) {
+        final DesiredCapabilities capabilities = DesiredCapabilities.chrome();
+        final List<String> args = new ArrayList<>();
+        final Map<String, Object> prefs = new HashMap<>();
+        if (isHeadless) {
+            args.add("--headless");
+            args.add("--disable-gpu");
+            args.add("--window-size=" + WINDOW_SIZE);
+            args.add("--mute-audio");
+            // Containers often have a tiny `/dev/shm`, which crashes tabs of large pages.
+            args.add("--disable-dev-shm-usage");
+            args.add("--disable-extensions");
+            args.add("--disable-background-networking");
+            args.add("--disable-default-apps");
+            args.add("--disable-sync");
+            args.add("--no-first-run");
+        }
+        if (isMediaBlocked) {
+            args.add("--blink-settings=imagesEnabled=false");
+            args.add("--autoplay-policy=user-gesture-required");
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            prefs.put("profile.managed_default_content_settings.media_stream", 2);
+            prefs.put("profile.managed_default_content_settings.plugins", 2);
+        }
+        final List<String> blockedHosts = getBlockedHosts();
+        if (!blockedHosts.isEmpty()) {
+            // Resolving a host to nothing fails its requests at once, without touching the network.
+            final StringBuilder rules = new StringBuilder();
+            for (String host : blockedHosts) {
+                if (rules.length() > 0) {
+                    rules.append(", ");
+                }
+                rules.append("MAP ").append(host).append(" ~NOTFOUND");
+                if (host.startsWith("*.")) {
+                    rules.append(", MAP ").append(host.substring(2)).append(" ~NOTFOUND");
+                }
+            }
+            args.add("--host-resolver-rules=" + rules);
+        }
+        if (profileFolder != null) {
+            args.add("--user-data-dir=" + profileFolder.getAbsolutePath());
+        }
+        final Map<String, Object> chromeOptions = new HashMap<>();
+        chromeOptions.put("args", args);
+        if (!prefs.isEmpty()) {
+            chromeOptions.put("prefs", prefs);
+        }
+        capabilities.setCapability("chromeOptions", chromeOptions);
+        // Older drivers read switches from here instead.
+        capabilities.setCapability("chrome.switches", args);
+        if (isEager) {
+            capabilities.setCapability("pageLoadStrategy", "eager");
+        }
+        return capabilities;
+    }
+
+    /**
+     * @param profileFolder In which Firefox keeps its profile, or `null` for a new, temporary profile.
+     * @return The capabilities of a FirefoxDriver (GeckoDriver).
+     */
+    public Capabilities toFirefoxCapabilities(File profileFolder) {
+        final DesiredCapabilities capabilities = DesiredCapabilities.firefox();
+        final List<String> args = new ArrayList<>();
+        final Map<String, Object> prefs = new HashMap<>();
+        if (isHeadless) {
+            args.add("-headless");
+        }
+        if (isMediaBlocked) {
+            prefs.put("permissions.default.image", 2);
+            prefs.put("media.autoplay.default", 5);
+            prefs.put("media.autoplay.enabled", false);
+            prefs.put("gfx.downloadable_fonts.enabled", false);
+        }
+        if (isTrackingBlocked) {
+            prefs.put("privacy.trackingprotection.enabled", true);
+        }
+        final List<String> blockedHosts = getBlockedHosts();
+        if (!blockedHosts.isEmpty()) {
+            // Firefox can't map hosts, so blocked hosts are sent to a proxy which doesn't exist.
+            prefs.put("network.proxy.type", 2);
+            prefs.put("network.proxy.autoconfig_url", toProxyAutoConfigUrl(blockedHosts));
+        }
+        if (profileFolder != null) {
+            args.add("-profile");
+            args.add(profileFolder.getAbsolutePath());
+        }
+        final Map<String, Object> firefoxOptions = new HashMap<>();
+        firefoxOptions.put("args", args);
+        firefoxOptions.put("prefs", prefs);
+        capabilities.setCapability("moz:firefoxOptions", firefoxOptions);
+        if (isEager) {
+            capabilities.setCapability("pageLoadStrategy", "eager");
+        }
+        return capabilities;
+    }
+
+    private List<String> getBlockedHosts() {
+        final List<String> hosts = new ArrayList<>();
+        if (isTrackingBlocked) {
+            hosts.addAll(Arrays.asList(TRACKER_HOSTS));
+        }
+        if (isMediaBlocked) {
+            hosts.addAll(Arrays.asList(MEDIA_HOSTS));
+        }
+        return hosts;
+    }
+
+    /**
+     * @param hosts To block.
+     * @return A `data:` URL of a proxy auto-config script which sends requests to the hosts nowhere.
+     */
+    private static String toProxyAutoConfigUrl(List<String> hosts) {
+        final StringBuilder script = new StringBuilder("function FindProxyForURL(url, host) {");
+        for (String host : hosts) {
+            script.append(" if (shExpMatch(host, '").append(host).append("')");
+            if (host.startsWith("*.")) {
+                script.append(" || host == '").append(host.substring(2)).append("'");
+            }
+            script.append(") return 'PROXY 127.0.0.1:9';");
+        }
+        script.append(" return 'DIRECT'; }");
+        return "data:text/javascript," + script.toString().replace(" ", "%20");
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Gives each browser which is running its own profile folder, so that no two share one, and reuses the folders
+     * of browsers which have quit, so that each launch starts with a warm cache.
+     */
+    public static class Slots {
+
+        private final File root;
+        private final String prefix;
+        private final BitSet usedSlots = new BitSet();
+        private final Map<WebDriver, Integer> slots = new IdentityHashMap<>();
+
+        /**
+         * @param root In which to keep the profile folders, or `null` to give every browser a temporary profile.
+         * @param prefix Of the name of each folder, such as `chrome`.
+         */
+        public Slots(File root, String prefix) {
+            this.root = root;
+            this.prefix = prefix;
+        }
+
+        /**
+         * @param launcher Which launches a browser in the given profile folder (or a temporary profile, if `null`).
+         * @return The browser.
+         */
+        public WebDriver launch(Function<File, WebDriver> launcher) {
+            if (root == null) {
+                return launcher.apply(null);
+            }
+            final int slot;
+            synchronized (this) {
+                slot = usedSlots.nextClearBit(0);
+                usedSlots.set(slot);
+            }
+            final File folder = new File(root, prefix + "-" + slot);
+            if (!folder.exists() && !folder.mkdirs()) {
+                release(slot);
+                throw new RuntimeException("Unable to create profile folder: `" + folder.getPath() + "`.");
+            }
+            final WebDriver driver;
+            try {
+                driver = launcher.apply(folder);
+            } catch (RuntimeException e) {
+                release(slot);
+                throw e;
+            }
+            synchronized (this) {
+                slots.put(driver, slot);
+            }
+            return driver;
+        }
+
+        /**
+         * Free the profile folder of a browser which has quit.
+         * @param driver Which was launched by {@link #launch(Function)}.
+         */
+        public synchronized void release(WebDriver driver) {
+            final Integer slot = slots.remove(driver);
+            if (slot != null) {
+                usedSlots.clear(slot);
+            }
+        }
+
+        private synchronized void release(int slot) {
+            usedSlots.clear(slot);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a long crawl going when pages hang or browsers crash: it decides how long a page load or script may take,
+ * how often a failed talk is tried again and how long to wait in between, and when a browser should be replaced.
+ *
+ * A browser is replaced when it no longer responds (it crashed, or it was quit because a page load hung), when it has
+ * opened windows which it never closed, and after it has loaded a number of pages, since browsers grow in memory
+ * over a long session.
+ *
+ * Page loads are timed here rather than by the driver, so that even a driver which ignores its own timeouts is stopped:
+ * a load which takes too long quits the browser, which ends the load with an exception.
+ */
+public class DriverSupervisor {
+
+    /**
+     * No timeouts, retries, or recycling.
+     */
+    public static final DriverSupervisor NONE = new DriverSupervisor(0L, 0L, 1, 0L, 0);
+
+    /**
+     * The longest wait between attempts, however many there have been.
+     */
+    private static final long MAX_RETRY_DELAY_MILLIS = 5L * 60L * 1000L;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "page-load-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long pageLoadTimeoutMillis;
+    private final long scriptTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final int pagesPerDriver;
+
+    /**
+     * @param pageLoadTimeoutMillis The longest that a page may take to load in a browser, or `0` for no limit.
+     * @param scriptTimeoutMillis The longest that an asynchronous script may run, or `0` for the driver's default.
+     * @param maxAttempts The number of times to try a talk before it is given up. Must be positive.
+     * @param retryDelayMillis The wait before the second attempt, which doubles for each following attempt.
+     * @param pagesPerDriver The number of pages after which a browser is replaced, or `0` to keep it.
+     */
+    public DriverSupervisor(long pageLoadTimeoutMillis, long scriptTimeoutMillis, int maxAttempts,
+                            long retryDelayMillis, int pagesPerDriver) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Attempts must be positive: `" + maxAttempts + "`.");
+        }
+        this.pageLoadTimeoutMillis = pageLoadTimeoutMillis;
+        this.scriptTimeoutMillis = scriptTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.pagesPerDriver = pagesPerDriver;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Apply the timeouts to a browser which was just launched.
+     * @param driver To configure.
+     */
+    public void configure(WebDriver driver) {
+        if (scriptTimeoutMillis <= 0L) {
+            return;
+        }
+        try {
+            driver.manage().timeouts().setScriptTimeout(scriptTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (UnsupportedOperationException | WebDriverException e) {
+            // Not every driver has timeouts.
+        }
+    }
+
+    /**
+     * A page load which is being timed. Use with `try`-with-resources around the navigation.
+     */
+    public static class Watch implements AutoCloseable {
+
+        private static final int RUNNING = 0;
+        private static final int CLOSED = 1;
+        private static final int EXPIRED = 2;
+
+        /**
+         * Either the watch is closed or it expires, whichever happens first, and then never changes.
+         */
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private ScheduledFuture<?> future;
+
+        private Watch() {
+        }
+
+        /**
+         * @return Whether the page took too long, and so its browser was quit. Once the watch is closed, this no longer
+         * changes.
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * @return Whether the watch expired before it was closed, in which case the browser is to be quit.
+         */
+        private boolean expire() {
+            return state.compareAndSet(RUNNING, EXPIRED);
+        }
+
+        @Override
+        public void close() {
+            if (state.compareAndSet(RUNNING, CLOSED) && future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Start timing a page load, after which the browser is quit if the load hasn't finished.
+     * @param driver Which is loading the page.
+     * @param url Of the page.
+     * @return The watch, which must be closed once the load has finished.
+     */
+    public Watch watch(WebDriver driver, String url) {
+        final Watch watch = new Watch();
+        if (pageLoadTimeoutMillis <= 0L) {
+            return watch;
+        }
+        watch.future = WATCHDOG.schedule(() -> {
+            if (!watch.expire()) {
+                // The load has already finished.
+                return;
+            }
+            System.err.println("Page load timed out after " + pageLoadTimeoutMillis + "ms; quitting browser: `" + url + "`.");
+            DriverPool.quitQuietly(driver);
+        }, pageLoadTimeoutMillis, TimeUnit.MILLISECONDS);
+        return watch;
+    }
+
+    /**
+     * @param pages Loaded by a browser since it was launched.
+     * @return Whether the browser should be replaced before it loads another.
+     */
+    public boolean isWorn(int pages) {
+        return pagesPerDriver > 0 && pages >= pagesPerDriver;
+    }
+
+    /**
+     * @param driver A browser.
+     * @return The number of windows (including tabs and pop-ups) which the browser has open, or `-1` if it no longer
+     * responds. A browser which is working normally has exactly one.
+     */
+    public static int countWindows(WebDriver driver) {
+        try {
+            return driver.getWindowHandles().size();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Wait before the next attempt at a talk. Each wait is twice the last, with some jitter so that threads which
+     * failed together don't all try again at once.
+     * @param attempt The number of the attempt which just failed, starting at `1`.
+     */
+    public void awaitRetry(int attempt) {
+        if (retryDelayMillis <= 0L) {
+            return;
+        }
+        final long delay = Math.min(MAX_RETRY_DELAY_MILLIS, retryDelayMillis << Math.min(attempt - 1, 20));
+        final long jitter = ThreadLocalRandom.current().nextLong(delay / 4L + 1L);
+        try {
+            Thread.sleep(delay + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d attempts, page loads %ds, browsers replaced every %d pages", maxAttempts,
+                pageLoadTimeoutMillis / 1000L, pagesPerDriver);
+    }
+}
@@ -2,62 +2,68 @@ package com.ericrobertbrewer.podium.scrape;
 
 import org.openqa.selenium.*;
 
+import java.io.PrintStream;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class DriverUtils {
 
     public static String getTextOrEmpty(WebDriver driver, By by) {
-        try {
-            final WebElement inner = driver.findElement(by);
-            return inner.getText();
-        } catch (NoSuchElementException e) {
-            return "";
-        }
+        final WebElement inner = findElementOrNull(driver, by);
+        return inner != null ? inner.getText() : "";
     }
 
     public static String getTextOrEmpty(WebElement element, By by) {
-        try {
-            final WebElement inner = element.findElement(by);
-            return inner.getText();
-        } catch (NoSuchElementException e) {
-            return "";
-        }
+        final WebElement inner = findElementOrNull(element, by);
+        return inner != null ? inner.getText() : "";
     }
 
+    /**
+     * The time of the lookup is recorded in {@link Metrics}, and counted if the element is missing.
+     */
     public static WebElement findElementOrNull(WebDriver driver, By by) {
-        try {
-            return driver.findElement(by);
-        } catch (NoSuchElementException e) {
-            return null;
-        }
+        return findElementOrNull((SearchContext) driver, by);
     }
 
     public static WebElement findElementOrNull(WebElement element, By by) {
+        return findElementOrNull((SearchContext) element, by);
+    }
+
+    private static WebElement findElementOrNull(SearchContext context, By by) {
+        final long start = System.nanoTime();
         try {
-            return element.findElement(by);
+            return context.findElement(by);
         } catch (NoSuchElementException e) {
+            Metrics.count(Metrics.MISSING_ELEMENT);
             return null;
+        } finally {
+            Metrics.recordSince(Metrics.FIND, start);
         }
     }
 
     public static WebElement findElementWithAttributeOrNull(WebDriver driver, By by, String name, String value) {
-        final List<WebElement> elements = driver.findElements(by);
-        for (WebElement element : elements) {
-            if (value.equals(element.getAttribute(name))) {
-                return element;
-            }
-        }
-        return null;
+        return findElementWithAttributeOrNull((SearchContext) driver, by, name, value);
     }
 
     public static WebElement findElementWithAttributeOrNull(WebElement element, By by, String name, String value) {
-        final List<WebElement> children = element.findElements(by);
-        for (WebElement child : children) {
-            if (value.equals(child.getAttribute(name))) {
-                return child;
+        return findElementWithAttributeOrNull((SearchContext) element, by, name, value);
+    }
+
+    private static WebElement findElementWithAttributeOrNull(SearchContext context, By by, String name, String value) {
+        final long start = System.nanoTime();
+        try {
+            final List<WebElement> children = context.findElements(by);
+            for (WebElement child : children) {
+                if (value.equals(child.getAttribute(name))) {
+                    return child;
+                }
             }
+            Metrics.count(Metrics.MISSING_ELEMENT);
+            return null;
+        } finally {
+            Metrics.recordSince(Metrics.FIND, start);
         }
-        return null;
     }
 
     /**
@@ -69,11 +75,13 @@ public class DriverUtils {
     public static void scrollDown(WebDriver driver, int times, long delayMillis) {
         for (int i = 0; i < times; i++) {
             ((JavascriptExecutor) driver).executeScript("window.scrollBy(0, 250);");
+            final long start = System.nanoTime();
             try {
                 Thread.sleep(delayMillis);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
+            Metrics.recordSince(Metrics.SLEEP, start);
         }
     }
 
@@ -81,6 +89,177 @@ public class DriverUtils {
         ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, document.body.scrollHeight);");
     }
 
+    /**
+     * Something on a page for which to wait, such as an element appearing or a list finishing loading.
+     */
+    public interface Condition {
+        /**
+         * @param driver The driver.
+         * @return Whether the page is ready.
+         */
+        boolean isMet(WebDriver driver);
+    }
+
+    private static final long POLL_MILLIS = 100L;
+
+    /**
+     * Poll the page until the condition is met, instead of sleeping for a fixed amount of time.
+     * Exceptions thrown while the page is changing (such as stale elements) count as the condition not being met.
+     * The time actually spent waiting is recorded under the given name. See {@link #printWaitTimes(PrintStream)}.
+     * It is also recorded in {@link Metrics}, by site and page type.
+     * @param driver The driver.
+     * @param name Of the wait, used to record its duration.
+     * @param timeoutMillis The longest time to wait.
+     * @param condition For which to wait.
+     * @return Whether the condition was met before the timeout.
+     */
+    public static boolean waitUntil(WebDriver driver, String name, long timeoutMillis, Condition condition) {
+        final long start = System.currentTimeMillis();
+        final long deadline = start + timeoutMillis;
+        boolean isMet = false;
+        while (true) {
+            try {
+                isMet = condition.isMet(driver);
+            } catch (WebDriverException e) {
+                // The page is probably still changing.
+            }
+            if (isMet || System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        final long elapsed = System.currentTimeMillis() - start;
+        recordWait(name, elapsed, isMet);
+        Metrics.record(Metrics.WAIT, elapsed * 1000000L);
+        if (!isMet) {
+            Metrics.count(Metrics.TIMEOUT);
+            System.err.println("Timed out after " + elapsed + " ms waiting for " + name + ".");
+        }
+        return isMet;
+    }
+
+    /**
+     * Wait until at least the given number of elements are on the page, such as the `option`s of a `select`.
+     */
+    public static boolean waitForCount(WebDriver driver, String name, long timeoutMillis, By by, int minimum) {
+        return waitUntil(driver, name, timeoutMillis, d -> d.findElements(by).size() >= minimum);
+    }
+
+    /**
+     * Look up an element while polling, without recording the lookup in {@link Metrics}, since an element which a wait
+     * expects to be missing (for now) isn't a missing field.
+     */
+    private static WebElement findFirstOrNull(WebDriver driver, By by) {
+        final List<WebElement> elements = driver.findElements(by);
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+
+    /**
+     * Wait until the element exists and is displayed, such as a panel which is opening.
+     */
+    public static boolean waitForDisplayed(WebDriver driver, String name, long timeoutMillis, By by) {
+        return waitUntil(driver, name, timeoutMillis, d -> {
+            final WebElement element = findFirstOrNull(d, by);
+            return element != null && element.isDisplayed();
+        });
+    }
+
+    /**
+     * Wait until the element is gone or hidden, such as a panel which is closing.
+     */
+    public static boolean waitForHidden(WebDriver driver, String name, long timeoutMillis, By by) {
+        return waitUntil(driver, name, timeoutMillis, d -> {
+            final WebElement element = findFirstOrNull(d, by);
+            return element == null || !element.isDisplayed();
+        });
+    }
+
+    /**
+     * Wait until a non-empty list of elements stops changing in size for the given amount of time.
+     * @param stableMillis How long the count must stay the same.
+     */
+    public static boolean waitForStableCount(WebDriver driver, String name, long timeoutMillis, By by, long stableMillis) {
+        final long[] lastChange = {System.currentTimeMillis()};
+        final int[] lastCount = {-1};
+        return waitUntil(driver, name, timeoutMillis, d -> {
+            final int count = d.findElements(by).size();
+            final long now = System.currentTimeMillis();
+            if (count != lastCount[0]) {
+                lastCount[0] = count;
+                lastChange[0] = now;
+                return false;
+            }
+            return count > 0 && now - lastChange[0] >= stableMillis;
+        });
+    }
+
+    /**
+     * Scroll to the bottom of a page which loads more elements as it is scrolled, until no more elements load.
+     * @param stableMillis How long to wait for more elements after each scroll.
+     */
+    public static boolean scrollUntilStable(WebDriver driver, String name, long timeoutMillis, By by, long stableMillis) {
+        final long[] lastChange = {System.currentTimeMillis()};
+        final int[] lastCount = {-1};
+        return waitUntil(driver, name, timeoutMillis, d -> {
+            final int count = d.findElements(by).size();
+            final long now = System.currentTimeMillis();
+            if (count != lastCount[0]) {
+                lastCount[0] = count;
+                lastChange[0] = now;
+                scrollToBottom(d);
+                return false;
+            }
+            return count > 0 && now - lastChange[0] >= stableMillis;
+        });
+    }
+
+    /**
+     * Durations of waits, by name.
+     */
+    private static final Map<String, WaitTimes> WAIT_TIMES = new TreeMap<>();
+
+    private static class WaitTimes {
+        int count = 0;
+        int timeouts = 0;
+        long totalMillis = 0L;
+        long maxMillis = 0L;
+    }
+
+    private static void recordWait(String name, long millis, boolean isMet) {
+        synchronized (WAIT_TIMES) {
+            final WaitTimes times = WAIT_TIMES.computeIfAbsent(name, k -> new WaitTimes());
+            times.count++;
+            if (!isMet) {
+                times.timeouts++;
+            }
+            times.totalMillis += millis;
+            times.maxMillis = Math.max(times.maxMillis, millis);
+        }
+    }
+
+    /**
+     * Print how long each kind of wait actually took.
+     * @param out Where to print.
+     */
+    public static void printWaitTimes(PrintStream out) {
+        synchronized (WAIT_TIMES) {
+            if (WAIT_TIMES.isEmpty()) {
+                return;
+            }
+            out.println("Waits (name, count, timeouts, mean ms, max ms, total ms):");
+            for (Map.Entry<String, WaitTimes> entry : WAIT_TIMES.entrySet()) {
+                final WaitTimes times = entry.getValue();
+                out.println(entry.getKey() + "\t" + times.count + "\t" + times.timeouts +
+                        "\t" + (times.totalMillis / times.count) + "\t" + times.maxMillis + "\t" + times.totalMillis);
+            }
+        }
+    }
+
     public static String getLastComponent(String url) {
         if (url.endsWith("/")) {
             return getLastComponent(url.substring(0, url.length() - 1));
@@ -0,0 +1,291 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.jsoup.HttpStatusException;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps requests to each host (page loads in a browser, static fetches, downloads) within a polite rate, so that a
+ * parallel crawl is never throttled or blocked.
+ *
+ * Each host has a token bucket, which allows short bursts but holds the average to a number of requests per second,
+ * and a cap on the number of requests in progress at once. Hosts are limited independently, so a thread which is
+ * waiting on one host never delays requests to another.
+ *
+ * The rate adapts to the host: a slow response, a failure, or a `429 Too Many Requests` or `503 Service Unavailable`
+ * doubles the time between requests (up to {@link #MAX_BACKOFF} times), and each quick, successful response shortens it
+ * again by a tenth. A `Retry-After` header pauses the host for as long as it asks.
+ *
+ * Use with `try`-with-resources:
+ * <pre>
+ * try (HostScheduler.Permit permit = scheduler.acquire(url)) {
+ *     ...
+ *     permit.setStatus(status);
+ * }
+ * </pre>
+ */
+public class HostScheduler {
+
+    /**
+     * The status of a response which was successful, but whose actual status isn't known (such as a page load in a
+     * browser).
+     */
+    public static final int OK = 200;
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * The most that the time between requests to a host is stretched.
+     */
+    static final double MAX_BACKOFF = 32.0;
+    /**
+     * The longest that a `Retry-After` header may pause a host.
+     */
+    private static final long MAX_RETRY_AFTER_MILLIS = 10L * 60L * 1000L;
+
+    /**
+     * How hard a host may be used.
+     */
+    public static class Limits {
+
+        /**
+         * No limit at all, such as for local files.
+         */
+        public static final Limits NONE = new Limits(Double.POSITIVE_INFINITY, Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        private final double requestsPerSecond;
+        private final int burst;
+        private final int maxConcurrent;
+        private final long slowMillis;
+
+        /**
+         * @param requestsPerSecond The average rate of requests.
+         * @param burst The most requests which may be made at once after the host has been idle.
+         * @param maxConcurrent The most requests which may be in progress at once.
+         * @param slowMillis A response which takes longer than this slows requests down.
+         */
+        public Limits(double requestsPerSecond, int burst, int maxConcurrent, long slowMillis) {
+            if (!(requestsPerSecond > 0.0) || burst < 1 || maxConcurrent < 1) {
+                throw new IllegalArgumentException("Limits must be positive: `" + requestsPerSecond + "`, `" + burst +
+                        "`, `" + maxConcurrent + "`.");
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+            this.maxConcurrent = maxConcurrent;
+            this.slowMillis = slowMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.1f/s (burst %d), %d at once", requestsPerSecond, burst, maxConcurrent);
+        }
+    }
+
+    /**
+     * The bucket, slots, and backoff of one host.
+     */
+    private static class Host {
+
+        private final Limits limits;
+        private final Semaphore slots;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+        private double backoff = 1.0;
+        private long pausedUntilNanos = 0L;
+
+        private Host(Limits limits) {
+            this.limits = limits;
+            this.slots = new Semaphore(limits.maxConcurrent, true);
+            this.tokens = limits.burst;
+        }
+
+        /**
+         * Take a token, even if the bucket is empty, so that requests are granted in the order in which they ask.
+         * @return How long to wait until the token is actually available.
+         */
+        private synchronized long reserve() {
+            if (Double.isInfinite(limits.requestsPerSecond)) {
+                return 0L;
+            }
+            final long now = System.nanoTime();
+            final double rate = limits.requestsPerSecond / backoff / 1e9;
+            tokens = Math.min(limits.burst, tokens + (now - lastRefillNanos) * rate);
+            lastRefillNanos = now;
+            tokens -= 1.0;
+            final long waitNanos = tokens >= 0.0 ? 0L : (long) (-tokens / rate);
+            return Math.max(waitNanos, pausedUntilNanos - now);
+        }
+
+        private synchronized void respond(int status, long elapsedNanos, long retryAfterMillis) {
+            final boolean isRefused = status == TOO_MANY_REQUESTS || status == SERVICE_UNAVAILABLE;
+            if (isRefused || status <= 0 || elapsedNanos > limits.slowMillis * 1000000L) {
+                backoff = Math.min(MAX_BACKOFF, backoff * 2.0);
+            } else {
+                backoff = Math.max(1.0, backoff * 0.9);
+            }
+            if (retryAfterMillis > 0L) {
+                pausedUntilNanos = Math.max(pausedUntilNanos,
+                        System.nanoTime() + Math.min(retryAfterMillis, MAX_RETRY_AFTER_MILLIS) * 1000000L);
+            }
+        }
+
+        private synchronized double getBackoff() {
+            return backoff;
+        }
+    }
+
+    /**
+     * A request to a host which may proceed. It holds one of the host's slots until it is closed.
+     */
+    public static class Permit implements AutoCloseable {
+
+        private final Host host;
+        private final long startNanos = System.nanoTime();
+        private boolean isResponded = false;
+        private boolean isClosed = false;
+
+        private Permit(Host host) {
+            this.host = host;
+        }
+
+        /**
+         * Record the response of the host, which adapts the rate of the following requests.
+         * @param status The HTTP status of the response, {@link #OK} if it succeeded, or `0` if it failed without one.
+         */
+        public void setStatus(int status) {
+            setStatus(status, null);
+        }
+
+        /**
+         * @param status See {@link #setStatus(int)}.
+         * @param retryAfter The `Retry-After` header of the response, in seconds, or `null`.
+         */
+        public void setStatus(int status, String retryAfter) {
+            if (isResponded || host == null) {
+                return;
+            }
+            isResponded = true;
+            host.respond(status, System.nanoTime() - startNanos, parseRetryAfter(retryAfter));
+        }
+
+        /**
+         * Free the slot of the host. A request which was never given a status is counted as having failed.
+         */
+        @Override
+        public void close() {
+            if (isClosed || host == null) {
+                return;
+            }
+            isClosed = true;
+            setStatus(0);
+            host.slots.release();
+        }
+    }
+
+    private static final Permit UNLIMITED_PERMIT = new Permit(null);
+
+    private final Limits defaultLimits;
+    private final Map<String, Limits> hostLimits = new ConcurrentHashMap<>();
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultLimits Of each host which isn't given its own.
+     */
+    public HostScheduler(Limits defaultLimits) {
+        this.defaultLimits = defaultLimits;
+    }
+
+    /**
+     * @param host Such as `speeches.byu.edu`.
+     * @param limits Of the host. Must be set before the first request to the host.
+     */
+    public void setLimits(String host, Limits limits) {
+        hostLimits.put(host.toLowerCase(Locale.ROOT), limits);
+    }
+
+    /**
+     * Wait until a request may be made to the host of a URL.
+     * @param url Of the request. URLs without a host (such as local files) are never limited.
+     * @return The permit, which must be closed once the request is complete.
+     */
+    public Permit acquire(String url) {
+        final String hostName = getHost(url);
+        if (hostName == null) {
+            return UNLIMITED_PERMIT;
+        }
+        final Limits limits = hostLimits.getOrDefault(hostName, defaultLimits);
+        if (limits == Limits.NONE) {
+            return UNLIMITED_PERMIT;
+        }
+        final Host host = hosts.computeIfAbsent(hostName, k -> new Host(limits));
+        // Take a slot first, so that a request waiting on a slot doesn't also hold a token.
+        try {
+            host.slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for host `" + hostName + "`.", e);
+        }
+        final long waitNanos = host.reserve();
+        if (waitNanos > 0L) {
+            final long start = System.nanoTime();
+            try {
+                Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+            } catch (InterruptedException e) {
+                host.slots.release();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for host `" + hostName + "`.", e);
+            }
+            Metrics.recordSince(Metrics.THROTTLE, start);
+        }
+        return new Permit(host);
+    }
+
+    /**
+     * @param host Such as `speeches.byu.edu`.
+     * @return How many times the time between requests to the host has been stretched, or `1` if it never has.
+     */
+    public double getBackoff(String host) {
+        final Host state = hosts.get(host.toLowerCase(Locale.ROOT));
+        return state != null ? state.getBackoff() : 1.0;
+    }
+
+    /**
+     * @param e Thrown by a request.
+     * @return The HTTP status of the response which caused it, or `0` if there was none.
+     */
+    public static int getStatus(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusException) {
+                return ((HttpStatusException) cause).getStatusCode();
+            }
+        }
+        return 0;
+    }
+
+    private static String getHost(String url) {
+        try {
+            final String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param retryAfter Such as `120`. Dates are not supported, so they are ignored.
+     */
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
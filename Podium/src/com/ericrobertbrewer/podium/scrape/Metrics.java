@@ -0,0 +1,254 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long each phase of a crawl takes (navigation, waits, page sources, element lookups, file writes) and
+ * how often things go wrong (missing elements, timeouts, skipped pages), so that a slow crawl can be tuned where it
+ * actually spends its time.
+ *
+ * Each measurement is kept by the site (host) and the type of page (listing, talk) which the current thread is
+ * reading. The site is that of the most recent navigation of the thread; the page type is set by the scraper.
+ * Latencies are kept in histograms whose buckets are within 19% of each other, so that percentiles are approximate.
+ */
+public final class Metrics {
+
+    // Phases.
+    public static final String NAVIGATE = "navigate";
+    public static final String THROTTLE = "throttle";
+    public static final String WAIT = "wait";
+    public static final String SLEEP = "sleep";
+    public static final String PAGE_SOURCE = "page_source";
+    public static final String FIND = "find";
+    public static final String WRITE = "write";
+    public static final String PAGE = "page";
+
+    // Events.
+    public static final String RETRY = "retry";
+    public static final String FAILED = "failed";
+    public static final String MISSING_ELEMENT = "missing_element";
+    public static final String TIMEOUT = "timeout";
+    public static final String REPLACED_DRIVER = "replaced_driver";
+    public static final String SKIPPED_COMPLETE = "skipped_complete";
+    public static final String SKIPPED_UNCHANGED = "skipped_unchanged";
+    public static final String SKIPPED_BLACKLISTED = "skipped_blacklisted";
+    public static final String SKIPPED_MSO = "skipped_mso";
+    public static final String SKIPPED_NO_TRANSCRIPT = "skipped_no_transcript";
+
+    // Page types.
+    public static final String LISTING = "listing";
+    public static final String TALK = "talk";
+    public static final String REPARSE = "reparse";
+
+    private static final String LOCAL_SITE = "local";
+    private static final String[] COLUMNS = {"kind", "name", "site", "page_type", "count", "mean_ms", "p50_ms",
+            "p90_ms", "p99_ms", "max_ms", "total_ms"};
+
+    private static final ThreadLocal<String> SITE = ThreadLocal.withInitial(() -> LOCAL_SITE);
+    private static final ThreadLocal<String> PAGE_TYPE = ThreadLocal.withInitial(() -> LISTING);
+    private static final Map<Key, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<Key, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    /**
+     * Attribute the following measurements of the current thread to the site of a page.
+     * @param url Of the page being loaded.
+     */
+    public static void setSite(String url) {
+        String host = null;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            // Not a URL which can be parsed, so it isn't attributed to a site.
+        }
+        SITE.set(host != null ? host : LOCAL_SITE);
+    }
+
+    /**
+     * @param pageType Of the following measurements of the current thread, such as {@link #TALK}.
+     * @return The previous page type, to be restored once the page is complete.
+     */
+    public static String setPageType(String pageType) {
+        final String previous = PAGE_TYPE.get();
+        PAGE_TYPE.set(pageType);
+        return previous;
+    }
+
+    /**
+     * @param phase Such as {@link #NAVIGATE}.
+     * @param startNanos From {@link System#nanoTime()} when the phase began.
+     */
+    public static void recordSince(String phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param phase Such as {@link #NAVIGATE}.
+     * @param nanos Spent in the phase.
+     */
+    public static void record(String phase, long nanos) {
+        HISTOGRAMS.computeIfAbsent(new Key(phase, SITE.get(), PAGE_TYPE.get()), k -> new Histogram()).add(nanos);
+    }
+
+    /**
+     * @param event Such as {@link #MISSING_ELEMENT}.
+     */
+    public static void count(String event) {
+        COUNTERS.computeIfAbsent(new Key(event, SITE.get(), PAGE_TYPE.get()), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Print a summary of every phase and event, by site and page type.
+     * @param out Where to print.
+     */
+    public static void print(PrintStream out) {
+        final List<String[]> rows = getRows();
+        if (rows.isEmpty()) {
+            return;
+        }
+        out.println("Metrics (" + String.join(", ", COLUMNS) + "):");
+        for (String[] row : rows) {
+            out.println(String.join("\t", row));
+        }
+    }
+
+    /**
+     * Write every phase and event as a TSV file, one row for each site and page type.
+     * @param file To write.
+     * @throws IOException When the file can't be written.
+     */
+    public static void write(File file) throws IOException {
+        try (OutputFile out = OutputFile.create(file.getParentFile(), file.getName())) {
+            out.printRow(COLUMNS);
+            for (String[] row : getRows()) {
+                out.printRow(row);
+            }
+            out.commit();
+        }
+    }
+
+    private static List<String[]> getRows() {
+        final List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<Key, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            final Key key = entry.getKey();
+            final Histogram histogram = entry.getValue();
+            synchronized (histogram) {
+                rows.add(new String[]{"phase", key.name, key.site, key.pageType, String.valueOf(histogram.count),
+                        toMillis(histogram.totalNanos / histogram.count), toMillis(histogram.getPercentile(0.5)),
+                        toMillis(histogram.getPercentile(0.9)), toMillis(histogram.getPercentile(0.99)),
+                        toMillis(histogram.maxNanos), toMillis(histogram.totalNanos)});
+            }
+        }
+        for (Map.Entry<Key, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            final Key key = entry.getKey();
+            rows.add(new String[]{"event", key.name, key.site, key.pageType, String.valueOf(entry.getValue().sum()),
+                    "", "", "", "", "", ""});
+        }
+        return rows;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    private static class Key implements Comparable<Key> {
+
+        private final String name;
+        private final String site;
+        private final String pageType;
+
+        private Key(String name, String site, String pageType) {
+            this.name = name;
+            this.site = site;
+            this.pageType = pageType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return name.equals(key.name) && site.equals(key.site) && pageType.equals(key.pageType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, site, pageType);
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            int c = name.compareTo(o.name);
+            if (c == 0) {
+                c = site.compareTo(o.site);
+            }
+            if (c == 0) {
+                c = pageType.compareTo(o.pageType);
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Counts of durations in buckets which grow exponentially: four per power of two of microseconds.
+     */
+    private static class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[BUCKET_COUNT];
+        private long count = 0L;
+        private long totalNanos = 0L;
+        private long maxNanos = 0L;
+
+        private synchronized void add(long nanos) {
+            counts[getBucket(Math.max(0L, nanos) / 1000L)]++;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        private static int getBucket(long micros) {
+            if (micros < (1L << SUB_BUCKET_BITS)) {
+                return (int) micros;
+            }
+            final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+            return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        /**
+         * @return The upper bound of the bucket, in nanoseconds.
+         */
+        private static long getUpperBound(int bucket) {
+            if (bucket < (1 << SUB_BUCKET_BITS)) {
+                return (bucket + 1) * 1000L;
+            }
+            final int exponent = (bucket >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+            final long subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+            return (((1L << SUB_BUCKET_BITS) + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) * 1000L;
+        }
+
+        private long getPercentile(double fraction) {
+            final long rank = (long) Math.ceil(fraction * count);
+            long seen = 0L;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank && seen > 0L) {
+                    return Math.min(getUpperBound(bucket), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    private Metrics() {
+    }
+}
@@ -0,0 +1,138 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A buffered, UTF-8 output file, which is written beside its final name (as `<name>.part`) and only moved into place
+ * once it is complete. A file whose writer fails or is closed without being committed is never seen half-written.
+ * The time spent writing to the disk is recorded in {@link Metrics}.
+ *
+ * Use with `try`-with-resources:
+ * <pre>
+ * try (OutputFile out = OutputFile.create(folder, fileName)) {
+ *     out.println(...);
+ *     out.commit();
+ * }
+ * </pre>
+ */
+public class OutputFile extends PrintStream {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * @param folder Of the file. May be relative.
+     * @param fileName Of the file. An existing file of the same name is replaced when this one is committed.
+     * @return The writer of the file.
+     * @throws IOException When the file cannot be created.
+     */
+    public static OutputFile create(File folder, String fileName) throws IOException {
+        final File file = new File(folder, fileName);
+        final File partFile = new File(folder, fileName + PART_SUFFIX);
+        final long start = System.nanoTime();
+        final OutputStream out = new FileOutputStream(partFile);
+        return new OutputFile(file, partFile, new TimedOutputStream(out, System.nanoTime() - start));
+    }
+
+    /**
+     * Adds up the time spent in the writes of the underlying file, which only happen when the buffer is full.
+     */
+    private static class TimedOutputStream extends FilterOutputStream {
+
+        private long nanos;
+
+        private TimedOutputStream(OutputStream out, long nanos) {
+            super(out);
+            this.nanos = nanos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            final long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            final long start = System.nanoTime();
+            super.close();
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    private final File file;
+    private final File partFile;
+    private final TimedOutputStream timedOut;
+    private boolean isCommitted = false;
+
+    private OutputFile(File file, File partFile, TimedOutputStream out) {
+        super(new BufferedOutputStream(out, BUFFER_SIZE), false, StandardCharsets.UTF_8);
+        this.file = file;
+        this.partFile = partFile;
+        this.timedOut = out;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Print one row of a TSV file, escaping each field. See {@link Tsv#join(String...)}.
+     * @param fields Of the row.
+     */
+    public void printRow(String... fields) {
+        println(Tsv.join(fields));
+    }
+
+    /**
+     * Close the file and move it into place.
+     * @throws IOException When any of the file could not be written, or it cannot be moved.
+     */
+    public void commit() throws IOException {
+        if (isCommitted) {
+            return;
+        }
+        // A `PrintStream` swallows errors, so check for them before closing.
+        flush();
+        if (checkError()) {
+            close();
+            throw new IOException("Unable to write file: `" + file.getPath() + "`.");
+        }
+        // Closing the stream calls `close()` again, which must not discard the file.
+        isCommitted = true;
+        super.close();
+        final long start = System.nanoTime();
+        try {
+            Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Metrics.record(Metrics.WRITE, timedOut.nanos + System.nanoTime() - start);
+    }
+
+    /**
+     * Close the file. If it hasn't been committed, it is discarded.
+     */
+    @Override
+    public void close() {
+        if (isCommitted) {
+            return;
+        }
+        super.close();
+        if (partFile.exists() && !partFile.delete()) {
+            System.err.println("Unable to delete incomplete file: `" + partFile.getPath() + "`.");
+        }
+    }
+}
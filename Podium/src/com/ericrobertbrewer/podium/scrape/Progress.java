@@ -0,0 +1,326 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how far along a crawl is, for each site and overall: folders (years, conferences) and items (talks) which
+ * are done out of those which are known, how quickly items are being scraped, and when the crawl should finish.
+ *
+ * Scrapers only count; they never wait on the report. The report is printed (and optionally written to a status file)
+ * on its own thread, at most once per period, and only when something has changed.
+ *
+ * Items become known as the listing of each folder is read, so until every folder has been listed, the items of the
+ * remaining folders are estimated from the average of those which have been.
+ */
+public class Progress {
+
+    /**
+     * The most recent rate is measured over this many reports, so that it follows changes in speed.
+     */
+    private static final int RATE_WINDOW = 30;
+    private static final String[] COLUMNS = {"site", "folders_done", "folders_total", "items_done", "items_total",
+            "items_skipped", "items_failed", "items_per_minute", "elapsed_seconds", "eta_seconds"};
+    private static final String OVERALL = "overall";
+
+    /**
+     * Counts of one site. Every method may be called from any thread.
+     */
+    public static class Site {
+
+        private final String name;
+        private final AtomicInteger foldersTotal = new AtomicInteger();
+        private final AtomicInteger foldersListed = new AtomicInteger();
+        private final AtomicInteger foldersDone = new AtomicInteger();
+        private final AtomicInteger foldersSkipped = new AtomicInteger();
+        private final AtomicInteger itemsTotal = new AtomicInteger();
+        private final AtomicInteger itemsDone = new AtomicInteger();
+        private final AtomicInteger itemsSkipped = new AtomicInteger();
+        private final AtomicInteger itemsFailed = new AtomicInteger();
+
+        /**
+         * @param name Such as `byui`.
+         */
+        public Site(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param count Of folders (years, conferences) in the listing of the site.
+         */
+        public void addFolders(int count) {
+            foldersTotal.addAndGet(count);
+        }
+
+        /**
+         * A folder which needn't be scraped, such as one which is already complete.
+         */
+        public void skipFolder() {
+            foldersSkipped.incrementAndGet();
+            foldersListed.incrementAndGet();
+            foldersDone.incrementAndGet();
+        }
+
+        /**
+         * Every item of the folder has been added.
+         */
+        public void listFolder() {
+            foldersListed.incrementAndGet();
+        }
+
+        /**
+         * Every item of the folder is done, and its table has been written.
+         */
+        public void completeFolder() {
+            foldersDone.incrementAndGet();
+        }
+
+        /**
+         * An item (talk) of a folder which is being listed.
+         */
+        public void addItem() {
+            itemsTotal.incrementAndGet();
+        }
+
+        /**
+         * An item which was already complete, and so needn't be scraped.
+         */
+        public void skipItem() {
+            itemsSkipped.incrementAndGet();
+            itemsDone.incrementAndGet();
+        }
+
+        /**
+         * @param isFailed Whether the item could not be scraped.
+         */
+        public void completeItem(boolean isFailed) {
+            if (isFailed) {
+                itemsFailed.incrementAndGet();
+            }
+            itemsDone.incrementAndGet();
+        }
+    }
+
+    /**
+     * The counts of a site (or all sites) at one time.
+     */
+    private static class Snapshot {
+
+        private final long millis;
+        private int foldersTotal;
+        private int foldersListed;
+        private int foldersDone;
+        private int foldersSkipped;
+        private int itemsTotal;
+        private int itemsDone;
+        private int itemsSkipped;
+        private int itemsFailed;
+
+        private Snapshot(long millis) {
+            this.millis = millis;
+        }
+
+        private void add(Site site) {
+            foldersTotal += site.foldersTotal.get();
+            foldersListed += site.foldersListed.get();
+            foldersDone += site.foldersDone.get();
+            foldersSkipped += site.foldersSkipped.get();
+            itemsTotal += site.itemsTotal.get();
+            itemsDone += site.itemsDone.get();
+            itemsSkipped += site.itemsSkipped.get();
+            itemsFailed += site.itemsFailed.get();
+        }
+
+        /**
+         * @return Items which were actually scraped, rather than skipped.
+         */
+        private int getItemsScraped() {
+            return itemsDone - itemsSkipped;
+        }
+
+        /**
+         * @return Items which are known, plus an estimate of those in folders which haven't been listed.
+         */
+        private double getItemsExpected() {
+            final int foldersUnlisted = foldersTotal - foldersListed;
+            // Skipped folders have no known items, so only average over the folders whose items were counted.
+            final int foldersCounted = foldersListed - foldersSkipped;
+            if (foldersUnlisted <= 0 || foldersCounted <= 0) {
+                return itemsTotal;
+            }
+            return itemsTotal + foldersUnlisted * ((double) itemsTotal / foldersCounted);
+        }
+
+        private boolean isSame(Snapshot o) {
+            return foldersTotal == o.foldersTotal && foldersListed == o.foldersListed && foldersDone == o.foldersDone &&
+                    itemsTotal == o.itemsTotal && itemsDone == o.itemsDone;
+        }
+    }
+
+    private final List<Site> sites = new ArrayList<>();
+    private final Map<String, Deque<Snapshot>> history = new HashMap<>();
+    private final Map<String, Snapshot> lastReported = new HashMap<>();
+    private final long startMillis = System.currentTimeMillis();
+    private ScheduledExecutorService reporter = null;
+    private PrintStream out = null;
+    private File statusFile = null;
+
+    /**
+     * @param name Of the site, such as `byui`.
+     * @return The counts of the site, to be given to its scraper.
+     */
+    public synchronized Site addSite(String name) {
+        final Site site = new Site(name);
+        sites.add(site);
+        return site;
+    }
+
+    /**
+     * Report progress periodically on a background thread, until {@link #stop()}.
+     * @param out Where to print a line for each site (and overall) when progress has changed, or `null`.
+     * @param statusFile To replace with the latest progress as a TSV file, or `null`.
+     * @param periodMillis Time between reports.
+     */
+    public void start(PrintStream out, File statusFile, long periodMillis) {
+        this.out = out;
+        this.statusFile = statusFile;
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> report(false), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop reporting, then report the final progress.
+     */
+    public void stop() {
+        if (reporter != null) {
+            reporter.shutdown();
+            try {
+                reporter.awaitTermination(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        report(true);
+    }
+
+    private synchronized void report(boolean force) {
+        final long now = System.currentTimeMillis();
+        final Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+        final Snapshot overall = new Snapshot(now);
+        for (Site site : sites) {
+            final Snapshot snapshot = new Snapshot(now);
+            snapshot.add(site);
+            overall.add(site);
+            snapshots.put(site.getName(), snapshot);
+        }
+        if (sites.size() > 1) {
+            snapshots.put(OVERALL, overall);
+        }
+        final List<String[]> rows = new ArrayList<>();
+        final List<String[]> changedRows = new ArrayList<>();
+        for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+            final String name = entry.getKey();
+            final Snapshot snapshot = entry.getValue();
+            final Deque<Snapshot> window = history.computeIfAbsent(name, k -> new ArrayDeque<>());
+            window.addLast(snapshot);
+            if (window.size() > RATE_WINDOW) {
+                window.removeFirst();
+            }
+            final Snapshot previous = lastReported.get(name);
+            lastReported.put(name, snapshot);
+            final String[] row = toRow(name, snapshot, window.getFirst());
+            rows.add(row);
+            if (force || previous == null || !previous.isSame(snapshot)) {
+                changedRows.add(row);
+            }
+        }
+        if (changedRows.isEmpty()) {
+            return;
+        }
+        if (out != null) {
+            for (String[] row : changedRows) {
+                out.println(format(row));
+            }
+        }
+        if (statusFile != null) {
+            try (OutputFile statusOut = OutputFile.create(statusFile.getParentFile(), statusFile.getName())) {
+                statusOut.printRow(COLUMNS);
+                for (String[] row : rows) {
+                    statusOut.printRow(row);
+                }
+                statusOut.commit();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @param oldest The earliest snapshot of the rate window.
+     * @return Values of {@link #COLUMNS}. The rate and ETA are blank until they are known.
+     */
+    private String[] toRow(String name, Snapshot snapshot, Snapshot oldest) {
+        final long elapsedMillis = snapshot.millis - startMillis;
+        // Prefer the recent rate, but fall back to the rate since the start while the window is too short.
+        double rate = 0.0;
+        if (snapshot.millis > oldest.millis && snapshot.getItemsScraped() > oldest.getItemsScraped()) {
+            rate = (snapshot.getItemsScraped() - oldest.getItemsScraped()) / ((snapshot.millis - oldest.millis) / 60000.0);
+        } else if (elapsedMillis > 0 && snapshot.getItemsScraped() > 0) {
+            rate = snapshot.getItemsScraped() / (elapsedMillis / 60000.0);
+        }
+        final double remaining = Math.max(0.0, snapshot.getItemsExpected() - snapshot.itemsDone);
+        final String eta;
+        if (remaining == 0.0 && snapshot.foldersDone >= snapshot.foldersTotal) {
+            eta = "0";
+        } else if (rate > 0.0) {
+            eta = String.valueOf(Math.round(remaining / rate * 60.0));
+        } else {
+            eta = "";
+        }
+        return new String[]{name, String.valueOf(snapshot.foldersDone), String.valueOf(snapshot.foldersTotal),
+                String.valueOf(snapshot.itemsDone), String.valueOf(snapshot.itemsTotal),
+                String.valueOf(snapshot.itemsSkipped), String.valueOf(snapshot.itemsFailed),
+                rate > 0.0 ? String.format(Locale.ROOT, "%.1f", rate) : "",
+                String.valueOf(elapsedMillis / 1000L), eta};
+    }
+
+    /**
+     * @param row Values of {@link #COLUMNS}.
+     * @return Such as `Progress of byui: folders 3/41, talks 120/950 (80 skipped, 1 failed), 12.5/min, elapsed 0:04:10,
+     * ETA 1:06:24.`
+     */
+    private static String format(String[] row) {
+        final StringBuilder line = new StringBuilder();
+        line.append("Progress of ").append(row[0]).append(": folders ").append(row[1]).append('/').append(row[2])
+                .append(", talks ").append(row[3]).append('/').append(row[4]);
+        if (!"0".equals(row[5]) || !"0".equals(row[6])) {
+            line.append(" (").append(row[5]).append(" skipped, ").append(row[6]).append(" failed)");
+        }
+        if (!row[7].isEmpty()) {
+            line.append(", ").append(row[7]).append("/min");
+        }
+        line.append(", elapsed ").append(formatSeconds(Long.parseLong(row[8])));
+        if (!row[9].isEmpty()) {
+            line.append(", ETA ").append(formatSeconds(Long.parseLong(row[9])));
+        }
+        return line.append('.').toString();
+    }
+
+    private static String formatSeconds(long seconds) {
+        return String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600L, (seconds / 60L) % 60L, seconds % 60L);
+    }
+}
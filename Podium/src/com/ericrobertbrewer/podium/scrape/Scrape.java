@@ -2,21 +2,84 @@ package com.ericrobertbrewer.podium.scrape;
 
 import com.ericrobertbrewer.podium.Folders;
 import com.ericrobertbrewer.podium.scrape.scraper.*;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 public final class Scrape {
 
-    public static void main(String[] args) {
-        if (args.length < 3 || args.length > 4) {
+    private static final String REPARSE = "reparse";
+    private static final String AUDIO = "audio";
+    private static final int DEFAULT_AUDIO_CONNECTIONS = 4;
+    private static final double AUDIO_REQUESTS_PER_SECOND = 2.0;
+    private static final long AUDIO_SLOW_MILLIS = 30000L;
+    private static final String OPTION_PREFIX = "--";
+    private static final String INCREMENTAL = "incremental";
+    private static final String METRICS = "metrics";
+    private static final String METRICS_FILE_NAME = "metrics.tsv";
+    private static final String STATUS = "status";
+    private static final String STATUS_FILE_NAME = "status.tsv";
+    private static final String PROFILE = "profile";
+    private static final String OPTION_VALUE_SEPARATOR = "=";
+    private static final long PROGRESS_PERIOD_MILLIS = 30000L;
+    private static final long PAGE_LOAD_TIMEOUT_MILLIS = 90000L;
+    private static final long SCRIPT_TIMEOUT_MILLIS = 30000L;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 5000L;
+    /**
+     * Browsers grow in memory over a long session, so each is replaced after this many pages.
+     */
+    private static final int PAGES_PER_DRIVER = 250;
+
+    public static void main(String[] allArgs) {
+        // Separate `--option` flags and `--option=value` options from positional arguments.
+        final Set<String> options = new HashSet<>();
+        final Map<String, String> optionValues = new HashMap<>();
+        final List<String> argList = new ArrayList<>();
+        for (String arg : allArgs) {
+            if (arg.startsWith(OPTION_PREFIX)) {
+                final String option = arg.substring(OPTION_PREFIX.length());
+                final int separatorIndex = option.indexOf(OPTION_VALUE_SEPARATOR);
+                if (separatorIndex != -1) {
+                    optionValues.put(option.substring(0, separatorIndex), option.substring(separatorIndex + 1));
+                } else {
+                    options.add(option);
+                }
+            } else {
+                argList.add(arg);
+            }
+        }
+        final String[] args = argList.toArray(new String[0]);
+        if (args.length > 0 && REPARSE.equals(args[0])) {
+            reparse(args);
+            return;
+        }
+        if (args.length > 0 && AUDIO.equals(args[0])) {
+            downloadAudio(args);
+            return;
+        }
+        if (args.length < 3 || args.length > 5) {
             printContentOptions();
             printDriverOptions();
-            throw new IllegalArgumentException("Usage: <content> <driver-name> <driver-path> [<force>]");
+            printDriverProfiles();
+            throw new IllegalArgumentException("Usage: <content> <driver-name> <driver-path> [<force>] [<drivers>] [" + OPTION_PREFIX + INCREMENTAL + "] [" + OPTION_PREFIX + METRICS + "] [" + OPTION_PREFIX + STATUS + "] [" + OPTION_PREFIX + PROFILE + OPTION_VALUE_SEPARATOR + "<profile>]\n" +
+                    "   or: " + REPARSE + " <content> [<threads>]\n" +
+                    "   or: " + AUDIO + " <content> [<connections>]");
+        }
+        for (String option : options) {
+            if (!INCREMENTAL.equals(option) && !METRICS.equals(option) && !STATUS.equals(option)) {
+                throw new IllegalArgumentException("Unknown option: `" + OPTION_PREFIX + option + "`.");
+            }
+        }
+        for (String option : optionValues.keySet()) {
+            if (!PROFILE.equals(option)) {
+                throw new IllegalArgumentException("Unknown option: `" + OPTION_PREFIX + option + "`.");
+            }
         }
         // Get the content option.
         final String content = args[0];
@@ -34,9 +97,31 @@ public final class Scrape {
         final DriverOption driverOption = DRIVER_OPTION_MAP.get(driverName);
         final String path = args[2];
         System.setProperty(driverOption.systemKey, path);
-        final WebDriver driver = driverOption.newInstance();
+        // Get the `drivers` argument.
+        final int drivers;
+        if (args.length > 4) {
+            drivers = Integer.parseInt(args[4]);
+        } else {
+            drivers = 1;
+        }
+        // Get the `--profile` option, or the profile which suits the content.
+        final DriverProfile profile;
+        if (optionValues.containsKey(PROFILE)) {
+            profile = DriverProfile.get(optionValues.get(PROFILE));
+            if (profile == null) {
+                printDriverProfiles();
+                throw new IllegalArgumentException("Unknown driver profile: `" + optionValues.get(PROFILE) + "`.");
+            }
+        } else {
+            profile = contentOption.profile;
+        }
+        // Give each browser its own profile folder, which is kept for the next browser of the same content.
+        final DriverProfile.Slots slots = new DriverProfile.Slots(profile.isReused() ?
+                new File(Folders.BROWSER_PROFILES_ROOT, contentOption.name) : null, driverOption.name);
+        final DriverPool driverPool = new DriverPool(drivers,
+                () -> slots.launch(profileFolder -> driverOption.newInstance(profile, profileFolder)), slots::release);
         // Create the scraper.
-        final Scraper scraper = contentOption.newInstance(driver);
+        final Scraper scraper = contentOption.newInstance(driverPool);
         // Create the root folder.
         final File rootFolder = new File(contentOption.rootFolderName);
         if (!rootFolder.exists() && !rootFolder.mkdirs()) {
@@ -49,12 +134,150 @@ public final class Scrape {
         } else {
             force = false;
         }
+        // Get the `--incremental` option.
+        final boolean incremental = options.contains(INCREMENTAL);
+        if (force && incremental) {
+            throw new IllegalArgumentException("The `force` and `" + OPTION_PREFIX + INCREMENTAL + "` arguments cannot be used together.");
+        }
+        scraper.setIncremental(incremental);
+        // Open the journal of completed talks, so that an interrupted crawl continues where it stopped.
+        try {
+            scraper.setJournal(new CrawlJournal(rootFolder));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open crawl journal in: `" + rootFolder.getPath() + "`.", e);
+        }
+        // List the talks which fail for good.
+        final DeadLetters deadLetters;
+        try {
+            deadLetters = new DeadLetters(rootFolder);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read failed talks in: `" + rootFolder.getPath() + "`.", e);
+        }
+        scraper.setDeadLetters(deadLetters);
+        // Limit the rate of requests to the site.
+        scraper.setScheduler(new HostScheduler(contentOption.limits));
+        // Time out page loads, retry failed talks, and replace browsers which die or wear out.
+        final DriverSupervisor supervisor = new DriverSupervisor(PAGE_LOAD_TIMEOUT_MILLIS, SCRIPT_TIMEOUT_MILLIS,
+                MAX_ATTEMPTS, RETRY_DELAY_MILLIS, PAGES_PER_DRIVER);
+        scraper.setSupervisor(supervisor);
+        // Keep the page sources of talks once each, by content, in one store for the whole root folder.
+        scraper.setSourceStore(new SourceStore(new File(rootFolder, SourceStore.FOLDER_NAME)));
         // Scrape the web content.
         System.out.println("Scraping: " + contentOption.description);
         System.out.println("To directory: " + rootFolder.getPath());
-        System.out.println("Using driver: " + driverOption.description);
+        System.out.println("Using driver: " + driverOption.description + " (x" + drivers + "), profile `" + profile + "`");
+        System.out.println("Limiting requests to: " + contentOption.limits);
+        System.out.println("Supervising with: " + supervisor);
+        if (incremental) {
+            System.out.println("Updating incrementally.");
+        }
+        // Report progress periodically. Get the `--status` option.
+        final Progress progress = new Progress();
+        scraper.setProgress(progress.addSite(contentOption.name));
+        progress.start(System.out, options.contains(STATUS) ? new File(rootFolder, STATUS_FILE_NAME) : null, PROGRESS_PERIOD_MILLIS);
         scraper.scrapeAll(rootFolder, force);
         scraper.quit();
+        progress.stop();
+        DriverUtils.printWaitTimes(System.out);
+        Metrics.print(System.out);
+        if (deadLetters.size() > 0) {
+            System.out.println("Failed talks and folders (" + deadLetters.size() + ") are listed in: " + deadLetters.getFile().getPath());
+        }
+        // Get the `--metrics` option.
+        if (options.contains(METRICS)) {
+            final File metricsFile = new File(rootFolder, METRICS_FILE_NAME);
+            try {
+                Metrics.write(metricsFile);
+                System.out.println("Wrote metrics to: " + metricsFile.getPath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        System.out.println("Complete.");
+    }
+
+    /**
+     * Regenerate text, notes, and summary files from the page sources saved by a previous scrape.
+     * Nothing is fetched from the network and no browser is launched.
+     * @param args `reparse`, the content option, and optionally the number of threads.
+     */
+    private static void reparse(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            printContentOptions();
+            throw new IllegalArgumentException("Usage: " + REPARSE + " <content> [<threads>]");
+        }
+        // Get the content option.
+        final String content = args[1];
+        if (!CONTENT_OPTION_MAP.containsKey(content)) {
+            printContentOptions();
+            throw new IllegalArgumentException("Unknown content option: `" + content + "`.");
+        }
+        final ContentOption contentOption = CONTENT_OPTION_MAP.get(content);
+        final File rootFolder = new File(contentOption.rootFolderName);
+        if (!rootFolder.exists()) {
+            throw new RuntimeException("Root directory does not exist: `" + rootFolder.getPath() + "`.");
+        }
+        // Get the `threads` argument.
+        final int threads;
+        if (args.length > 2) {
+            threads = Integer.parseInt(args[2]);
+        } else {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        // Only saved sources are read, so the pool never launches a browser.
+        // The extra "driver" is the calling thread's, which only lists folders.
+        final DriverPool driverPool = new DriverPool(threads + 1, () -> {
+            throw new UnsupportedOperationException("Browsers are not used when reparsing.");
+        });
+        final Scraper scraper = contentOption.newInstance(driverPool);
+        scraper.setSourceStore(new SourceStore(new File(rootFolder, SourceStore.FOLDER_NAME)));
+        System.out.println("Reparsing: " + contentOption.description);
+        System.out.println("In directory: " + rootFolder.getPath());
+        System.out.println("Using threads: " + threads);
+        final Progress progress = new Progress();
+        scraper.setProgress(progress.addSite(contentOption.name));
+        progress.start(System.out, null, PROGRESS_PERIOD_MILLIS);
+        scraper.reparseAll(rootFolder);
+        scraper.quit();
+        progress.stop();
+        Metrics.print(System.out);
+        System.out.println("Complete.");
+    }
+
+    /**
+     * Download the audio files listed in the summaries of a previous scrape.
+     * This only uses plain HTTP connections, so it may run alongside (or long after) the text crawl.
+     * @param args `audio`, the content option, and optionally the number of simultaneous connections.
+     */
+    private static void downloadAudio(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            printContentOptions();
+            throw new IllegalArgumentException("Usage: " + AUDIO + " <content> [<connections>]");
+        }
+        // Get the content option.
+        final String content = args[1];
+        if (!CONTENT_OPTION_MAP.containsKey(content)) {
+            printContentOptions();
+            throw new IllegalArgumentException("Unknown content option: `" + content + "`.");
+        }
+        final ContentOption contentOption = CONTENT_OPTION_MAP.get(content);
+        final File rootFolder = new File(contentOption.rootFolderName);
+        if (!rootFolder.exists()) {
+            throw new RuntimeException("Root directory does not exist: `" + rootFolder.getPath() + "`.");
+        }
+        // Get the `connections` argument.
+        final int connections;
+        if (args.length > 2) {
+            connections = Integer.parseInt(args[2]);
+        } else {
+            connections = DEFAULT_AUDIO_CONNECTIONS;
+        }
+        System.out.println("Downloading audio: " + contentOption.description);
+        System.out.println("In directory: " + rootFolder.getPath());
+        System.out.println("Using connections: " + connections);
+        // Audio files are large, so each connection is allowed its own request, but requests still start gradually.
+        final HostScheduler.Limits limits = new HostScheduler.Limits(AUDIO_REQUESTS_PER_SECOND, connections, connections, AUDIO_SLOW_MILLIS);
+        new AudioDownloader(connections, new HostScheduler(limits)).downloadAll(rootFolder);
         System.out.println("Complete.");
     }
 
@@ -62,51 +285,70 @@ public final class Scrape {
         final String name;
         final String description;
         final String rootFolderName;
+        /**
+         * Of requests to each host of the site.
+         */
+        final HostScheduler.Limits limits;
+        /**
+         * Of each browser, unless another is given with `--profile`.
+         */
+        final DriverProfile profile;
 
-        ContentOption(String arg, String description, String rootFolderName) {
+        ContentOption(String arg, String description, String rootFolderName, HostScheduler.Limits limits,
+                      DriverProfile profile) {
             this.name = arg;
             this.description = description;
             this.rootFolderName = rootFolderName;
+            this.limits = limits;
+            this.profile = profile;
         }
 
-        abstract Scraper newInstance(WebDriver driver);
+        abstract Scraper newInstance(DriverPool driverPool);
     }
 
     private static final ContentOption[] CONTENT_OPTIONS = {
-            new ContentOption("byu", "BYU Speeches", Folders.SPEECHES_BYU) {
+            // Plain HTML pages, which are quick to serve, and need nothing but their text.
+            new ContentOption("byu", "BYU Speeches", Folders.SPEECHES_BYU,
+                    new HostScheduler.Limits(2.0, 4, 4, 10000L), DriverProfile.LEAN) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new ByuSpeechesScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new ByuSpeechesScraper(driverPool);
                 }
             },
-            new ContentOption("byuh", "BYU-Hawai'i Speeches", Folders.SPEECHES_BYUH) {
+            new ContentOption("byuh", "BYU-Hawai'i Speeches", Folders.SPEECHES_BYUH,
+                    new HostScheduler.Limits(1.0, 2, 2, 10000L), DriverProfile.LEAN) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new ByuhSpeechesScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new ByuhSpeechesScraper(driverPool);
                 }
             },
-            new ContentOption("byui", "BYU-Idaho Speeches", Folders.SPEECHES_BYUI) {
+            new ContentOption("byui", "BYU-Idaho Speeches", Folders.SPEECHES_BYUI,
+                    new HostScheduler.Limits(1.0, 2, 2, 10000L), DriverProfile.LEAN) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new ByuiSpeechesScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new ByuiSpeechesScraper(driverPool);
                 }
             },
-            new ContentOption("xmas", "Christmas Devotionals", Folders.SPEECHES_CHRISTMAS_DEVOTIONALS) {
+            // Pages rendered by scripts, each of which makes many requests of its own, and may wait on their images.
+            new ContentOption("xmas", "Christmas Devotionals", Folders.SPEECHES_CHRISTMAS_DEVOTIONALS,
+                    new HostScheduler.Limits(0.5, 2, 2, 20000L), DriverProfile.HEADLESS) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new ChristmasDevotionalsScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new ChristmasDevotionalsScraper(driverPool);
                 }
             },
-            new ContentOption("gc", "General Conference Talks", Folders.SPEECHES_GENERAL_CONFERENCE) {
+            new ContentOption("gc", "General Conference Talks", Folders.SPEECHES_GENERAL_CONFERENCE,
+                    new HostScheduler.Limits(0.5, 2, 2, 20000L), DriverProfile.HEADLESS) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new GeneralConferenceScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new GeneralConferenceScraper(driverPool);
                 }
             },
-            new ContentOption("jtc", "Jesus the Christ - Talmage", Folders.BOOKS_JESUS_THE_CHRIST) {
+            new ContentOption("jtc", "Jesus the Christ - Talmage", Folders.BOOKS_JESUS_THE_CHRIST,
+                    new HostScheduler.Limits(0.5, 2, 2, 20000L), DriverProfile.HEADLESS) {
                 @Override
-                Scraper newInstance(WebDriver driver) {
-                    return new JesusTheChristScraper(driver);
+                Scraper newInstance(DriverPool driverPool) {
+                    return new JesusTheChristScraper(driverPool);
                 }
             }
     };
@@ -136,20 +378,27 @@ public final class Scrape {
             this.systemKey = systemKey;
         }
 
-        abstract WebDriver newInstance();
+        /**
+         * @param profile Of the browser.
+         * @param profileFolder In which the browser keeps its profile, or `null` for a temporary profile.
+         * @return The new browser.
+         */
+        abstract WebDriver newInstance(DriverProfile profile, File profileFolder);
     }
 
     private static final DriverOption[] DRIVER_OPTIONS = {
             new DriverOption("chrome", "Google Chrome", "webdriver.chrome.driver") {
                 @Override
-                WebDriver newInstance() {
-                    return new ChromeDriver();
+                WebDriver newInstance(DriverProfile profile, File profileFolder) {
+                    final Capabilities capabilities = profile.toChromeCapabilities(profileFolder);
+                    return new ChromeDriver(capabilities);
                 }
             },
             new DriverOption("firefox", "Mozilla Firefox", "webdriver.gecko.driver") {
                 @Override
-                WebDriver newInstance() {
-                    return new FirefoxDriver();
+                WebDriver newInstance(DriverProfile profile, File profileFolder) {
+                    final Capabilities capabilities = profile.toFirefoxCapabilities(profileFolder);
+                    return new FirefoxDriver(capabilities);
                 }
             }
     };
@@ -161,6 +410,13 @@ public final class Scrape {
         }
     }
 
+    private static void printDriverProfiles() {
+        System.out.println("Driver profiles (for the " + OPTION_PREFIX + PROFILE + " option):");
+        for (DriverProfile profile : DriverProfile.PROFILES) {
+            System.out.println(profile.getName() + " -> " + profile.getDescription());
+        }
+    }
+
     private static void printDriverOptions() {
         System.out.println("Driver options (for the <driver-name> argument):");
         for (DriverOption driverOption : DRIVER_OPTIONS) {
@@ -0,0 +1,212 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Content-addressed storage of the page sources of talks, shared by every folder (year, conference) of a root folder.
+ *
+ * Each source is kept once, under the SHA-256 hash of its content, in `sources/<first two hex digits>/<hash>.z`.
+ * A page which is saved again with the same content (by a forced or incremental crawl) isn't written again.
+ *
+ * Sources are compressed with a preset dictionary: the end of the first page that was stored. Pages of the same site
+ * share most of their markup (navigation, scripts, styles), so even a short shared dictionary saves a good deal.
+ * Each object is a zlib stream, which records the checksum of the dictionary that it needs.
+ */
+public class SourceStore {
+
+    public static final String FOLDER_NAME = "sources";
+
+    private static final String OBJECT_SUFFIX = ".z";
+    private static final String DICTIONARY_FILE_NAME = "dictionary";
+    /**
+     * The most bytes of a dictionary which deflate can refer to.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int KEY_LENGTH = 64;
+
+    /**
+     * @param s A value, such as from the `source` column of a table.
+     * @return Whether the value is a key of this store, rather than (say) the name of a source file.
+     */
+    public static boolean isKey(String s) {
+        if (s == null || s.length() != KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param source Of a page.
+     * @return The key under which the source is (or would be) stored.
+     */
+    public static String getKey(String source) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to hash content.", e);
+        }
+        final StringBuilder sb = new StringBuilder(KEY_LENGTH);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private final File folder;
+    private volatile byte[] dictionary = null;
+
+    /**
+     * @param folder Of the store, which is created when the first source is written.
+     */
+    public SourceStore(File folder) {
+        this.folder = folder;
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+
+    /**
+     * @param key Of a source.
+     * @return Whether the source is stored.
+     */
+    public boolean contains(String key) {
+        return isKey(key) && getObjectFile(key).exists();
+    }
+
+    /**
+     * Store a source, unless it is already stored.
+     * @param source Of a page.
+     * @return The key of the source.
+     * @throws IOException When the source can't be written.
+     */
+    public String write(String source) throws IOException {
+        final String key = getKey(source);
+        final File objectFile = getObjectFile(key);
+        if (objectFile.exists()) {
+            return key;
+        }
+        final File parent = objectFile.getParentFile();
+        if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+            throw new IOException("Unable to create folder: `" + parent.getPath() + "`.");
+        }
+        final byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = deflate(bytes, getOrCreateDictionary(bytes));
+        // Write beside the object, so that it is never seen half-written. Another thread may be storing the same page.
+        final File partFile = File.createTempFile(key, ".part", parent);
+        try {
+            Files.write(partFile.toPath(), compressed);
+            Files.move(partFile.toPath(), objectFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partFile.toPath());
+        }
+        return key;
+    }
+
+    /**
+     * @param key Of a source.
+     * @return The source.
+     * @throws IOException When the source isn't stored or can't be read.
+     */
+    public String read(String key) throws IOException {
+        if (!isKey(key)) {
+            throw new IllegalArgumentException("Not a source key: `" + key + "`.");
+        }
+        final File objectFile = getObjectFile(key);
+        if (!objectFile.exists()) {
+            throw new FileNotFoundException("Missing source: `" + objectFile.getPath() + "`.");
+        }
+        final byte[] compressed = Files.readAllBytes(objectFile.toPath());
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            final byte[] buffer = new byte[1 << 16];
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(readDictionary());
+                    } else if (inflater.needsInput()) {
+                        throw new IOException("Truncated source: `" + objectFile.getPath() + "`.");
+                    }
+                }
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException("Corrupt source: `" + objectFile.getPath() + "`.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private File getObjectFile(String key) {
+        return new File(new File(folder, key.substring(0, 2)), key + OBJECT_SUFFIX);
+    }
+
+    /**
+     * @param first The first source to be stored, from which the dictionary is taken if there isn't one yet.
+     */
+    private synchronized byte[] getOrCreateDictionary(byte[] first) throws IOException {
+        if (dictionary != null) {
+            return dictionary;
+        }
+        final File dictionaryFile = new File(folder, DICTIONARY_FILE_NAME);
+        if (!dictionaryFile.exists()) {
+            final byte[] bytes = Arrays.copyOfRange(first, Math.max(0, first.length - DICTIONARY_SIZE), first.length);
+            final File partFile = new File(folder, DICTIONARY_FILE_NAME + ".part");
+            Files.write(partFile.toPath(), bytes);
+            Files.move(partFile.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        dictionary = Files.readAllBytes(dictionaryFile.toPath());
+        return dictionary;
+    }
+
+    private byte[] readDictionary() throws IOException {
+        if (dictionary == null) {
+            final File dictionaryFile = new File(folder, DICTIONARY_FILE_NAME);
+            if (!dictionaryFile.exists()) {
+                throw new FileNotFoundException("Missing source dictionary: `" + dictionaryFile.getPath() + "`.");
+            }
+            dictionary = Files.readAllBytes(dictionaryFile.toPath());
+        }
+        return dictionary;
+    }
+
+    private static byte[] deflate(byte[] bytes, byte[] dictionary) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(bytes);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            final byte[] buffer = new byte[1 << 16];
+            while (!deflater.finished()) {
+                final int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A driver which fetches pages over plain HTTP and parses them without a browser.
+ * No JavaScript is run, so this should only be used for pages whose content is in the HTML itself.
+ * Local `file:` URLs (such as saved page sources) are also supported.
+ */
+public class StaticDriver implements WebDriver {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; Podium)";
+    private static final int TIMEOUT_MILLIS = 30000;
+    private static final String WINDOW_HANDLE = "static";
+
+    private String currentUrl = null;
+    private Document document = null;
+    private String source = null;
+
+    public StaticDriver() {
+    }
+
+    @Override
+    public void get(String url) {
+        try {
+            if (url.startsWith("file:")) {
+                final File file = new File(new URL(url).toURI());
+                document = Jsoup.parse(file, null, url);
+                source = document.outerHtml();
+                currentUrl = url;
+            } else {
+                final Connection.Response response = Jsoup.connect(url)
+                        .userAgent(USER_AGENT)
+                        .timeout(TIMEOUT_MILLIS)
+                        .maxBodySize(0)
+                        .execute();
+                source = response.body();
+                document = response.parse();
+                currentUrl = response.url().toString();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to fetch static page: `" + url + "`.", e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Malformed file URL: `" + url + "`.", e);
+        }
+        // Keep `innerHTML` on one line, as a browser would.
+        document.outputSettings().prettyPrint(false);
+    }
+
+    /**
+     * Load a page whose source is already in memory, such as one read from a {@link SourceStore}.
+     * @param html Source of the page.
+     * @param url Of the page, against which links are resolved.
+     */
+    public void load(String html, String url) {
+        document = Jsoup.parse(html, url);
+        document.outputSettings().prettyPrint(false);
+        source = html;
+        currentUrl = url;
+    }
+
+    /**
+     * Copy an element of a page which was loaded in a browser, so that it can be read in memory.
+     * Reading a large element (such as a transcript) this way takes one round trip to the driver, rather than one for
+     * every child element and attribute.
+     * @param element To copy.
+     * @param baseUrl Of the page, against which links are resolved.
+     * @return A read-only copy of the element, or the element itself if it was already loaded without a browser.
+     */
+    public static WebElement snapshot(WebElement element, String baseUrl) {
+        if (element instanceof StaticElement) {
+            return element;
+        }
+        final String html = element.getAttribute("outerHTML");
+        final Document document = Jsoup.parseBodyFragment(html, baseUrl);
+        document.outputSettings().prettyPrint(false);
+        final Element body = document.body();
+        if (body.children().size() != 1) {
+            throw new IllegalArgumentException("Unable to copy element: `" + element.getTagName() + "`.");
+        }
+        return new StaticElement(body.child(0));
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        return getDocument().title();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return new StaticElement(getDocument()).findElements(by);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return new StaticElement(getDocument()).findElement(by);
+    }
+
+    @Override
+    public String getPageSource() {
+        getDocument();
+        return source;
+    }
+
+    private Document getDocument() {
+        if (document == null) {
+            throw new IllegalStateException("No page has been loaded.");
+        }
+        return document;
+    }
+
+    @Override
+    public void close() {
+        currentUrl = null;
+        document = null;
+        source = null;
+    }
+
+    @Override
+    public void quit() {
+        close();
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Collections.singleton(WINDOW_HANDLE);
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return WINDOW_HANDLE;
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("Static pages have no frames or windows.");
+    }
+
+    @Override
+    public Navigation navigate() {
+        return new Navigation() {
+            @Override
+            public void back() {
+                throw new UnsupportedOperationException("Static pages have no history.");
+            }
+
+            @Override
+            public void forward() {
+                throw new UnsupportedOperationException("Static pages have no history.");
+            }
+
+            @Override
+            public void to(String url) {
+                get(url);
+            }
+
+            @Override
+            public void to(URL url) {
+                get(url.toString());
+            }
+
+            @Override
+            public void refresh() {
+                get(currentUrl);
+            }
+        };
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException("Static pages have no options.");
+    }
+}
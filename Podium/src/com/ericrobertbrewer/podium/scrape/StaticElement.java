@@ -0,0 +1,220 @@
+package com.ericrobertbrewer.podium.scrape;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.openqa.selenium.*;
+import org.openqa.selenium.internal.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only element of a page which has been parsed without a browser.
+ * Selenium's `By` locators find elements within this one through the `FindsBy*` interfaces.
+ * Only the child selector `./*` is supported by XPath.
+ * CSS selectors are parsed once and kept, since scrapers use the same few selectors on every page.
+ */
+class StaticElement implements WebElement, FindsById, FindsByClassName, FindsByTagName, FindsByXPath, FindsByCssSelector {
+
+    private static final String XPATH_CHILDREN = "./*";
+    /**
+     * The most selectors to keep, in case a scraper builds them from the content of its pages.
+     */
+    private static final int MAX_EVALUATORS = 1024;
+    private static final Map<String, Evaluator> EVALUATORS = new ConcurrentHashMap<>();
+
+    private final Element element;
+
+    StaticElement(Element element) {
+        this.element = element;
+    }
+
+    @Override
+    public String getTagName() {
+        return element.tagName();
+    }
+
+    /**
+     * Mimic the attributes (and properties) that a browser would return.
+     * @param name Of the attribute.
+     * @return The value, or `null` if the element does not have the attribute.
+     */
+    @Override
+    public String getAttribute(String name) {
+        if ("innerHTML".equals(name)) {
+            return element.html();
+        } else if ("outerHTML".equals(name)) {
+            return element.outerHtml();
+        } else if ("textContent".equals(name)) {
+            return element.wholeText();
+        }
+        if (!element.hasAttr(name)) {
+            return null;
+        }
+        if ("href".equals(name) || "src".equals(name)) {
+            // Like a browser, resolve links relative to the page.
+            return element.absUrl(name);
+        }
+        return element.attr(name);
+    }
+
+    @Override
+    public String getText() {
+        return element.text();
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        // Style sheets are not applied.
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !element.hasAttr("disabled");
+    }
+
+    @Override
+    public boolean isSelected() {
+        return element.hasAttr("selected") || element.hasAttr("checked");
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return by.findElements(this);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return first(findElements(by), by.toString());
+    }
+
+    @Override
+    public WebElement findElementById(String id) {
+        return first(findElementsById(id), "id: " + id);
+    }
+
+    @Override
+    public List<WebElement> findElementsById(String id) {
+        return wrapDescendants(element.getElementsByAttributeValue("id", id));
+    }
+
+    @Override
+    public WebElement findElementByClassName(String className) {
+        return first(findElementsByClassName(className), "class name: " + className);
+    }
+
+    @Override
+    public List<WebElement> findElementsByClassName(String className) {
+        return wrapDescendants(element.getElementsByClass(className));
+    }
+
+    @Override
+    public WebElement findElementByTagName(String tagName) {
+        return first(findElementsByTagName(tagName), "tag name: " + tagName);
+    }
+
+    @Override
+    public List<WebElement> findElementsByTagName(String tagName) {
+        return wrapDescendants(element.getElementsByTag(tagName));
+    }
+
+    @Override
+    public WebElement findElementByXPath(String xpath) {
+        return first(findElementsByXPath(xpath), "xpath: " + xpath);
+    }
+
+    @Override
+    public List<WebElement> findElementsByXPath(String xpath) {
+        if (!XPATH_CHILDREN.equals(xpath)) {
+            throw new UnsupportedOperationException("Unsupported XPath in static page: `" + xpath + "`.");
+        }
+        return wrapDescendants(element.children());
+    }
+
+    @Override
+    public WebElement findElementByCssSelector(String selector) {
+        return first(findElementsByCssSelector(selector), "css selector: " + selector);
+    }
+
+    @Override
+    public List<WebElement> findElementsByCssSelector(String selector) {
+        return wrapDescendants(Collector.collect(getEvaluator(selector), element));
+    }
+
+    /**
+     * @param selector CSS selector.
+     * @return The selector, parsed.
+     */
+    private static Evaluator getEvaluator(String selector) {
+        final Evaluator evaluator = EVALUATORS.get(selector);
+        if (evaluator != null) {
+            return evaluator;
+        }
+        final Evaluator parsed = QueryParser.parse(selector);
+        if (EVALUATORS.size() < MAX_EVALUATORS) {
+            EVALUATORS.put(selector, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Jsoup includes the element itself in its searches; Selenium only searches below it.
+     */
+    private List<WebElement> wrapDescendants(Elements elements) {
+        final List<WebElement> wrapped = new ArrayList<>(elements.size());
+        for (Element e : elements) {
+            if (e != element) {
+                wrapped.add(new StaticElement(e));
+            }
+        }
+        return wrapped;
+    }
+
+    private static WebElement first(List<WebElement> elements, String description) {
+        if (elements.isEmpty()) {
+            throw new NoSuchElementException("Unable to locate element in static page: `" + description + "`.");
+        }
+        return elements.get(0);
+    }
+
+    @Override
+    public void click() {
+        throw new UnsupportedOperationException("Static pages cannot be clicked.");
+    }
+
+    @Override
+    public void submit() {
+        throw new UnsupportedOperationException("Static pages cannot be submitted.");
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        throw new UnsupportedOperationException("Static pages cannot be typed into.");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Static pages cannot be cleared.");
+    }
+
+    @Override
+    public Point getLocation() {
+        return new Point(0, 0);
+    }
+
+    @Override
+    public Dimension getSize() {
+        return new Dimension(0, 0);
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return "";
+    }
+}
@@ -0,0 +1,121 @@
+package com.ericrobertbrewer.podium.scrape;
+
+/**
+ * Rows of the TSV files which are written by the scrapers (summaries, programs, notes, references).
+ *
+ * A field may itself contain a tab or a line break, such as a title or a note copied from a page. These are written as
+ * `\t`, `\n`, and `\r` (and a backslash as `\\`), so that every row is exactly one line with one field per column.
+ */
+public final class Tsv {
+
+    /**
+     * @param field Which may contain tabs or line breaks.
+     * @return The field, escaped.
+     */
+    public static String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+        int i = 0;
+        while (i < field.length() && !needsEscape(field.charAt(i))) {
+            i++;
+        }
+        if (i == field.length()) {
+            return field;
+        }
+        final StringBuilder sb = new StringBuilder(field.length() + 8);
+        sb.append(field, 0, i);
+        for (; i < field.length(); i++) {
+            final char c = field.charAt(i);
+            switch (c) {
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '\t' || c == '\n' || c == '\r' || c == '\\';
+    }
+
+    /**
+     * @param field As written by {@link #escape(String)}.
+     * @return The original field. A backslash which doesn't begin an escape is kept as it is.
+     */
+    public static String unescape(String field) {
+        final int first = field.indexOf('\\');
+        if (first == -1) {
+            return field;
+        }
+        final StringBuilder sb = new StringBuilder(field.length());
+        sb.append(field, 0, first);
+        for (int i = first; i < field.length(); i++) {
+            final char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                final char next = field.charAt(i + 1);
+                if (next == 't') {
+                    sb.append('\t');
+                    i++;
+                    continue;
+                } else if (next == 'n') {
+                    sb.append('\n');
+                    i++;
+                    continue;
+                } else if (next == 'r') {
+                    sb.append('\r');
+                    i++;
+                    continue;
+                } else if (next == '\\') {
+                    sb.append('\\');
+                    i++;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param fields Of a row.
+     * @return The row, without a trailing line separator.
+     */
+    public static String join(String... fields) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            sb.append(escape(fields[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param line A row, as written by {@link #join(String...)}.
+     * @return Its fields, unescaped. Empty fields (including trailing ones) are kept.
+     */
+    public static String[] split(String line) {
+        final String[] fields = line.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private Tsv() {
+    }
+}
@@ -1,28 +1,49 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 import com.ericrobertbrewer.podium.scrape.DriverUtils;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+import com.ericrobertbrewer.podium.scrape.Tsv;
 import com.ericrobertbrewer.podium.Encoding;
-import org.apache.commons.io.FileUtils;
+import com.ericrobertbrewer.podium.Transcoder;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ByuSpeechesScraper extends Scraper {
 
-    public ByuSpeechesScraper(WebDriver driver) {
-        super(driver);
+    private static final String SUMMARY_FILE_NAME = "summary.tsv";
+    /**
+     * The longest time to wait for every talk of a year to load while scrolling.
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 30000L;
+    private static final String TALK_ITEMS_SELECTOR = "#speech-date-archive-listing__talks-list li";
+    private static final By TALK_ITEMS = By.cssSelector(TALK_ITEMS_SELECTOR);
+    /**
+     * Reads every talk of a year in one pass.
+     */
+    private static final BatchExtractor TALK_ITEMS_EXTRACTOR = new BatchExtractor(TALK_ITEMS_SELECTOR,
+            BatchExtractor.Field.attribute("url", ".image-excerpt-media-listing-block__title a", "href"),
+            BatchExtractor.Field.text("title", ".image-excerpt-media-listing-block__title a"),
+            BatchExtractor.Field.text("speaker", ".image-excerpt-media-listing-block__byline .image-excerpt-media-listing-block__speaker"),
+            BatchExtractor.Field.text("date", ".image-excerpt-media-listing-block__byline .image-excerpt-media-listing-block__date"));
+
+    public ByuSpeechesScraper(DriverPool driverPool) {
+        super(driverPool);
     }
 
     public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to("https://speeches.byu.edu/talks/");
+        navigateTo("https://speeches.byu.edu/talks/");
         // Write the page source.
         final String sourceFileName = "root.html";
         try {
-            writeSource(rootFolder, sourceFileName, force);
+            writeSource(rootFolder, sourceFileName, force || isIncremental());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -33,97 +54,96 @@ public class ByuSpeechesScraper extends Scraper {
         for (WebElement yearOption : yearOptions) {
             years.add(yearOption.getAttribute("value").trim());
         }
+        getProgress().addFolders(years.size());
+        final List<CompletableFuture<Void>> yearSummaries = new ArrayList<>();
         for (String year : years) {
-            try {
-                scrapeYear(rootFolder, year, force);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            yearSummaries.add(superviseFolder(year, "https://speeches.byu.edu/talks/" + year + "/", () ->
+                    scrapeYear(rootFolder, year, force)));
         }
+        awaitAll(yearSummaries);
     }
 
-    private void scrapeYear(File rootFolder, String year, boolean force) throws IOException {
+    private CompletableFuture<Void> scrapeYear(File rootFolder, String year, boolean force) throws IOException {
         // Create the year folder.
         final File folder = new File(rootFolder, year);
-        if (folder.exists()) {
-            if (force) {
-                FileUtils.deleteDirectory(folder);
-            } else {
-                return;
-            }
-        }
-        if (!folder.mkdirs()) {
-            throw new RuntimeException("Unable to create year folder: `" + folder.getPath() + "`.");
+        if (!prepareFolder(folder, force)) {
+            return CompletableFuture.completedFuture(null);
         }
         // Navigate to the URL, if necessary.
         final String url = "https://speeches.byu.edu/talks/" + year + "/";
         if (!url.equals(getDriver().getCurrentUrl())) {
-            getDriver().navigate().to(url);
+            navigateTo(url);
         }
         System.out.println("Starting year `" + year + "`.");
-        // Scroll down a few times, each time waiting for a tenth of a second, then wait again.
-        // This tends to help load all of the talks.
-        DriverUtils.scrollDown(getDriver(), 25, 100L);
-        try {
-            Thread.sleep(3000L);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        // Keep scrolling to the bottom until no more talks load.
+        DriverUtils.scrollUntilStable(getDriver(), "byu year talks", WAIT_TIMEOUT_MILLIS, TALK_ITEMS, 1000L);
         // Write the page source for this year.
         final String sourceFileName = "year.html";
-        writeSource(folder, sourceFileName, force);
-        // Create the summary file. Write the column headers.
-        final File summaryFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(folder, "summary.tsv");
-        final OutputStream summaryOutputStream = new FileOutputStream(summaryFile);
-        final PrintStream summaryOut = new PrintStream(summaryOutputStream);
-        summaryOut.println("title\tspeaker\tposition\tdate\ttype\ttopics\ttext\tnotes\turl\tsource");
+        writeSource(folder, sourceFileName, force || isIncremental());
         // Extract talk urls, titles, speakers, dates if available.
         final List<String> talkUrls = new ArrayList<>();
         final List<String> titles = new ArrayList<>();
         final List<String> speakers = new ArrayList<>();
         final List<String> dates = new ArrayList<>();
-        final WebElement listDiv = getDriver().findElement(By.id("speech-date-archive-listing__talks-list"));
-        final List<WebElement> listItems = listDiv.findElements(By.tagName("li"));
-        for (WebElement listItem : listItems) {
-            final WebElement rightDiv = listItem.findElement(By.className("image-excerpt-media-listing-block__right"));
-            // Extract URL and title.
-            final WebElement titleH2 = rightDiv.findElement(By.className("image-excerpt-media-listing-block__title"));
-            final WebElement talkA = titleH2.findElement(By.tagName("a"));
-            final String talkUrl = talkA.getAttribute("href");
-            talkUrls.add(talkUrl);
-            final String title = talkA.getText().trim();
-            titles.add(title);
-            // Extract speaker and date.
-            final WebElement bylineSpan = rightDiv.findElement(By.className("image-excerpt-media-listing-block__byline"));
-            final String speaker = DriverUtils.getTextOrEmpty(bylineSpan, By.className("image-excerpt-media-listing-block__speaker")).trim();
-            speakers.add(speaker);
-            final String date = DriverUtils.getTextOrEmpty(bylineSpan, By.className("image-excerpt-media-listing-block__date")).trim();
-            dates.add(date);
+        for (Map<String, String> talkItem : TALK_ITEMS_EXTRACTOR.extract(getDriver())) {
+            talkUrls.add(talkItem.get("url"));
+            titles.add(talkItem.get("title"));
+            speakers.add(talkItem.get("speaker"));
+            dates.add(talkItem.get("date"));
         }
+        // Queue each speech. The summary is written once all of them are complete.
+        final List<CompletableFuture<String>> summaryRows = new ArrayList<>();
         for (int i = 0; i < talkUrls.size(); i++) {
             final String talkUrl = talkUrls.get(i);
             final String title = titles.get(i);
             final String speaker = speakers.get(i);
             final String date = dates.get(i);
-            scrapeSpeech(folder, talkUrl, title, speaker, date, summaryOut);
+            summaryRows.add(submitTalk(folder, getFileNameBase(talkUrl), talkUrl, Fetch.STATIC, () ->
+                    scrapeSpeech(folder, talkUrl, title, speaker, date)));
         }
-        summaryOut.close();
-        summaryOutputStream.close();
+        return writeRowsWhenComplete(folder, SUMMARY_FILE_NAME,
+                "title\tspeaker\tposition\tdate\ttype\ttopics\ttext\tnotes\turl\tsource", summaryRows);
     }
 
-    private void scrapeSpeech(File folder, String url, String title, String speaker, String date, PrintStream summaryOut) {
-        // Navigate to this talk, if needed.
-        if (!getDriver().getCurrentUrl().equals(url)) {
-            getDriver().navigate().to(url);
-        }
+    /**
+     * Scrape a single speech on the driver of the current thread.
+     * @return The row of this speech in the summary.
+     */
+    private String scrapeSpeech(File folder, String url, String title, String speaker, String date) {
+        // Fetch this talk. Speech pages are rendered on the server, so a browser isn't necessary.
+        navigateTo(url, Fetch.STATIC);
         System.out.println("Starting speech `" + title + "`.");
         final String fileNameBase = getFileNameBase(url);
-        final String sourceFileName = fileNameBase + ".html";
+        String source = "";
         try {
-            writeSource(folder, sourceFileName);
+            source = saveSource(folder, fileNameBase);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return parseSpeech(folder, url, title, speaker, date, source);
+    }
+
+    @Override
+    protected String getTableFileName() {
+        return SUMMARY_FILE_NAME;
+    }
+
+    @Override
+    protected String reparseRow(File folder, Map<String, String> row) throws IOException {
+        return parseSpeech(folder, row.get("url"), row.get("title"), row.get("speaker"), row.get("date"), row.get("source"));
+    }
+
+    @Override
+    protected String getFileNameBase(Map<String, String> row) {
+        return getFileNameBase(row.get("url"));
+    }
+
+    /**
+     * Write the speech and notes from the page which has been loaded on the current thread.
+     * @return The row of this speech in the summary.
+     */
+    private String parseSpeech(File folder, String url, String title, String speaker, String date, String source) {
+        final String fileNameBase = getFileNameBase(url);
         final String position;
         final String type;
         final String topics;
@@ -163,11 +183,8 @@ public class ByuSpeechesScraper extends Scraper {
             fileName = "";
             notesFileName = "";
         }
-        // Write to summary file.
-        summaryOut.print(title + "\t" + speaker + "\t" + position + "\t" + date + "\t" + type + "\t" + topics);
-        summaryOut.print("\t" + fileName + "\t" + notesFileName);
-        summaryOut.print("\t" + url + "\t" + sourceFileName);
-        summaryOut.println();
+        // Return the row for the summary file.
+        return Tsv.join(title, speaker, position, date, type, topics, fileName, notesFileName, url, source);
     }
 
     private String getTopicsAndWriteSpeechAndNotes(WebElement bodyDiv, File folder, String fileName, String notesFileName) {
@@ -190,120 +207,117 @@ public class ByuSpeechesScraper extends Scraper {
      */
     @SuppressWarnings("StringConcatenationInLoop")
     private String writeSpeechAndNotes(WebElement bodyDiv, File folder, String fileName, String notesFileName) throws IOException {
-        // Create the speech file.
-        final File file = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(folder, fileName);
-        final OutputStream outputStream = new FileOutputStream(file);
-        final PrintStream out = new PrintStream(outputStream);
-        // Create the notes file.
-        final File notesFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(folder, notesFileName);
-        final OutputStream notesOutputStream = new FileOutputStream(notesFile);
-        final PrintStream notesOut = new PrintStream(notesOutputStream);
-        notesOut.println("id\tnote");
-        // Start reading the speech and notes on the page.
-        String topics = "";
-        int notesCount = 0;
-        boolean hasReachedNotes = false;
-        // Get every top-level child of the body `div`.
-        final List<WebElement> children = bodyDiv.findElements(By.xpath("./*"));
-        for (WebElement child : children) {
-            final String tagName = child.getTagName();
-            final String text = child.getText().trim();
-            final String className = child.getAttribute("class");
-            if ("p".equals(tagName)) {
-                // Check whether we have reached the notes section.
-                if (!hasReachedNotes && "NOTES:".equals(text)) {
-                    hasReachedNotes = true;
-                    continue;
-                }
-                final String pHtml = child.getAttribute("innerHTML");
-                if (!hasReachedNotes) {
-                    final String pText = encode(pHtml);
-                    out.println(pText);
-                } else {
-                    // Determine whether or not this is a new note.
-                    final int dotSpaceIndex = pHtml.indexOf(". ");
-                    if (dotSpaceIndex != -1) {
-                        try {
-                            final int noteId = Integer.parseInt(pHtml.substring(0, dotSpaceIndex));
-                            // At this point, we know that are reading a new note.
-                            // Close the previously-written note [line] in the file, if one exists.
-                            if (noteId > 1) {
-                                notesOut.println();
+        // Create the speech and notes files.
+        try (OutputFile out = OutputFile.create(folder, fileName);
+             OutputFile notesOut = OutputFile.create(folder, notesFileName)) {
+            notesOut.printRow("id", "note");
+            // Start reading the speech and notes on the page.
+            String topics = "";
+            int notesCount = 0;
+            boolean hasReachedNotes = false;
+            // Get every top-level child of the body `div`.
+            final List<WebElement> children = bodyDiv.findElements(By.xpath("./*"));
+            for (WebElement child : children) {
+                final String tagName = child.getTagName();
+                final String text = child.getText().trim();
+                final String className = child.getAttribute("class");
+                if ("p".equals(tagName)) {
+                    // Check whether we have reached the notes section.
+                    if (!hasReachedNotes && "NOTES:".equals(text)) {
+                        hasReachedNotes = true;
+                        continue;
+                    }
+                    final String pHtml = child.getAttribute("innerHTML");
+                    if (!hasReachedNotes) {
+                        final String pText = encode(pHtml);
+                        out.println(pText);
+                    } else {
+                        // Determine whether or not this is a new note.
+                        final int dotSpaceIndex = pHtml.indexOf(". ");
+                        if (dotSpaceIndex != -1) {
+                            try {
+                                final int noteId = Integer.parseInt(pHtml.substring(0, dotSpaceIndex));
+                                // At this point, we know that are reading a new note.
+                                // Close the previously-written note [line] in the file, if one exists.
+                                if (noteId > 1) {
+                                    notesOut.println();
+                                }
+                                // Start writing the current note [line] in the file.
+                                notesOut.print("" + noteId + "\t");
+                                // Update the notes count.
+                                notesCount = noteId;
+                            } catch (NumberFormatException e) {
+                                // The same note is broken up into multiple `p`s.
+                                notesOut.print("||" + Tsv.escape(pHtml));
                             }
-                            // Start writing the current note [line] in the file.
-                            notesOut.print("" + noteId + "\t");
-                            // Update the notes count.
-                            notesCount = noteId;
-                        } catch (NumberFormatException e) {
+                        } else {
+                            // A `. ` pattern did not appear at all.
                             // The same note is broken up into multiple `p`s.
-                            notesOut.print("||" + pHtml);
+                            notesOut.print("||" + Tsv.escape(pHtml));
                         }
-                    } else {
-                        // A `. ` pattern did not appear at all.
-                        // The same note is broken up into multiple `p`s.
-                        notesOut.print("||" + pHtml);
                     }
-                }
-            } else if ("h2".equals(tagName) || "h3".equals(tagName)) {
-                assert !hasReachedNotes;
-                final String hHtml = child.getAttribute("innerHTML");
-                final String hText = encode(hHtml);
-                out.println(Encoding.HEADER_START + hText + Encoding.HEADER_END);
-            } else if ("div".equals(tagName)) {
-                // A `div` is usually a related topics/talks sections.
-                if ("related_topics_and_talks".equals(className)) {
-                    final WebElement relatedTopicsDiv = DriverUtils.findElementOrNull(child, By.className("related_topics_wrapper"));
-                    if (relatedTopicsDiv != null) {
-                        final List<WebElement> as = relatedTopicsDiv.findElements(By.tagName("a"));
-                        for (WebElement a : as) {
-                            final String aText = a.getText().trim();
-                            if (topics.length() > 0) {
-                                topics += ",";
+                } else if ("h2".equals(tagName) || "h3".equals(tagName)) {
+                    assert !hasReachedNotes;
+                    final String hHtml = child.getAttribute("innerHTML");
+                    final String hText = encode(hHtml);
+                    out.println(Encoding.HEADER_START + hText + Encoding.HEADER_END);
+                } else if ("div".equals(tagName)) {
+                    // A `div` is usually a related topics/talks sections.
+                    if ("related_topics_and_talks".equals(className)) {
+                        final WebElement relatedTopicsDiv = DriverUtils.findElementOrNull(child, By.className("related_topics_wrapper"));
+                        if (relatedTopicsDiv != null) {
+                            final List<WebElement> as = relatedTopicsDiv.findElements(By.tagName("a"));
+                            for (WebElement a : as) {
+                                final String aText = a.getText().trim();
+                                if (topics.length() > 0) {
+                                    topics += ",";
+                                }
+                                topics += aText;
                             }
-                            topics += aText;
                         }
                     }
+                } else if ("ul".equals(tagName) || "ol".equals(tagName)) {
+                    final List<WebElement> lis = child.findElements(By.tagName("li"));
+                    for (WebElement li : lis) {
+                        final String liHtml = li.getAttribute("innerHTML");
+                        final String liText = encode(liHtml);
+                        out.println(liText);
+                    }
+                } else if ("i".equals(tagName)) {
+                    // For example, `https://speeches.byu.edu/talks/dilworth-b-parkinson_received-need/`.
+                    final String iHtml = child.getAttribute("innerHTML");
+                    final String iText = encode(iHtml);
+                    if (iText.length() > 0) {
+                        out.println(iText);
+                    }
+                } else {
+                    System.out.println("Unknown tag `" + tagName + "` in page for `" + out.getFile().getPath() + "`.");
                 }
-            } else if ("ul".equals(tagName) || "ol".equals(tagName)) {
-                final List<WebElement> lis = child.findElements(By.tagName("li"));
-                for (WebElement li : lis) {
-                    final String liHtml = li.getAttribute("innerHTML");
-                    final String liText = encode(liHtml);
-                    out.println(liText);
-                }
-            } else if ("i".equals(tagName)) {
-                // For example, `https://speeches.byu.edu/talks/dilworth-b-parkinson_received-need/`.
-                final String iHtml = child.getAttribute("innerHTML");
-                final String iText = encode(iHtml);
-                if (iText.length() > 0) {
-                    out.println(iText);
-                }
-            } else {
-                System.out.println("Unknown tag `" + tagName + "` in page for `" + file.getPath() + "`.");
             }
+            // Close a previously-written note [line], if one exists.
+            if (notesCount > 0) {
+                notesOut.println();
+            }
+            // Move the complete files into place.
+            notesOut.commit();
+            out.commit();
+            return topics;
         }
-        // Close a previously-written note [line], if one exists.
-        if (notesCount > 0) {
-            notesOut.println();
-        }
-        // Close files.
-        notesOut.close();
-        notesOutputStream.close();
-        out.close();
-        outputStream.close();
-        return topics;
     }
 
     private static String getFileNameBase(String url) {
         return DriverUtils.getLastComponent(url);
     }
 
-    private static String encode(String html) {
-        // Encode note reference super-scripts as `<<#>>`.
-        return html.replaceAll("<sup>([0-9]+)</sup>", Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
-                // Ignore all other HTML formatting tags (links, italics, etc.).
-                .replaceAll("<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2")
-                // Ignore self-closing tags.
-                .replaceAll("<[^>]+?/>", "");
+    private static final Transcoder ENCODER = new Transcoder(
+            // Encode note reference super-scripts as `<<#>>`.
+            Transcoder.replace("<sup>", "<sup>([0-9]+)</sup>", Transcoder.referenceNumber(1)),
+            // Ignore all other HTML formatting tags (links, italics, etc.).
+            Transcoder.REMOVE_CLOSED_TAGS,
+            // Ignore self-closing tags.
+            Transcoder.REMOVE_SELF_CLOSING_TAGS);
+
+    static String encode(String html) {
+        return ENCODER.transcode(html);
     }
 }
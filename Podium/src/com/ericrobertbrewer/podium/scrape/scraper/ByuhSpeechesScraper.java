@@ -1,17 +1,38 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
-import org.openqa.selenium.WebDriver;
+import com.ericrobertbrewer.podium.Transcoder;
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 
-import java.io.File;
+/**
+ * The devotionals of BYU-Hawaii are listed, newest first, on the pages of a single archive. Both the archive and the
+ * devotionals are rendered on the server, so no browser is needed, and devotionals whose pages change are scraped
+ * again by an incremental scrape.
+ */
+public class ByuhSpeechesScraper extends SiteScraper {
 
-public class ByuhSpeechesScraper extends Scraper {
+    static final SiteAdapter ADAPTER = SiteAdapter.builder("byuh", "https://devotional.byuh.edu/archive",
+            "summary.tsv")
+            .folder("archive")
+            .listing(Fetch.STATIC, null, ".view-content .views-row")
+            .listingFields(
+                    BatchExtractor.Field.attribute(SiteAdapter.URL, ".views-field-title a", "href"),
+                    BatchExtractor.Field.text("title", ".views-field-title a"),
+                    BatchExtractor.Field.text("speaker", ".views-field-field-speaker"))
+            .nextPage("li.pager-next a, li.pager__item--next a")
+            .talk(Fetch.STATIC, null)
+            .pageFields(
+                    BatchExtractor.Field.text("position", ".field-name-field-speaker-title, .field--name-field-speaker-title"),
+                    BatchExtractor.Field.text("date", ".date-display-single, .field--name-field-date"))
+            .transcript(".field-name-body .field-item, .field--name-body")
+            .encoding(new Transcoder(
+                    // Encode note reference super-scripts as `<<#>>`.
+                    Transcoder.replace("<sup>", "<sup>([0-9]+)</sup>", Transcoder.referenceNumber(1)),
+                    Transcoder.REMOVE_CLOSED_TAGS,
+                    Transcoder.REMOVE_SELF_CLOSING_TAGS))
+            .build();
 
-    public ByuhSpeechesScraper(WebDriver driver) {
-        super(driver);
-    }
-
-    public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to("https://devotional.byuh.edu/archive");
-        // TODO
+    public ByuhSpeechesScraper(DriverPool driverPool) {
+        super(driverPool, ADAPTER);
     }
 }
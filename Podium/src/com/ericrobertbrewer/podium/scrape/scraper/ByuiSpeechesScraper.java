@@ -1,15 +1,21 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
 import com.ericrobertbrewer.podium.Encoding;
+import com.ericrobertbrewer.podium.Transcoder;
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 import com.ericrobertbrewer.podium.scrape.DriverUtils;
-import org.apache.commons.io.FileUtils;
+import com.ericrobertbrewer.podium.scrape.Metrics;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+import com.ericrobertbrewer.podium.scrape.StaticDriver;
+import com.ericrobertbrewer.podium.scrape.Tsv;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.Select;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Through the persistence that we will some day do something with the encoded note reference numbers
@@ -21,6 +27,24 @@ import java.util.*;
 public class ByuiSpeechesScraper extends Scraper {
 
     private static final String ROOT_URL = "https://web.byui.edu/devotionalsandspeeches/";
+    private static final String SUMMARY_FILE_NAME = "summary.tsv";
+    /**
+     * The longest time to wait for the Angular pages of this site to populate.
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 15000L;
+    private static final By YEAR_OPTIONS = By.cssSelector("select[data-ng-model='vm.year'] option");
+    private static final String SPEECH_ITEMS_SELECTOR = ".speeches ul li";
+    private static final By SPEECH_ITEMS = By.cssSelector(SPEECH_ITEMS_SELECTOR);
+    /**
+     * Reads every speech of a year in one pass.
+     */
+    private static final BatchExtractor SPEECH_ITEMS_EXTRACTOR = new BatchExtractor(SPEECH_ITEMS_SELECTOR,
+            BatchExtractor.Field.text("title", ".speechInfo .speechTitle"),
+            BatchExtractor.Field.text("speaker", ".speechInfo .speaker"),
+            BatchExtractor.Field.text("position", ".speechInfo .speakerPosition"),
+            BatchExtractor.Field.text("dateAndType", ".speechInfo .speechDate"),
+            BatchExtractor.Field.attribute("transcriptUrl", ".speechLinks a[title^='Click to read the transcript']", "href"),
+            BatchExtractor.Field.attribute("audioUrl", ".speechLinks a[href$='.mp3']", "href"));
 
     /**
      * A collection of speeches whose formatting will be more easily manually added than automatically parsed
@@ -32,22 +56,18 @@ public class ByuiSpeechesScraper extends Scraper {
     static {
     }
 
-    public ByuiSpeechesScraper(WebDriver driver) {
-        super(driver);
+    public ByuiSpeechesScraper(DriverPool driverPool) {
+        super(driverPool);
     }
 
     public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to(ROOT_URL);
-        // Allow years to load into the `<select>`.
-        try {
-            Thread.sleep(2000L);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        navigateTo(ROOT_URL);
+        // Allow years to load into the `<select>` (more than just "All Years").
+        DriverUtils.waitForCount(getDriver(), "byui year options", WAIT_TIMEOUT_MILLIS, YEAR_OPTIONS, 2);
         // Save root page source.
         final String sourceFileName = "root.html";
         try {
-            writeSource(rootFolder, sourceFileName, force);
+            writeSource(rootFolder, sourceFileName, force || isIncremental());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -61,13 +81,12 @@ public class ByuiSpeechesScraper extends Scraper {
                 years.add(text);
             }
         }
+        getProgress().addFolders(years.size());
+        final List<CompletableFuture<Void>> yearSummaries = new ArrayList<>();
         for (String year : years) {
-            try {
-                scrapeYear(rootFolder, year, force);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            yearSummaries.add(superviseFolder(year, ROOT_URL, () -> scrapeYear(rootFolder, year, force)));
         }
+        awaitAll(yearSummaries);
     }
 
     private Select getYearSelect() {
@@ -79,46 +98,31 @@ public class ByuiSpeechesScraper extends Scraper {
         throw new RuntimeException("Unable to find year select element in root page.");
     }
 
-    private void scrapeYear(File rootFolder, String year, boolean force) throws IOException {
+    private CompletableFuture<Void> scrapeYear(File rootFolder, String year, boolean force) throws IOException {
         // Create the year folder.
         final File folder = new File(rootFolder, year);
-        if (folder.exists()) {
-            if (force) {
-                FileUtils.deleteDirectory(folder);
-            } else {
-                return;
-            }
-        }
-        if (!folder.mkdirs()) {
-            throw new RuntimeException("Unable to create year folder `" + folder.getName() + "`.");
+        if (!prepareFolder(folder, force)) {
+            return CompletableFuture.completedFuture(null);
         }
         // Scrape this year.
         System.out.println("Starting year `" + year + "`.");
         if (!ROOT_URL.equalsIgnoreCase(getDriver().getCurrentUrl())) {
-            getDriver().navigate().to(ROOT_URL);
+            navigateTo(ROOT_URL);
         }
         // Allow years to load into the `<select>`.
-        try {
-            Thread.sleep(2000L);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        DriverUtils.waitForCount(getDriver(), "byui year options", WAIT_TIMEOUT_MILLIS, YEAR_OPTIONS, 2);
         // Select the correct year in the `select` element. Allow the speeches list to populate.
+        // The list is ready once it shows speeches from this year and stops growing.
         final Select yearSelect = getYearSelect();
         yearSelect.selectByVisibleText(year);
-        try {
-            Thread.sleep(2000L);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        DriverUtils.waitUntil(getDriver(), "byui year speeches", WAIT_TIMEOUT_MILLIS, driver -> {
+            final List<WebElement> speechDates = driver.findElements(By.className("speechDate"));
+            return speechDates.size() > 0 && speechDates.get(0).getText().contains(year);
+        });
+        DriverUtils.waitForStableCount(getDriver(), "byui year list", WAIT_TIMEOUT_MILLIS, SPEECH_ITEMS, 500L);
         // Write the page source for this year.
         final String sourceFileName = "year.html";
-        writeSource(folder, sourceFileName, force);
-        // Create the summary file. Write the column headers.
-        final File summaryFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(folder, "summary.tsv");
-        final OutputStream summaryOutputStream = new FileOutputStream(summaryFile);
-        final PrintStream summaryOut = new PrintStream(summaryOutputStream);
-        summaryOut.println("title\tspeaker\tposition\tdate\ttype\ttranscript\tnotes\turl\tsource\taudio_url");
+        writeSource(folder, sourceFileName, force || isIncremental());
         // Extract title, speaker, position, date, type.
         final List<String> titles = new ArrayList<>();
         final List<String> speakers = new ArrayList<>();
@@ -127,21 +131,14 @@ public class ByuiSpeechesScraper extends Scraper {
         final List<String> types = new ArrayList<>();
         final List<String> transcriptUrls = new ArrayList<>();
         final List<String> audioUrls = new ArrayList<>();
-        final WebElement speechesDiv = getDriver().findElement(By.className("speeches"));
-        final WebElement speechesUl = speechesDiv.findElement(By.tagName("ul"));
-        final List<WebElement> speechItems = speechesUl.findElements(By.tagName("li"));
-        for (WebElement speechItem : speechItems) {
-            final WebElement speechInfoDiv = speechItem.findElement(By.className("speechInfo"));
-            final String title = DriverUtils.getTextOrEmpty(speechInfoDiv, By.className("speechTitle"));
-            titles.add(title);
-            final String speaker = DriverUtils.getTextOrEmpty(speechInfoDiv, By.className("speaker"));
-            speakers.add(speaker);
-            final String position = DriverUtils.getTextOrEmpty(speechInfoDiv, By.className("speakerPosition"));
-            positions.add(position);
+        for (Map<String, String> speechItem : SPEECH_ITEMS_EXTRACTOR.extract(getDriver())) {
+            titles.add(speechItem.get("title"));
+            speakers.add(speechItem.get("speaker"));
+            positions.add(speechItem.get("position"));
             // Extract date and type.
             final String date;
             final String type;
-            final String dateAndType = DriverUtils.getTextOrEmpty(speechInfoDiv, By.className("speechDate"));
+            final String dateAndType = speechItem.get("dateAndType");
             final String[] dateAndTypeParts = dateAndType.split(" - ");
             if (dateAndTypeParts.length == 2) {
                 date = standardizeDate(dateAndTypeParts[0]);
@@ -153,22 +150,12 @@ public class ByuiSpeechesScraper extends Scraper {
             }
             dates.add(date);
             types.add(type);
-            // Extract the transcript and audio URLs.
             // Ignore the video for now.
-            final String transcriptUrl;
-            final String audioUrl;
-            final WebElement speechLinksDiv = DriverUtils.findElementOrNull(speechItem, By.className("speechLinks"));
-            if (speechLinksDiv != null) {
-                final List<WebElement> as = speechLinksDiv.findElements(By.tagName("a"));
-                transcriptUrl = getTranscriptUrl(as);
-                audioUrl = getAudioUrl(as);
-            } else {
-                transcriptUrl = "";
-                audioUrl = "";
-            }
-            transcriptUrls.add(transcriptUrl);
-            audioUrls.add(audioUrl);
+            transcriptUrls.add(speechItem.get("transcriptUrl"));
+            audioUrls.add(speechItem.get("audioUrl"));
         }
+        // Queue each speech. The summary is written once all of them are complete.
+        final List<CompletableFuture<String>> summaryRows = new ArrayList<>();
         for (int i = 0; i < titles.size(); i++) {
             final String title = titles.get(i);
             final String speaker = speakers.get(i);
@@ -177,65 +164,95 @@ public class ByuiSpeechesScraper extends Scraper {
             final String type = types.get(i);
             final String transcriptUrl = transcriptUrls.get(i);
             final String audioUrl = audioUrls.get(i);
-            scrapeSpeech(folder, transcriptUrl, audioUrl, title, speaker, position, date, type, summaryOut);
+            summaryRows.add(submitTalk(folder, getFileNameBase(date, speaker, title), transcriptUrl, getFetch(transcriptUrl), () ->
+                    scrapeSpeech(folder, transcriptUrl, audioUrl, title, speaker, position, date, type)));
         }
-        // Close summary file.
-        summaryOut.close();
-        summaryOutputStream.close();
+        return writeRowsWhenComplete(folder, SUMMARY_FILE_NAME,
+                "title\tspeaker\tposition\tdate\ttype\ttranscript\tnotes\turl\tsource\taudio_url", summaryRows);
     }
 
-    private void scrapeSpeech(File yearFolder,
-                              String transcriptUrl, String audioUrl,
-                              String title, String speaker, String position, String date, String type,
-                              PrintStream summaryOut) {
-        final String fileName;
-        final String notesFileName;
-        final String sourceFileName;
-        // Extract the file name base as the date, speaker, and title.
-        final String fileNameBase = (date + "_" + speaker + "_" + title).toLowerCase()
-                .replaceAll(" +", "_")
-                .replaceAll("[:.,\"'()\\[\\]?]+", "");
-        // Extract the text (transcript).
-        if (BLACKLIST_TRANSCRIPT_URLS.contains(transcriptUrl)) {
-            System.out.println("Skipping blacklisted speech `" + title + "`.");
-            // Still navigate to the page, just to download the source.
-            getDriver().navigate().to(transcriptUrl);
+    /**
+     * Scrape a single speech on the driver of the current thread.
+     * @return The row of this speech in the summary.
+     */
+    private String scrapeSpeech(File yearFolder,
+                                String transcriptUrl, String audioUrl,
+                                String title, String speaker, String position, String date, String type) {
+        final String fileNameBase = getFileNameBase(date, speaker, title);
+        String source = "";
+        final Fetch fetch = getFetch(transcriptUrl);
+        if (fetch != null) {
+            // Navigate to the page.
+            // Blacklisted speeches are still navigated to, just to download the source.
+            navigateTo(transcriptUrl, fetch);
             // Save the page source.
-            sourceFileName = fileNameBase + ".html";
             try {
-                writeSource(yearFolder, sourceFileName);
+                source = saveSource(yearFolder, fileNameBase);
             } catch (IOException e) {
                 e.printStackTrace();
             }
-            // Create new blank files for this speech.
+        }
+        return parseSpeech(yearFolder, transcriptUrl, audioUrl, title, speaker, position, date, type, source);
+    }
+
+    @Override
+    protected String getTableFileName() {
+        return SUMMARY_FILE_NAME;
+    }
+
+    @Override
+    protected String reparseRow(File folder, Map<String, String> row) throws IOException {
+        return parseSpeech(folder, row.get("url"), row.get("audio_url"),
+                row.get("title"), row.get("speaker"), row.get("position"), row.get("date"), row.get("type"),
+                row.get("source"));
+    }
+
+    @Override
+    protected boolean isSourceRequired(Map<String, String> row) {
+        // A speech without a transcript has no source, and a blacklisted one is never parsed.
+        final String transcriptUrl = row.get("url");
+        return !BLACKLIST_TRANSCRIPT_URLS.contains(transcriptUrl) && getFetch(transcriptUrl) != null;
+    }
+
+    @Override
+    protected String getFileNameBase(Map<String, String> row) {
+        return getFileNameBase(row.get("date"), row.get("speaker"), row.get("title"));
+    }
+
+    /**
+     * Write the transcript and notes from the page which has been loaded on the current thread, if any.
+     * @param source Of the saved page, as returned by {@link #saveSource}, or blank if the speech has no transcript.
+     * @return The row of this speech in the summary.
+     */
+    private String parseSpeech(File yearFolder,
+                               String transcriptUrl, String audioUrl,
+                               String title, String speaker, String position, String date, String type,
+                               String source) {
+        final String fileName;
+        final String notesFileName;
+        final String fileNameBase = getFileNameBase(date, speaker, title);
+        // Extract the text (transcript).
+        if (BLACKLIST_TRANSCRIPT_URLS.contains(transcriptUrl)) {
+            System.out.println("Skipping blacklisted speech `" + title + "`.");
+            Metrics.count(Metrics.SKIPPED_BLACKLISTED);
+            // Create new blank files for this speech, replacing any which were written before.
             fileName = fileNameBase + ".txt";
-            try {
-                com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, fileName);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
             notesFileName = fileNameBase + "_notes.tsv";
-            try {
-                com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, notesFileName);
+            try (OutputFile out = OutputFile.create(yearFolder, fileName);
+                 OutputFile notesOut = OutputFile.create(yearFolder, notesFileName)) {
+                out.commit();
+                notesOut.commit();
             } catch (IOException e) {
                 e.printStackTrace();
             }
-        } else if (transcriptUrl.startsWith("http://www.byui.edu/speeches/") ||
-                transcriptUrl.startsWith("http://www.byui.edu/devotionals/")) {
+        } else if (isModernTranscriptUrl(transcriptUrl)) {
             // This is a more modern speech or devotional (post 2013).
             // There does not appear to be any structural difference between a speech page and a devotional page.
-            // Navigate to the page.
-            getDriver().navigate().to(transcriptUrl);
-            // Save the page source.
-            sourceFileName = fileNameBase + ".html";
-            try {
-                writeSource(yearFolder, sourceFileName);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
             // Write the speech and the notes.
-            final WebElement transcriptTextDiv = DriverUtils.findElementOrNull(getDriver(), By.id("transcript-text"));
-            if (transcriptTextDiv != null) {
+            final WebElement transcriptTextElement = DriverUtils.findElementOrNull(getDriver(), By.id("transcript-text"));
+            if (transcriptTextElement != null) {
+                // Read a copy of the transcript in memory, rather than asking the browser for each paragraph.
+                final WebElement transcriptTextDiv = StaticDriver.snapshot(transcriptTextElement, transcriptUrl);
                 fileName = fileNameBase + ".txt";
                 notesFileName = fileNameBase + "_notes.tsv";
                 try {
@@ -247,16 +264,8 @@ public class ByuiSpeechesScraper extends Scraper {
                 fileName = "";
                 notesFileName = "";
             }
-        } else if (transcriptUrl.startsWith("http://www.byui.edu/Presentations/Transcripts")) {
+        } else if (isOldTranscriptUrl(transcriptUrl)) {
             // This is a transcript from roughly before 2013.
-            getDriver().navigate().to(transcriptUrl);
-            // Save the page source.
-            sourceFileName = fileNameBase + ".html";
-            try {
-                writeSource(yearFolder, sourceFileName);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
             fileName = fileNameBase + ".txt";
             notesFileName = fileNameBase + "_notes.tsv";
             try {
@@ -268,15 +277,43 @@ public class ByuiSpeechesScraper extends Scraper {
             // This speech has no transcript. It may be an older audio recording.
             // Transcripts appear to begin being published around 1997 - the Bednar era.
             System.out.println("Skipping speech without transcript `" + title + "`.");
+            Metrics.count(Metrics.SKIPPED_NO_TRANSCRIPT);
             fileName = "";
             notesFileName = "";
-            sourceFileName = "";
         }
-        // Add this speech's information to the summary.
-        summaryOut.print(title + "\t" + speaker + "\t" + position + "\t" + date + "\t" + type);
-        summaryOut.print("\t" + fileName + "\t" + notesFileName);
-        summaryOut.print("\t" + transcriptUrl + "\t" + sourceFileName + "\t" + audioUrl);
-        summaryOut.println();
+        // Return this speech's information for the summary.
+        return Tsv.join(title, speaker, position, date, type, fileName, notesFileName, transcriptUrl, source, audioUrl);
+    }
+
+    /**
+     * Extract the file name base as the date, speaker, and title.
+     */
+    static String getFileNameBase(String date, String speaker, String title) {
+        return (date + "_" + speaker + "_" + title).toLowerCase()
+                .replaceAll(" +", "_")
+                .replaceAll("[:.,\"'()\\[\\]?]+", "");
+    }
+
+    /**
+     * @return How the transcript page is loaded, or `null` if the speech has no transcript page.
+     */
+    private static Fetch getFetch(String transcriptUrl) {
+        if (BLACKLIST_TRANSCRIPT_URLS.contains(transcriptUrl) || isModernTranscriptUrl(transcriptUrl)) {
+            return Fetch.BROWSER;
+        } else if (isOldTranscriptUrl(transcriptUrl)) {
+            // These are plain HTML pages, so a browser isn't necessary.
+            return Fetch.STATIC;
+        }
+        return null;
+    }
+
+    private static boolean isModernTranscriptUrl(String transcriptUrl) {
+        return transcriptUrl.startsWith("http://www.byui.edu/speeches/") ||
+                transcriptUrl.startsWith("http://www.byui.edu/devotionals/");
+    }
+
+    private static boolean isOldTranscriptUrl(String transcriptUrl) {
+        return transcriptUrl.startsWith("http://www.byui.edu/Presentations/Transcripts");
     }
 
     /**
@@ -288,36 +325,31 @@ public class ByuiSpeechesScraper extends Scraper {
      */
     private void writeTranscriptAndNotes2(WebElement transcriptTextDiv,
                                           File yearFolder, String fileName, String notesFileName) throws IOException {
-        // Create the text file.
-        final File file = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, fileName);
-        final OutputStream outputStream = new FileOutputStream(file);
-        final PrintStream out = new PrintStream(outputStream);
-        // Create the notes file.
-        final File notesFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, notesFileName);
-        final OutputStream notesOutputStream = new FileOutputStream(notesFile);
-        final PrintStream notesOut = new PrintStream(notesOutputStream);
-        // Write the notes header.
-        notesOut.println("id\tnote");
-        final WebElement firstChild = transcriptTextDiv.findElement(By.xpath("./*"));
-        // Skip MSO converted documents. They're just too difficult to parse.
-        // See `http://www.byui.edu/devotionals/forest-gahn`.
-        if ("MsoNormal".equals(firstChild.getAttribute("class"))) {
-            // This speech seems to have been automatically converted to HTML from an MSO document. It's messy...
-            System.out.println("Skipping MSO formatted speech `" + fileName + "`.");
-        } else {
-            // Other speeches seem to have fairly consistent formatting.
-            System.out.println("Scraping modern speech `" + fileName + "`.");
-            final ModernSpeechParser parser = new ModernSpeechParser();
-            parser.writeChildElementsOrSelf(transcriptTextDiv, out, notesOut);
+        // Create the text and notes files.
+        try (OutputFile out = OutputFile.create(yearFolder, fileName);
+             OutputFile notesOut = OutputFile.create(yearFolder, notesFileName)) {
+            // Write the notes header.
+            notesOut.printRow("id", "note");
+            final WebElement firstChild = transcriptTextDiv.findElement(By.xpath("./*"));
+            // Skip MSO converted documents. They're just too difficult to parse.
+            // See `http://www.byui.edu/devotionals/forest-gahn`.
+            if ("MsoNormal".equals(firstChild.getAttribute("class"))) {
+                // This speech seems to have been automatically converted to HTML from an MSO document. It's messy...
+                System.out.println("Skipping MSO formatted speech `" + fileName + "`.");
+                Metrics.count(Metrics.SKIPPED_MSO);
+            } else {
+                // Other speeches seem to have fairly consistent formatting.
+                System.out.println("Scraping modern speech `" + fileName + "`.");
+                final ModernSpeechParser parser = new ModernSpeechParser();
+                parser.writeChildElementsOrSelf(transcriptTextDiv, out, notesOut);
+            }
+            // Move the complete files into place.
+            notesOut.commit();
+            out.commit();
         }
-        // Close files.
-        notesOut.close();
-        notesOutputStream.close();
-        out.close();
-        outputStream.close();
     }
 
-    private static class ModernSpeechParser {
+    static class ModernSpeechParser {
 
         private boolean hasReachedNotes = false;
         /**
@@ -655,48 +687,42 @@ public class ByuiSpeechesScraper extends Scraper {
     }
 
     private void writeTranscriptAndNotes(File yearFolder, String fileName, String notesFileName) throws IOException {
-        // Create the text file.
-        final File file = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, fileName);
-        final OutputStream outputStream = new FileOutputStream(file);
-        final PrintStream out = new PrintStream(outputStream);
-        // Create the notes file.
-        final File notesFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(yearFolder, notesFileName);
-        final OutputStream notesOutputStream = new FileOutputStream(notesFile);
-        final PrintStream notesOut = new PrintStream(notesOutputStream);
-        // Write the notes header.
-        notesOut.println("id\tnote");
-        // Write the speech and notes.
-        // The page format can very greatly.
-        final WebElement contentSectionDiv = DriverUtils.findElementOrNull(getDriver(), By.id("content_section"));
-        if (contentSectionDiv != null) {
-            // Thin page w/ navigation, sans serif font.
-            // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/2012_01_10_KimClark.htm`.
-            final WebElement leftAreaDiv = DriverUtils.findElementOrNull(contentSectionDiv, By.className("leftAREA"));
-            if (leftAreaDiv != null) {
-                System.out.println("Scraping thin speech `" + fileName + "`.");
-                final ThinSpeechParser parser = new ThinSpeechParser();
-                parser.writeChildElementsOrSelf(leftAreaDiv, out, notesOut);
+        // Create the text and notes files.
+        try (OutputFile out = OutputFile.create(yearFolder, fileName);
+             OutputFile notesOut = OutputFile.create(yearFolder, notesFileName)) {
+            // Write the notes header.
+            notesOut.printRow("id", "note");
+            // Write the speech and notes.
+            // The page format can very greatly.
+            final WebElement contentSectionDiv = DriverUtils.findElementOrNull(getDriver(), By.id("content_section"));
+            if (contentSectionDiv != null) {
+                // Thin page w/ navigation, sans serif font.
+                // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/2012_01_10_KimClark.htm`.
+                final WebElement leftAreaDiv = DriverUtils.findElementOrNull(contentSectionDiv, By.className("leftAREA"));
+                if (leftAreaDiv != null) {
+                    System.out.println("Scraping thin speech `" + fileName + "`.");
+                    final ThinSpeechParser parser = new ThinSpeechParser();
+                    parser.writeChildElementsOrSelf(leftAreaDiv, out, notesOut);
+                } else {
+                    System.err.println("Unrecognized speech format.");
+                }
             } else {
-                System.err.println("Unrecognized speech format.");
+                // Wide page, no navigation, serif font.
+                // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/1999_01_05_Bednar.htm`.
+                // Or possibly a wide page w/ navigation, serif font.
+                // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/2002_01_08_Bednar.htm`.
+                System.out.println("Scraping wide speech `" + fileName + "`.");
+                final WebElement body = getDriver().findElement(By.tagName("body"));
+                final WideSpeechParser parser = new WideSpeechParser();
+                parser.writeChildElementsOrSelf(body, out, notesOut);
             }
-        } else {
-            // Wide page, no navigation, serif font.
-            // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/1999_01_05_Bednar.htm`.
-            // Or possibly a wide page w/ navigation, serif font.
-            // See `http://www2.byui.edu/Presentations/Transcripts/Devotionals/2002_01_08_Bednar.htm`.
-            System.out.println("Scraping wide speech `" + fileName + "`.");
-            final WebElement body = getDriver().findElement(By.tagName("body"));
-            final WideSpeechParser parser = new WideSpeechParser();
-            parser.writeChildElementsOrSelf(body, out, notesOut);
+            // Move the complete files into place.
+            notesOut.commit();
+            out.commit();
         }
-        // Close files.
-        notesOut.close();
-        notesOutputStream.close();
-        out.close();
-        outputStream.close();
     }
 
-    private static class ThinSpeechParser {
+    static class ThinSpeechParser {
 
         private boolean hasReachedSpeech = false;
         private boolean hasReachedNotes = false;
@@ -818,7 +844,7 @@ public class ByuiSpeechesScraper extends Scraper {
         }
     }
 
-    private static class WideSpeechParser {
+    static class WideSpeechParser {
 
         private boolean hasReachedSpeech = false;
         private boolean hasReachedNotes = false;
@@ -963,7 +989,7 @@ public class ByuiSpeechesScraper extends Scraper {
      * @param date A textual date, as shown on the speeches website. Usually as `dd MMM YYYY`.
      * @return The formatted date.
      */
-    private static String standardizeDate(String date) {
+    static String standardizeDate(String date) {
         final String[] parts = date.split(" ");
         if (parts.length != 3) {
             throw new IllegalArgumentException("Unrecognized date format: `" + date + "`.");
@@ -979,29 +1005,6 @@ public class ByuiSpeechesScraper extends Scraper {
                 (dd < 10 ? "0" : "") + dd;
     }
 
-    private static String getTranscriptUrl(List<WebElement> as) {
-        String url = "";
-        for (WebElement a : as) {
-            final String href = a.getAttribute("href");
-            final String title = a.getAttribute("title");
-            if (href != null && title != null && title.startsWith("Click to read the transcript")) {
-                return href;
-            }
-        }
-        return url;
-    }
-
-    private static String getAudioUrl(List<WebElement> as) {
-        String url = "";
-        for (WebElement a : as) {
-            final String href = a.getAttribute("href");
-            if (href != null && href.endsWith(".mp3")) {
-                return href;
-            }
-        }
-        return url;
-    }
-
     private static boolean isInSingleTag(String html, String tag) {
         return isInSingleTag(html, tag, null);
     }
@@ -1061,31 +1064,47 @@ public class ByuiSpeechesScraper extends Scraper {
         out.println(start + text + end);
     }
 
+    private static final Transcoder DECODER = new Transcoder(
+            // Replace non-breakable spaces and ampersands.
+            Transcoder.replaceLiterals("&", Map.of("&nbsp;", " ", "&amp;", "&")),
+            // Ignore all other known HTML formatting tags (links, italics, etc.).
+//            Transcoder.replace("</", "<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2"),
+            Transcoder.replace("<", "(?<!<)</?(?:sup|strong|em|b|i|font|style|s|a|u|sub|g|ins).*?>(?!>)", ""),
+            // Ignore self-closing HTML tags.
+            Transcoder.REMOVE_SELF_CLOSING_TAGS,
+            // Ignore images (for now!!).
+            // Since an `<img>` is a Void Element, it doesn't need a closing tag or closing slash in HTML5.
+            // Reference: `https://stackoverflow.com/questions/7366344/do-we-still-need-end-slashes-in-html5`.
+            Transcoder.replace("<img ", "<img .*?>", ""),
+            Transcoder.TRIM);
+
+    private static final Transcoder ENCODER = new Transcoder(
+            // Encode note reference numbers that are hyperlinks.
+            // See `http://www.byui.edu/devotionals/president-kim-b-clark-winter-2014`.
+            Transcoder.replace("<sup", "<a .*?><sup.*?> *\\[?([0-9]+|[ivx]+)]? *</sup></a>",
+                    Transcoder.referenceNumber(1)),
+            // Encode note reference numbers in square brackets.
+            // See `http://www.byui.edu/speeches/bishop-w-christopher-waddell`.
+            // Allow lowercase Roman numerals.
+            // See `http://www.byui.edu/devotionals/president-eyring-winter-2018`.
+            // Sometimes, reference numbers in text are in subscript instead of superscript.
+            // Reference numbers may be enclosed in `<span>` elements.
+            // See `http://www.byui.edu/devotionals/elder-k-brett-nattress`.
+            Transcoder.replace("<su", "<(sup|sub).*?> *(?:<span.*?>)? *\\[?([0-9]+|[ivx]+)]? *(?:</span>)? *</\\1>",
+                    Transcoder.referenceNumber(2)),
+            // Allow bracketed reference numbers to exist outside of a superscript tag.
+            // See `http://www.byui.edu/devotionals/president-eyring-winter-2018` (reference [ix]).
+            Transcoder.replace("[", "(?:<a.*?>)? *\\[([0-9]+|[ivx]+)] *(?:</a.*?>)?",
+                    Transcoder.referenceNumber(1)),
+            DECODER::transcode);
+
     /**
      * Encode reference numbers, then strip away any unwanted HTML tags.
      * @param html Which may contain encoded reference numbers (as super/subscript numbers), or other HTML tags.
      * @return The encoded text.
      */
-    private static String encode(String html) {
-        final String encoded = html
-                // Encode note reference numbers that are hyperlinks.
-                // See `http://www.byui.edu/devotionals/president-kim-b-clark-winter-2014`.
-                .replaceAll("<a .*?><sup.*?> *\\[?([0-9]+|[ivx]+)]? *</sup></a>",
-                        Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
-                // Encode note reference numbers in square brackets.
-                // See `http://www.byui.edu/speeches/bishop-w-christopher-waddell`.
-                // Allow lowercase Roman numerals.
-                // See `http://www.byui.edu/devotionals/president-eyring-winter-2018`.
-                // Sometimes, reference numbers in text are in subscript instead of superscript.
-                // Reference numbers may be enclosed in `<span>` elements.
-                // See `http://www.byui.edu/devotionals/elder-k-brett-nattress`.
-                .replaceAll("<(sup|sub).*?> *(?:<span.*?>)? *\\[?([0-9]+|[ivx]+)]? *(?:</span>)? *</\\1>",
-                        Encoding.REFERENCE_NUMBER_START + "$2" + Encoding.REFERENCE_NUMBER_END)
-                // Allow bracketed reference numbers to exist outside of a superscript tag.
-                // See `http://www.byui.edu/devotionals/president-eyring-winter-2018` (reference [ix]).
-                .replaceAll("(?:<a.*?>)? *\\[([0-9]+|[ivx]+)] *(?:</a.*?>)?",
-                        Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END);
-        return decode(encoded);
+    static String encode(String html) {
+        return ENCODER.transcode(html);
     }
 
     /**
@@ -1094,22 +1113,8 @@ public class ByuiSpeechesScraper extends Scraper {
      * @param html Possibly containing HTML tags.
      * @return The decoded text.
      */
-    private static String decode(String html) {
-        return html
-                // Replace non-breakable spaces.
-                .replaceAll("&nbsp;", " ")
-                // Replace ampersands.
-                .replaceAll("&amp;", "&")
-                // Ignore all other known HTML formatting tags (links, italics, etc.).
-//                .replaceAll("<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2")
-                .replaceAll("(?<!<)</?(?:sup|strong|em|b|i|font|style|s|a|u|sub|g|ins).*?>(?!>)", "")
-                // Ignore self-closing HTML tags.
-                .replaceAll("<[^>]+?/>", "")
-                // Ignore images (for now!!).
-                // Since an `<img>` is a Void Element, it doesn't need a closing tag or closing slash in HTML5.
-                // Reference: `https://stackoverflow.com/questions/7366344/do-we-still-need-end-slashes-in-html5`.
-                .replaceAll("<img .*?>", "")
-                .trim();
+    static String decode(String html) {
+        return DECODER.transcode(html);
     }
 
     private static String[] getSuperScriptNotesParts(WebElement element) {
@@ -1125,9 +1130,9 @@ public class ByuiSpeechesScraper extends Scraper {
     private static void writeNote(PrintStream notesOut, String[] parts) {
         // ID may be a [lowercase] Roman numeral.
         final String id = parts[0];
-        notesOut.print("" + id);
+        notesOut.print(Tsv.escape(id));
         final String note = decode(parts[1]);
-        notesOut.print("\t" + note);
+        notesOut.print("\t" + Tsv.escape(note));
         notesOut.println();
     }
 }
@@ -1,17 +1,53 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
-import org.openqa.selenium.WebDriver;
+import com.ericrobertbrewer.podium.Transcoder;
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 
-import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-public class ChristmasDevotionalsScraper extends Scraper {
+/**
+ * The Christmas devotionals are laid out in the library as general conference is: a tile for each year, a list of
+ * talks for each devotional, and a page for each talk.
+ */
+public class ChristmasDevotionalsScraper extends SiteScraper {
 
-    public ChristmasDevotionalsScraper(WebDriver driver) {
-        super(driver);
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+
+    static final SiteAdapter ADAPTER = SiteAdapter.builder("xmas",
+            "https://www.lds.org/languages/eng/lib/jesus-christ/christmas-devotionals", "program.tsv")
+            .folders(Fetch.BROWSER, ".tile-3KqhL", ".tileTitle-1aoed", "", ChristmasDevotionalsScraper::toYear)
+            .listing(Fetch.BROWSER, ".items-21msL a", ".items-21msL a")
+            .listingFields(
+                    BatchExtractor.Field.attribute(SiteAdapter.URL, "", "href"),
+                    BatchExtractor.Field.attribute("title", "", "data-title"),
+                    BatchExtractor.Field.text("speaker", ".subtitle-GfBVZ"))
+            .talk(Fetch.BROWSER, "#content")
+            .pageFields(
+                    // Leave any leading "By" or "Presented by" as it retains more information.
+                    BatchExtractor.Field.text("speaker", "#content .byline p"),
+                    BatchExtractor.Field.text("role", "#content .byline p:nth-of-type(2)"),
+                    BatchExtractor.Field.text("kicker", "#kicker1"))
+            .transcript("#content .body-block")
+            .encoding(new Transcoder(
+                    // Replace the superscript reference notation with double arrow brackets.
+                    Transcoder.replace("note-ref", "<a class=\"note-ref\" href=\"#note([0-9]+)\"><sup class=\"marker\">\\1</sup></a>",
+                            Transcoder.referenceNumber(1)),
+                    Transcoder.REMOVE_CLOSED_TAGS,
+                    Transcoder.REMOVE_SELF_CLOSING_TAGS))
+            .build();
+
+    public ChristmasDevotionalsScraper(DriverPool driverPool) {
+        super(driverPool, ADAPTER);
     }
 
-    public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to("https://www.lds.org/languages/eng/lib/jesus-christ/christmas-devotionals");
-        // TODO
+    /**
+     * @param title Of a devotional, such as `2018 First Presidency's Christmas Devotional`.
+     * @return Its year, or `null` if it has none.
+     */
+    private static String toYear(String title) {
+        final Matcher matcher = YEAR.matcher(title);
+        return matcher.find() ? matcher.group(1) : null;
     }
 }
@@ -1,29 +1,56 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 import com.ericrobertbrewer.podium.scrape.DriverUtils;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+import com.ericrobertbrewer.podium.scrape.StaticDriver;
+import com.ericrobertbrewer.podium.scrape.Tsv;
 import com.ericrobertbrewer.podium.Encoding;
-import org.apache.commons.io.FileUtils;
+import com.ericrobertbrewer.podium.Transcoder;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class GeneralConferenceScraper extends Scraper {
 
-    public GeneralConferenceScraper(WebDriver driver) {
-        super(driver);
+    private static final String PROGRAM_FILE_NAME = "program.tsv";
+    /**
+     * The longest time to wait for panels to open or close.
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 5000L;
+    /**
+     * Reads the link and title of every conference in one pass.
+     */
+    private static final BatchExtractor CONFERENCE_TILES_EXTRACTOR = new BatchExtractor(".tile-3KqhL",
+            BatchExtractor.Field.attribute("url", "", "href"),
+            BatchExtractor.Field.text("title", ".tileTitle-1aoed"));
+    /**
+     * Reads the link, title, and speaker of every talk of a conference in one pass.
+     */
+    private static final BatchExtractor TALK_ITEMS_EXTRACTOR = new BatchExtractor(".items-21msL a",
+            BatchExtractor.Field.attribute("url", "", "href"),
+            BatchExtractor.Field.attribute("title", "", "data-title"),
+            BatchExtractor.Field.text("speaker", ".subtitle-GfBVZ"));
+    private static final By NAVIGATION_PANEL = By.className("leftPanelOpen-3UyrD");
+    private static final By RELATED_CONTENT_PANEL = By.className("rightPanel-2LIL7");
+
+    public GeneralConferenceScraper(DriverPool driverPool) {
+        super(driverPool);
     }
 
     public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to("https://www.lds.org/languages/eng/lib/general-conference");
+        navigateTo("https://www.lds.org/languages/eng/lib/general-conference");
         final String sourceFileName = "root.html";
         try {
-            writeSource(rootFolder, sourceFileName, force);
+            writeSource(rootFolder, sourceFileName, force || isIncremental());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -31,103 +58,78 @@ public class GeneralConferenceScraper extends Scraper {
         // Collect conference URLs before navigating away from this page.
         final List<String> urls = new ArrayList<>();
         final List<String> titles = new ArrayList<>();
-        final List<WebElement> tileAs = getDriver().findElements(By.className("tile-3KqhL"));
-        for (WebElement tileA : tileAs) {
-            // Extract link.
-            final String url = tileA.getAttribute("href");
-            urls.add(url);
-            // Extract title.
-            final WebElement titleSpan = tileA.findElement(By.className("tileTitle-1aoed"));
-            final String title = titleSpan.getText().trim();
-            titles.add(title);
+        for (Map<String, String> tile : CONFERENCE_TILES_EXTRACTOR.extract(getDriver())) {
+            urls.add(tile.get("url"));
+            titles.add(tile.get("title"));
         }
+        getProgress().addFolders(urls.size());
+        final List<CompletableFuture<Void>> programs = new ArrayList<>();
         for (int i = 0; i < urls.size(); i++) {
             final String url = urls.get(i);
             final String title = titles.get(i);
-            try {
-                scrapeConference(rootFolder, url, title, force);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            programs.add(superviseFolder(title, url, () -> scrapeConference(rootFolder, url, title, force)));
         }
+        awaitAll(programs);
     }
 
-    private void scrapeConference(File rootFolder, String url, String title, boolean force) throws IOException {
+    private CompletableFuture<Void> scrapeConference(File rootFolder, String url, String title, boolean force) throws IOException {
         // Convert conference title to `YYYY-MM`.
         final String fileName = toConferenceFileName(title);
         // Create the directory into which the talks will be written.
         final File folder = new File(rootFolder, fileName);
-        if (folder.exists()) {
-            if (force) {
-                // Since `force == true`, delete the folder.
-                FileUtils.deleteDirectory(folder);
-            } else {
-                // The folder exists and `force == false`. Skip this conference.
-                return;
-            }
-        }
-        if (!folder.mkdirs()) {
-            throw new RuntimeException("Unable to create conference folder: `" + folder.getPath() + "`.");
+        if (!prepareFolder(folder, force)) {
+            // The conference is complete and `force == false`. Skip this conference.
+            return CompletableFuture.completedFuture(null);
         }
         // Navigate to this general conference page, if needed.
         if (!getDriver().getCurrentUrl().equals(url)) {
-            getDriver().navigate().to(url);
+            navigateTo(url);
         }
         System.out.println("Starting conference `" + title + "`.");
         // Each individual talk has a complete navigation pane (there is no page which only contains the list of talks).
         // For this reason, we do not save the page source for each conference root.
-        // Create the program file. Write the column headers.
-        final File programFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(folder, "program.tsv");
-        final OutputStream programOutputStream = new FileOutputStream(programFile);
-        final PrintStream programOut = new PrintStream(programOutputStream);
-        programOut.println("title\tspeaker\trole\tkicker\ttext\treferences\turl\tsource");
         // Collect talk URLs before navigating.
         final List<String> talkUrls = new ArrayList<>();
         final List<String> talkTitles = new ArrayList<>();
         final List<String> speakers = new ArrayList<>();
-        final WebElement talksListDiv = getDriver().findElement(By.className("items-21msL"));
-        final List<WebElement> talkAs = talksListDiv.findElements(By.tagName("a"));
-        for (WebElement talkA : talkAs) {
-            // Extract talk link.
-            final String talkUrl = talkA.getAttribute("href");
-            talkUrls.add(talkUrl);
-            // Extract talk link.
-            final String talkTitle = talkA.getAttribute("data-title").trim();
-            talkTitles.add(talkTitle);
-            // Extract speaker.
+        for (Map<String, String> talkItem : TALK_ITEMS_EXTRACTOR.extract(getDriver())) {
+            talkUrls.add(talkItem.get("url"));
+            talkTitles.add(talkItem.get("title"));
             // This may be overridden by `scrapeTalk`, since the page itself may have additional, informative leading words.
-            final String speaker = DriverUtils.getTextOrEmpty(talkA, By.className("subtitle-GfBVZ")).trim();
-            speakers.add(speaker);
+            speakers.add(talkItem.get("speaker"));
         }
+        // Queue each talk. The program is written once all of them are complete.
+        final List<CompletableFuture<String>> programRows = new ArrayList<>();
         for (int i = 0; i < talkUrls.size(); i++) {
             final String talkUrl = talkUrls.get(i);
             final String talkTitle = talkTitles.get(i);
             final String speaker = speakers.get(i);
-            scrapeTalk(folder, talkUrl, talkTitle, speaker, programOut);
+            programRows.add(submitTalk(folder, getFileNameBase(talkUrl), talkUrl, Fetch.BROWSER, () ->
+                    scrapeTalk(folder, talkUrl, talkTitle, speaker)));
         }
-        programOut.close();
-        programOutputStream.close();
+        return writeRowsWhenComplete(folder, PROGRAM_FILE_NAME,
+                "title\tspeaker\trole\tkicker\ttext\treferences\turl\tsource", programRows);
     }
 
-    private void scrapeTalk(File conferenceFolder, String url, String title, String speaker, PrintStream programOut) {
+    /**
+     * Scrape a single talk on the driver of the current thread.
+     * @return The row of this talk in the program.
+     */
+    private String scrapeTalk(File conferenceFolder, String url, String title, String speaker) {
         // Navigate to this talk, if needed.
         if (!getDriver().getCurrentUrl().equals(url)) {
-            getDriver().navigate().to(url);
+            navigateTo(url);
         }
         System.out.println("Starting talk `" + title + "`.");
         // Close the left navigation panel if it's open.
         // It would otherwise prevent us from opening the "Related Content" section, reading content, etc.
-        final WebElement navigationDiv = DriverUtils.findElementOrNull(getDriver(), By.className("leftPanelOpen-3UyrD"));
+        final WebElement navigationDiv = DriverUtils.findElementOrNull(getDriver(), NAVIGATION_PANEL);
         if (navigationDiv != null && navigationDiv.isDisplayed()) {
             final WebElement backHeader = navigationDiv.findElement(By.className("backToAll-1PgB6"));
             final WebElement closeButton = backHeader.findElement(By.tagName("button"));
             closeButton.click();
             // Allow the navigation section to complete its close animation.
-            try {
-                Thread.sleep(500L);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            DriverUtils.waitForHidden(getDriver(), "gc navigation closed", WAIT_TIMEOUT_MILLIS, NAVIGATION_PANEL);
         }
         // Open the "Related Content" section.
         // This seems to prevent references from being read as blank.
@@ -138,32 +140,55 @@ public class GeneralConferenceScraper extends Scraper {
                 if ("Related Content".equals(button.getAttribute("title"))) {
                     button.click();
                     // Allow the "Related Content" section to complete its open animation.
-                    try {
-                        Thread.sleep(500L);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+                    DriverUtils.waitForDisplayed(getDriver(), "gc related content open", WAIT_TIMEOUT_MILLIS, RELATED_CONTENT_PANEL);
                     break;
                 }
             }
         }
         // Extract the file name from the URL.
-        final String fileNameBase = url.substring(url.lastIndexOf('/') + 1);
+        final String fileNameBase = getFileNameBase(url);
         // Save the page source.
-        final String sourceFileName = fileNameBase + ".html";
+        String source = "";
         try {
-            writeSource(conferenceFolder, sourceFileName);
+            source = saveSource(conferenceFolder, fileNameBase);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return parseTalk(conferenceFolder, url, title, speaker, source);
+    }
+
+    @Override
+    protected String getTableFileName() {
+        return PROGRAM_FILE_NAME;
+    }
+
+    @Override
+    protected String reparseRow(File folder, Map<String, String> row) throws IOException {
+        return parseTalk(folder, row.get("url"), row.get("title"), row.get("speaker"), row.get("source"));
+    }
+
+    @Override
+    protected String getFileNameBase(Map<String, String> row) {
+        return getFileNameBase(row.get("url"));
+    }
+
+    /**
+     * Write the text and references from the page which has been loaded on the current thread.
+     * The "Related Content" section must already be open.
+     * @return The row of this talk in the program.
+     */
+    private String parseTalk(File conferenceFolder, String url, String title, String speaker, String source) {
+        final String fileNameBase = getFileNameBase(url);
         // Extract attributes from this page to be written to the program.
         final String role;
         final String kicker;
         final String fileName;
         final String referencesFileName;
         // Work within the content section.
-        final WebElement contentSection = DriverUtils.findElementOrNull(getDriver(), By.id("content"));
-        if (contentSection != null) {
+        // Read a copy of it in memory, rather than asking the browser for each paragraph.
+        final WebElement contentElement = DriverUtils.findElementOrNull(getDriver(), By.id("content"));
+        if (contentElement != null) {
+            final WebElement contentSection = StaticDriver.snapshot(contentElement, url);
             // Extract speaker and role. (Role may not be present on page.)
             final WebElement byDiv = DriverUtils.findElementOrNull(contentSection, By.className("byline"));
             if (byDiv != null) {
@@ -189,9 +214,10 @@ public class GeneralConferenceScraper extends Scraper {
             // Extract kicker.
             kicker = DriverUtils.getTextOrEmpty(contentSection, By.id("kicker1")).trim();
             // Collect any references in the "Related Content" section.
-            final WebElement referencesAside = getDriver().findElement(By.className("rightPanel-2LIL7"));
-            final WebElement referencesSection = DriverUtils.findElementOrNull(referencesAside, By.className("panelGridLayout-3J74n"));
-            if (referencesSection != null) {
+            final WebElement referencesAside = getDriver().findElement(RELATED_CONTENT_PANEL);
+            final WebElement referencesElement = DriverUtils.findElementOrNull(referencesAside, By.className("panelGridLayout-3J74n"));
+            if (referencesElement != null) {
+                final WebElement referencesSection = StaticDriver.snapshot(referencesElement, url);
                 // Create and write to references file.
                 referencesFileName = fileNameBase + "_ref.tsv";
                 try {
@@ -226,11 +252,8 @@ public class GeneralConferenceScraper extends Scraper {
             fileName = "";
             referencesFileName = "";
         }
-        // Add to the program.
-        programOut.print(title + "\t" + speaker + "\t" + role + "\t" + kicker);
-        programOut.print("\t" + fileName + "\t" + referencesFileName);
-        programOut.print("\t" + url + "\t" + sourceFileName);
-        programOut.println();
+        // Return the row for the program.
+        return Tsv.join(title, speaker, role, kicker, fileName, referencesFileName, url, source);
     }
 
     /**
@@ -241,44 +264,42 @@ public class GeneralConferenceScraper extends Scraper {
      * @throws IOException When I/O error occurs.
      */
     private void writeReferences(WebElement referencesSection, File conferenceFolder, String referencesFileName) throws IOException {
-        final File referencesFile = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(conferenceFolder, referencesFileName);
-        final OutputStream outputStream = new FileOutputStream(referencesFile);
-        final PrintStream out = new PrintStream(outputStream);
-        // Print header.
-        out.println("id\treference");
-        final List<WebElement> referenceSpans = referencesSection.findElements(By.tagName("span"));
-        final List<WebElement> referenceDivs = referencesSection.findElements(By.tagName("div"));
-        final int referenceCount = referenceSpans.size();
-        for (int i = 0; i < referenceCount; i++) {
-            final WebElement span = referenceSpans.get(i);
-            final String spanText = span.getText().trim();
-            if (spanText.endsWith(".")) {
-                out.print(spanText.substring(0, spanText.lastIndexOf('.')));
-            } else {
-                out.print(spanText);
-            }
-            out.print("\t");
-            // Single references may contain multiple paragraphs. Separate paragraphs with two bar (`||`) characters.
-            final WebElement div = referenceDivs.get(i);
-            final List<WebElement> ps = div.findElements(By.tagName("p"));
-            boolean hasPrinted = false;
-            for (WebElement p : ps) {
-                final String pHtml = p.getAttribute("innerHTML").trim();
-                // Skip blank paragraphs. Sometimes they are added for extra spacing (?).
-                // See `https://www.lds.org/languages/eng/content/general-conference/2018/04/the-prophet-of-god`.
-                if (pHtml.length() == 0) {
-                    continue;
+        try (OutputFile out = OutputFile.create(conferenceFolder, referencesFileName)) {
+            // Print header.
+            out.printRow("id", "reference");
+            final List<WebElement> referenceSpans = referencesSection.findElements(By.tagName("span"));
+            final List<WebElement> referenceDivs = referencesSection.findElements(By.tagName("div"));
+            final int referenceCount = referenceSpans.size();
+            for (int i = 0; i < referenceCount; i++) {
+                final WebElement span = referenceSpans.get(i);
+                final String spanText = span.getText().trim();
+                if (spanText.endsWith(".")) {
+                    out.print(Tsv.escape(spanText.substring(0, spanText.lastIndexOf('.'))));
+                } else {
+                    out.print(Tsv.escape(spanText));
                 }
-                if (hasPrinted) {
-                    out.print(Encoding.PARAGRAPH_SEPARATOR);
+                out.print("\t");
+                // Single references may contain multiple paragraphs. Separate paragraphs with two bar (`||`) characters.
+                final WebElement div = referenceDivs.get(i);
+                final List<WebElement> ps = div.findElements(By.tagName("p"));
+                boolean hasPrinted = false;
+                for (WebElement p : ps) {
+                    final String pHtml = p.getAttribute("innerHTML").trim();
+                    // Skip blank paragraphs. Sometimes they are added for extra spacing (?).
+                    // See `https://www.lds.org/languages/eng/content/general-conference/2018/04/the-prophet-of-god`.
+                    if (pHtml.length() == 0) {
+                        continue;
+                    }
+                    if (hasPrinted) {
+                        out.print(Encoding.PARAGRAPH_SEPARATOR);
+                    }
+                    out.print(Tsv.escape(pHtml));
+                    hasPrinted = true;
                 }
-                out.print(pHtml);
-                hasPrinted = true;
+                out.println();
             }
-            out.println();
+            out.commit();
         }
-        out.close();
-        outputStream.close();
     }
 
     /**
@@ -291,14 +312,16 @@ public class GeneralConferenceScraper extends Scraper {
      * @throws IOException When I/O error occurs.
      */
     private void writeText(WebElement bodyBlockDiv, File conferenceFolder, String fileName) throws IOException {
-        final File file = com.ericrobertbrewer.podium.scrape.FileUtils.newFile(conferenceFolder, fileName);
-        final OutputStream outputStream = new FileOutputStream(file);
-        final PrintStream out = new PrintStream(outputStream);
-        // Get every top-level child of the `body-block` `div`.
-        // We do this because `section`s, `p`s, etc. can be interspersed within a talk.
-        writeChildElementsOrSelf(bodyBlockDiv, out);
-        out.close();
-        outputStream.close();
+        try (OutputFile out = OutputFile.create(conferenceFolder, fileName)) {
+            // Get every top-level child of the `body-block` `div`.
+            // We do this because `section`s, `p`s, etc. can be interspersed within a talk.
+            writeChildElementsOrSelf(bodyBlockDiv, out);
+            out.commit();
+        }
+    }
+
+    private static String getFileNameBase(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
     }
 
     private static final String MONTH_MM_APRIL = "04";
@@ -334,7 +357,7 @@ public class GeneralConferenceScraper extends Scraper {
         return month + " " + YYYY;
     }
 
-    private static void writeChildElementsOrSelf(WebElement element, PrintStream out) {
+    static void writeChildElementsOrSelf(WebElement element, PrintStream out) {
         writeChildElementsOrSelf(element, out, "", "");
     }
 
@@ -446,19 +469,22 @@ public class GeneralConferenceScraper extends Scraper {
         out.println();
     }
 
+    private static final Transcoder ENCODER = new Transcoder(
+            // Replace the superscript reference notation with double arrow brackets.
+            Transcoder.replace("note-ref", "<a class=\"note-ref\" href=\"#note([0-9]+)\"><sup class=\"marker\">\\1</sup></a>",
+                    Transcoder.referenceNumber(1)),
+            // Ignore other HTML formatting tags, e.g. links, italics.
+            Transcoder.REMOVE_CLOSED_TAGS,
+            // Ignore self-closing tags.
+            Transcoder.REMOVE_SELF_CLOSING_TAGS);
+
     /**
      * Encode reference numbers.
      * @param html Inner HTML from a paragraph of a talk.
      * @return A more readable text representation of a `p`, `header`, `h2`, or `li` element's inner HTML.
      */
-    private static String encode(String html) {
-        // Replace the superscript reference notation with double arrow brackets.
-        return html.replaceAll("<a class=\"note-ref\" href=\"#note([0-9]+)\"><sup class=\"marker\">\\1</sup></a>",
-                Encoding.REFERENCE_NUMBER_START + "$1" + Encoding.REFERENCE_NUMBER_END)
-                // Ignore other HTML formatting tags, e.g. links, italics.
-                .replaceAll("<([-a-zA-Z0-9]+).*?>(.*?)</\\1>", "$2")
-                // Ignore self-closing tags.
-                .replaceAll("<[^>]+?/>", "");
+    static String encode(String html) {
+        return ENCODER.transcode(html);
     }
 
     /**
@@ -1,17 +1,47 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
-import org.openqa.selenium.WebDriver;
+import com.ericrobertbrewer.podium.Transcoder;
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
 
-import java.io.File;
+/**
+ * The chapters of Jesus the Christ, as they are laid out in the library: a table of contents, and a page for each
+ * chapter (and for the preface and appendices), rendered by scripts.
+ */
+public class JesusTheChristScraper extends SiteScraper {
 
-public class JesusTheChristScraper extends Scraper {
+    /**
+     * The book is written to a single folder, named by the year in which it was published, as other collections are
+     * named by the years of their talks.
+     */
+    private static final String FOLDER_NAME = "1915";
 
-    public JesusTheChristScraper(WebDriver driver) {
-        super(driver);
-    }
+    static final SiteAdapter ADAPTER = SiteAdapter.builder("jtc",
+            "https://www.lds.org/languages/eng/content/manual/jesus-the-christ", "summary.tsv")
+            .folder(FOLDER_NAME)
+            .listing(Fetch.BROWSER, ".items-21msL a", ".items-21msL a")
+            .listingFields(
+                    BatchExtractor.Field.attribute(SiteAdapter.URL, "", "href"),
+                    BatchExtractor.Field.attribute("title", "", "data-title"))
+            .talk(Fetch.BROWSER, "#content .body-block")
+            .pageFields(
+                    // Such as `Chapter 1`. Blank for the preface and appendices.
+                    BatchExtractor.Field.text("number", "#title_number1"),
+                    BatchExtractor.Field.text("title", "#title1"),
+                    BatchExtractor.Field.text("summary", "#intro1"))
+            .transcript("#content .body-block")
+            // Notes follow the chapter, rather than being opened in a panel.
+            .skip("footer", "notes")
+            .notes("#content footer.notes li, #content .notes li")
+            .encoding(new Transcoder(
+                    // Replace the superscript reference notation with double arrow brackets.
+                    Transcoder.replace("note-ref", "<a class=\"note-ref\" href=\"#note([0-9]+)\"><sup class=\"marker\">\\1</sup></a>",
+                            Transcoder.referenceNumber(1)),
+                    Transcoder.REMOVE_CLOSED_TAGS,
+                    Transcoder.REMOVE_SELF_CLOSING_TAGS))
+            .build();
 
-    public void scrapeAll(File rootFolder, boolean force) {
-        getDriver().navigate().to("https://www.lds.org/languages/eng/content/manual/jesus-the-christ");
-        // TODO
+    public JesusTheChristScraper(DriverPool driverPool) {
+        super(driverPool, ADAPTER);
     }
 }
@@ -1,57 +1,903 @@
 package com.ericrobertbrewer.podium.scrape.scraper;
 
+import com.ericrobertbrewer.podium.TalkFiles;
+import com.ericrobertbrewer.podium.scrape.CrawlJournal;
+import com.ericrobertbrewer.podium.scrape.DeadLetters;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
+import com.ericrobertbrewer.podium.scrape.DriverSupervisor;
+import com.ericrobertbrewer.podium.scrape.HostScheduler;
+import com.ericrobertbrewer.podium.scrape.Metrics;
+import com.ericrobertbrewer.podium.scrape.Progress;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+import com.ericrobertbrewer.podium.scrape.SourceStore;
+import com.ericrobertbrewer.podium.scrape.StaticDriver;
+import com.ericrobertbrewer.podium.scrape.Tsv;
 import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public abstract class Scraper {
 
-    private final WebDriver driver;
+    /**
+     * How a page is loaded.
+     */
+    protected enum Fetch {
+        /**
+         * In a full browser. Required for pages which are rendered by JavaScript (Angular, React).
+         */
+        BROWSER,
+        /**
+         * Over plain HTTP into a parsed document, without running any scripts.
+         * Much faster and lighter than a browser, but only for pages whose content is in the HTML itself.
+         */
+        STATIC
+    }
+
+    private final DriverPool driverPool;
+    /**
+     * Each thread keeps the first driver it acquires until the scraper quits, or until the driver is replaced.
+     */
+    private final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    /**
+     * The number of pages which the driver of the current thread has loaded.
+     */
+    private final ThreadLocal<Integer> driverPages = ThreadLocal.withInitial(() -> 0);
+    private final ThreadLocal<StaticDriver> staticDriver = ThreadLocal.withInitial(StaticDriver::new);
+    /**
+     * The way in which the current thread loaded its most recent page.
+     */
+    private final ThreadLocal<Fetch> fetch = ThreadLocal.withInitial(() -> Fetch.BROWSER);
+    /**
+     * The URL of a static page which the current thread has just fetched to check whether it had changed, such that
+     * the next navigation to it uses the page as it was fetched, rather than fetching it again. Otherwise `null`.
+     */
+    private final ThreadLocal<String> prefetchedUrl = new ThreadLocal<>();
+    /**
+     * Runs the tasks of individual pages (talks, speeches), or `null` when the pool has only one driver.
+     */
+    private final ExecutorService executor;
+    /**
+     * Records completed talks so that an interrupted crawl can be resumed, or `null` if it isn't kept.
+     */
+    private CrawlJournal journal = null;
+    /**
+     * Lists talks and folders which failed for good, or `null` if they are only printed.
+     */
+    private DeadLetters deadLetters = null;
+    /**
+     * Keeps the page sources of talks, or `null` if each source is written to its own file beside the talk.
+     */
+    private SourceStore sourceStore = null;
+    /**
+     * Limits the rate of requests to each host.
+     */
+    private HostScheduler scheduler = new HostScheduler(HostScheduler.Limits.NONE);
+    /**
+     * Times page loads, retries failed talks, and decides when to replace a browser.
+     */
+    private DriverSupervisor supervisor = DriverSupervisor.NONE;
+    /**
+     * Counts folders and talks as they are listed and completed.
+     */
+    private Progress.Site progress = new Progress.Site(getClass().getSimpleName());
+    /**
+     * Whether folders which are already complete are checked for new or changed talks.
+     */
+    private boolean incremental = false;
+    /**
+     * While an existing folder is being updated incrementally, the rows of its previous table by file name base.
+     */
+    private final Map<File, Map<String, String>> existingRows = new ConcurrentHashMap<>();
 
-    public Scraper(WebDriver driver) {
-        this.driver = driver;
+    public Scraper(DriverPool driverPool) {
+        this.driverPool = driverPool;
+        // The calling thread keeps one driver to read listing pages (conferences, years).
+        // Individual pages are read by the remaining drivers.
+        final int workerCount = driverPool.getSize() - 1;
+        if (workerCount > 0) {
+            executor = Executors.newFixedThreadPool(workerCount);
+        } else {
+            executor = null;
+        }
     }
 
+    /**
+     * @return The driver which belongs to the current thread and which loaded its most recent page.
+     */
     public WebDriver getDriver() {
-        return driver;
+        return getDriver(fetch.get());
+    }
+
+    protected WebDriver getDriver(Fetch fetch) {
+        if (fetch == Fetch.STATIC) {
+            return staticDriver.get();
+        }
+        WebDriver threadDriver = driver.get();
+        if (threadDriver == null) {
+            threadDriver = driverPool.acquire();
+            supervisor.configure(threadDriver);
+            driver.set(threadDriver);
+            driverPages.set(0);
+        }
+        return threadDriver;
+    }
+
+    /**
+     * Load the page in a browser.
+     * @param url Of the page.
+     */
+    protected void navigateTo(String url) {
+        navigateTo(url, Fetch.BROWSER);
+    }
+
+    /**
+     * Load the page. Until the next navigation, {@link #getDriver()} returns the driver which loaded it.
+     * The time of the navigation, and of everything else until the next, is recorded in {@link Metrics} under the
+     * site of the page.
+     * The navigation waits for its turn at the host of the page. See {@link HostScheduler}.
+     * A browser which has loaded too many pages is replaced first, and one whose page load times out or which stops
+     * responding is replaced afterward. See {@link DriverSupervisor}.
+     * @param url Of the page.
+     * @param fetch How to load the page.
+     */
+    protected void navigateTo(String url, Fetch fetch) {
+        this.fetch.set(fetch);
+        Metrics.setSite(url);
+        final boolean isPrefetched = fetch == Fetch.STATIC && url.equals(prefetchedUrl.get());
+        prefetchedUrl.remove();
+        if (isPrefetched) {
+            // The static driver of this thread still holds the page.
+            return;
+        }
+        if (fetch == Fetch.BROWSER && driver.get() != null && supervisor.isWorn(driverPages.get())) {
+            replaceDriver("it has loaded " + driverPages.get() + " pages");
+        }
+        final WebDriver fetchDriver = getDriver(fetch);
+        try (HostScheduler.Permit permit = scheduler.acquire(url)) {
+            final long start = System.nanoTime();
+            final DriverSupervisor.Watch watch = fetch == Fetch.BROWSER ? supervisor.watch(fetchDriver, url) : null;
+            RuntimeException failure = null;
+            try {
+                fetchDriver.navigate().to(url);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                // Once the watch is closed, whether it expired is settled.
+                if (watch != null) {
+                    watch.close();
+                }
+                Metrics.recordSince(Metrics.NAVIGATE, start);
+            }
+            // The status of the host is only recorded once, so a load which timed out is never counted as a success.
+            if (watch != null && watch.isExpired()) {
+                // The browser was quit while (or just after) it loaded the page.
+                Metrics.count(Metrics.TIMEOUT);
+                permit.setStatus(0);
+                replaceDriver("its page load timed out");
+                throw new TimeoutException("Page load timed out: `" + url + "`.");
+            }
+            if (failure != null) {
+                permit.setStatus(HostScheduler.getStatus(failure));
+                if (fetch == Fetch.BROWSER) {
+                    checkDriver();
+                }
+                throw failure;
+            }
+            permit.setStatus(HostScheduler.OK);
+        }
+        if (fetch == Fetch.BROWSER) {
+            driverPages.set(driverPages.get() + 1);
+        }
+    }
+
+    /**
+     * Replace the browser of the current thread if it has stopped responding, or has opened windows which it never
+     * closed.
+     */
+    private void checkDriver() {
+        final WebDriver threadDriver = driver.get();
+        if (threadDriver == null) {
+            return;
+        }
+        final int windows = DriverSupervisor.countWindows(threadDriver);
+        if (windows == -1) {
+            replaceDriver("it stopped responding");
+        } else if (windows > 1) {
+            replaceDriver("it left " + (windows - 1) + " extra windows open");
+        }
+    }
+
+    /**
+     * Quit the browser of the current thread and launch a new one in its place.
+     * @param reason Why, to be printed.
+     */
+    private void replaceDriver(String reason) {
+        final WebDriver threadDriver = driver.get();
+        if (threadDriver == null) {
+            return;
+        }
+        System.out.println("Replacing browser, since " + reason + ".");
+        Metrics.count(Metrics.REPLACED_DRIVER);
+        final WebDriver newDriver = driverPool.replace(threadDriver);
+        supervisor.configure(newDriver);
+        driver.set(newDriver);
+        driverPages.set(0);
+    }
+
+    /**
+     * @return The source of the page which was most recently loaded by this thread.
+     */
+    protected String getPageSource() {
+        final long start = System.nanoTime();
+        final String source = getDriver().getPageSource();
+        Metrics.recordSince(Metrics.PAGE_SOURCE, start);
+        return source;
+    }
+
+    public void setJournal(CrawlJournal journal) {
+        this.journal = journal;
+    }
+
+    public void setSourceStore(SourceStore sourceStore) {
+        this.sourceStore = sourceStore;
+    }
+
+    public void setDeadLetters(DeadLetters deadLetters) {
+        this.deadLetters = deadLetters;
+    }
+
+    public void setScheduler(HostScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void setSupervisor(DriverSupervisor supervisor) {
+        this.supervisor = supervisor;
+    }
+
+    public void setProgress(Progress.Site progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * @return The progress of this scraper, to which each scraper adds the number of folders in its listing.
+     */
+    protected Progress.Site getProgress() {
+        return progress;
+    }
+
+    /**
+     * In incremental mode, the listing of every folder (year, conference) is read again, even if the folder is
+     * complete. Only talks which are new, or whose (static) pages have changed since they were saved, are scraped;
+     * the rest keep their existing rows.
+     * @param incremental Whether to update complete folders.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    protected boolean isIncremental() {
+        return incremental;
     }
 
-    // TODO: Separate `scrapeText` from `scrapeAudio`? Audio is slow to download...
     public abstract void scrapeAll(File rootFolder, boolean force);
 
-    public void close() {
-        driver.close();
+    /**
+     * Regenerate the output of every folder (year, conference) from the page sources which were saved when it was
+     * scraped. Nothing is fetched and no browser is needed; each row is parsed on its own thread.
+     * @param rootFolder Which has already been scraped.
+     */
+    public void reparseAll(File rootFolder) {
+        final String tableFileName = getTableFileName();
+        final File[] folders = rootFolder.listFiles(file ->
+                file.isDirectory() && !SourceStore.FOLDER_NAME.equals(file.getName()));
+        if (folders == null) {
+            throw new RuntimeException("Unable to list folders in: `" + rootFolder.getPath() + "`.");
+        }
+        Arrays.sort(folders);
+        progress.addFolders(folders.length);
+        final List<CompletableFuture<Void>> tables = new ArrayList<>();
+        for (File folder : folders) {
+            final File tableFile = new File(folder, tableFileName);
+            if (!tableFile.exists()) {
+                System.out.println("Skipping folder without `" + tableFileName + "`: `" + folder.getName() + "`.");
+                progress.skipFolder();
+                continue;
+            }
+            System.out.println("Reparsing folder `" + folder.getName() + "`.");
+            try {
+                tables.add(reparseFolder(folder, tableFileName));
+            } catch (IOException e) {
+                e.printStackTrace();
+                progress.skipFolder();
+            }
+        }
+        awaitAll(tables);
     }
 
-    public void quit() {
-        driver.quit();
+    private CompletableFuture<Void> reparseFolder(File folder, String tableFileName) throws IOException {
+        // Read the existing table.
+        final File tableFile = new File(folder, tableFileName);
+        final List<String> lines = Files.readAllLines(tableFile.toPath());
+        if (lines.isEmpty()) {
+            progress.skipFolder();
+            return CompletableFuture.completedFuture(null);
+        }
+        final String header = lines.get(0);
+        final String[] columns = Tsv.split(header);
+        // Queue each row.
+        final List<CompletableFuture<String>> rows = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            final Map<String, String> row = toRow(columns, line);
+            progress.addItem();
+            rows.add(submit(() -> {
+                final String pageType = Metrics.setPageType(Metrics.REPARSE);
+                final long start = System.nanoTime();
+                try {
+                    // Load the source before anything is written, so that a row whose source is missing keeps its files.
+                    final String source = row.getOrDefault("source", "");
+                    if (!source.isEmpty() || isSourceRequired(row)) {
+                        loadSource(folder, source);
+                    }
+                    final String newRow = reparseRow(folder, row);
+                    deleteDroppedFiles(folder, row, toRow(columns, newRow));
+                    progress.completeItem(false);
+                    return newRow;
+                } catch (IOException | RuntimeException e) {
+                    // Keep the row as it was.
+                    System.err.println("Unable to reparse row in `" + tableFile.getPath() + "`: `" + line + "`.");
+                    e.printStackTrace();
+                    Metrics.count(Metrics.FAILED);
+                    progress.completeItem(true);
+                    return line;
+                } finally {
+                    Metrics.recordSince(Metrics.PAGE, start);
+                    Metrics.setPageType(pageType);
+                }
+            }));
+        }
+        // The old table is only replaced once the new one is completely written.
+        return writeRowsWhenComplete(folder, tableFileName, header, rows);
     }
 
-    protected void writeSource(File folder, String sourceFileName) throws IOException {
-        writeSource(folder, sourceFileName, false);
+    /**
+     * @param columns Of the table.
+     * @param line A row of the table.
+     * @return Values of the row by column name.
+     */
+    private static Map<String, String> toRow(String[] columns, String line) {
+        final String[] values = Tsv.split(line);
+        final Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            row.put(columns[i], i < values.length ? values[i] : "");
+        }
+        return row;
     }
 
-    protected void writeSource(File folder, String sourceFileName, boolean force) throws IOException {
+    /**
+     * Read the rows of an existing table so that talks which haven't changed can keep them.
+     * @param folder Of the table.
+     * @return Each row, by the file name base of its talk.
+     * @throws IOException When I/O error occurs.
+     */
+    private Map<String, String> readTableRows(File folder) throws IOException {
+        final Map<String, String> rows = new HashMap<>();
+        final File tableFile = new File(folder, getTableFileName());
+        if (!tableFile.exists()) {
+            return rows;
+        }
+        final List<String> lines = Files.readAllLines(tableFile.toPath());
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        final String[] columns = Tsv.split(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            final String fileNameBase = getFileNameBase(toRow(columns, line));
+            if (fileNameBase != null) {
+                rows.put(fileNameBase, line);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return The name of the table (summary, program) in each folder.
+     */
+    protected abstract String getTableFileName();
+
+    /**
+     * Regenerate the output of one row of a table from its saved page source, which has already been loaded on the
+     * current thread. Files are replaced as they are written, so a row which fails keeps the files of its old row.
+     * @param folder Of the table.
+     * @param row Values of the existing row by column name.
+     * @return The new row.
+     * @throws IOException When I/O error occurs.
+     */
+    protected abstract String reparseRow(File folder, Map<String, String> row) throws IOException;
+
+    /**
+     * Identify the talk of a row of an existing table, so that it can be matched to the listing in incremental mode.
+     * @param row Values of the existing row by column name.
+     * @return The base of the file names of the talk, as given to {@link #submitTalk}, or `null` if unknown.
+     */
+    protected abstract String getFileNameBase(Map<String, String> row);
+
+    /**
+     * @param row Values of an existing row by column name.
+     * @return Whether the row can only be reparsed from its saved page source. A row which was never fetched, such as
+     * that of a talk without a transcript, may be reparsed without one.
+     */
+    protected boolean isSourceRequired(Map<String, String> row) {
+        return true;
+    }
+
+    /**
+     * Load a saved page source into the static driver of this thread.
+     * @param folder Of the source.
+     * @param sourceFileName Of the source, or its key in the source store, as returned by {@link #saveSource}.
+     * @throws IOException When the source does not exist.
+     */
+    protected void loadSource(File folder, String sourceFileName) throws IOException {
+        if (SourceStore.isKey(sourceFileName)) {
+            if (sourceStore == null) {
+                throw new IllegalStateException("No source store in which to find source: `" + sourceFileName + "`.");
+            }
+            loadPage(sourceStore.read(sourceFileName), folder.toURI().toString());
+            return;
+        }
         final File sourceFile = new File(folder, sourceFileName);
-        if (sourceFile.exists()) {
+        if (sourceFileName.isEmpty() || !sourceFile.exists()) {
+            throw new FileNotFoundException("Missing source file: `" + sourceFile.getPath() + "`.");
+        }
+        navigateTo(sourceFile.toURI().toString(), Fetch.STATIC);
+    }
+
+    /**
+     * Load a page whose source is already in memory into the static driver of this thread, such that
+     * {@link #getDriver()} returns it until the next navigation.
+     * @param source Of the page, such as one which was read from a browser.
+     * @param url Of the page, against which links are resolved.
+     */
+    protected void loadPage(String source, String url) {
+        fetch.set(Fetch.STATIC);
+        staticDriver.get().load(source, url);
+    }
+
+    /**
+     * Delete the files of a talk which its old row named but its new row no longer does, such as a transcript which
+     * is no longer found, so that they aren't mistaken for current output.
+     * @param folder Of the table.
+     * @param oldRow Values of the row before it was reparsed, by column name.
+     * @param newRow Values of the reparsed row, by column name.
+     */
+    private static void deleteDroppedFiles(File folder, Map<String, String> oldRow, Map<String, String> newRow) {
+        final Collection<String> newValues = newRow.values();
+        for (String value : oldRow.values()) {
+            if (TalkFiles.getSuffix(value) != null && !newValues.contains(value)) {
+                final File file = TalkFiles.getFile(folder, value);
+                if (file != null && !file.delete()) {
+                    // The new row is kept either way.
+                    System.err.println("Unable to delete dropped file: `" + file.getPath() + "`.");
+                }
+            }
+        }
+    }
+
+    public void close() {
+        getDriver().close();
+    }
+
+    public void quit() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1L, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        driverPool.quitAll();
+    }
+
+    /**
+     * Prepare the folder of a year or conference to be scraped.
+     * With `force`, the folder is deleted and scraped again from scratch.
+     * Otherwise, a folder which is complete is skipped (or updated, in incremental mode), and a folder which was
+     * interrupted is resumed.
+     * @param folder Of the year or conference.
+     * @param force Whether to delete the folder first.
+     * @return Whether the folder should be scraped.
+     * @throws IOException When the folder cannot be deleted.
+     */
+    protected boolean prepareFolder(File folder, boolean force) throws IOException {
+        if (folder.exists()) {
+            final String name = folder.getName();
+            final boolean hasTable = new File(folder, getTableFileName()).exists();
             if (force) {
-                FileUtils.forceDelete(sourceFile);
+                FileUtils.deleteDirectory(folder);
+                if (journal != null) {
+                    journal.resetFolder(name);
+                }
+            } else if (journal == null || journal.isFolderComplete(name) || (!journal.hasFolder(name) && hasTable)) {
+                // This folder is complete, though possibly from before the journal was kept.
+                if (!incremental) {
+                    progress.skipFolder();
+                    return false;
+                }
+                existingRows.put(folder, readTableRows(folder));
+                System.out.println("Updating folder `" + name + "`.");
             } else {
-                return;
+                // Resume this folder. The table will be written again once every talk is complete.
+                System.out.println("Resuming folder `" + name + "`.");
             }
         }
-        if (!sourceFile.createNewFile()) {
-            throw new RuntimeException("Unable to create source file: `" + sourceFile.getPath() + "`.");
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new RuntimeException("Unable to create folder: `" + folder.getPath() + "`.");
         }
-        if (!sourceFile.canWrite() && !sourceFile.setWritable(true)) {
-            throw new RuntimeException("Unable to write to source file: `" + sourceFile.getPath() + "`.");
+        return true;
+    }
+
+    /**
+     * Queue a talk, unless it was already completely written by a previous crawl: either as recorded in the journal
+     * or, in incremental mode, as found in the existing table.
+     * In incremental mode, a talk whose page is static is fetched again, and is only scraped again if the content
+     * hash of the page differs from that of its saved source, in which case the page which was fetched to compare is
+     * the one scraped. Talks which must be rendered by a browser are too
+     * expensive to check, so they are only scraped when they are new.
+     * Files left by an incomplete attempt are deleted before the talk is scraped again.
+     * @param folder Of the talk.
+     * @param fileNameBase Of the talk, which is unique within its folder.
+     * @param url Of the page of the talk, or `null` if it has none.
+     * @param fetch How the page of the talk is loaded by `task`, or `null` if it has no page.
+     * @param task Which scrapes the talk and returns its row.
+     * @return The pending row of the talk.
+     */
+    protected CompletableFuture<String> submitTalk(File folder, String fileNameBase, String url, Fetch fetch,
+                                                   Supplier<String> task) {
+        progress.addItem();
+        final String existingRow = getExistingRow(folder, fileNameBase);
+        if (existingRow != null) {
+            if (!incremental || fetch != Fetch.STATIC) {
+                Metrics.count(Metrics.SKIPPED_COMPLETE);
+                progress.skipItem();
+                return CompletableFuture.completedFuture(existingRow);
+            }
+            return submit(() -> {
+                final String pageType = Metrics.setPageType(Metrics.TALK);
+                try {
+                    if (!hasPageChanged(folder, fileNameBase, url, existingRow)) {
+                        Metrics.count(Metrics.SKIPPED_UNCHANGED);
+                        progress.skipItem();
+                        return existingRow;
+                    }
+                    System.out.println("Page has changed: `" + url + "`.");
+                    // The task reads the page which was just fetched, rather than fetching it again.
+                    prefetchedUrl.set(url);
+                    return scrapeTalk(folder, fileNameBase, url, task);
+                } finally {
+                    prefetchedUrl.remove();
+                    Metrics.setPageType(pageType);
+                }
+            });
+        }
+        return submit(() -> {
+            final String pageType = Metrics.setPageType(Metrics.TALK);
+            try {
+                return scrapeTalk(folder, fileNameBase, url, task);
+            } finally {
+                Metrics.setPageType(pageType);
+            }
+        });
+    }
+
+    /**
+     * @return The row of a talk which was completely written by a previous crawl, or `null`.
+     */
+    private String getExistingRow(File folder, String fileNameBase) {
+        if (journal != null) {
+            final CrawlJournal.Entry entry = journal.getTalk(folder.getName(), fileNameBase);
+            if (entry != null && entry.isIntact(folder)) {
+                return entry.getRow();
+            }
+        }
+        final Map<String, String> rows = existingRows.get(folder);
+        if (rows != null) {
+            return rows.get(fileNameBase);
+        }
+        return null;
+    }
+
+    /**
+     * Scrape a talk, trying it again (after a growing wait) while it fails, up to the attempts of the supervisor.
+     * A browser which died or leaked windows is replaced between attempts. A talk which fails every attempt is added to
+     * the dead letters.
+     */
+    private String scrapeTalk(File folder, String fileNameBase, String url, Supplier<String> task) {
+        final List<File> files = new ArrayList<>();
+        for (String suffix : TalkFiles.SUFFIXES) {
+            files.add(new File(folder, fileNameBase + suffix));
+        }
+        String row;
+        for (int attempt = 1; ; attempt++) {
+            boolean isRetry = false;
+            for (File file : files) {
+                if (file.exists()) {
+                    if (!file.delete()) {
+                        throw new RuntimeException("Unable to delete previous file: `" + file.getPath() + "`.");
+                    }
+                    isRetry = true;
+                }
+            }
+            if (isRetry && attempt == 1) {
+                // A previous attempt at this talk left files behind.
+                Metrics.count(Metrics.RETRY);
+            }
+            final long start = System.nanoTime();
+            try {
+                row = task.get();
+                break;
+            } catch (RuntimeException e) {
+                checkDriver();
+                if (attempt >= supervisor.getMaxAttempts()) {
+                    Metrics.count(Metrics.FAILED);
+                    progress.completeItem(true);
+                    if (deadLetters != null) {
+                        deadLetters.add(folder.getName(), fileNameBase, url, attempt, e);
+                    }
+                    throw e;
+                }
+                System.err.println("Attempt " + attempt + " of " + supervisor.getMaxAttempts() + " failed at `" +
+                        folder.getName() + "/" + fileNameBase + "`: " + e);
+                Metrics.count(Metrics.RETRY);
+                supervisor.awaitRetry(attempt);
+            } finally {
+                Metrics.recordSince(Metrics.PAGE, start);
+            }
+        }
+        checkDriver();
+        progress.completeItem(false);
+        if (deadLetters != null) {
+            deadLetters.remove(folder.getName(), fileNameBase);
+        }
+        if (journal != null) {
+            files.removeIf(file -> !file.exists());
+            journal.recordTalk(folder.getName(), fileNameBase, files, row);
+        }
+        return row;
+    }
+
+    /**
+     * Fetch the static page of a talk and compare its content hash with that of the source which was saved.
+     * The page is compared as it was served. Sources which were saved from a browser (by scrapes before static pages
+     * were fetched without one) are its rendered DOM, which never matches, so such talks are scraped once more.
+     * @param existingRow Of the talk, which references its source if it is kept in the source store.
+     * @return Whether the page differs from its saved source, or the source is missing.
+     */
+    private boolean hasPageChanged(File folder, String fileNameBase, String url, String existingRow) {
+        final File sourceFile = new File(folder, fileNameBase + TalkFiles.SOURCE_SUFFIX);
+        if (sourceStore == null && !sourceFile.exists()) {
+            return true;
+        }
+        navigateTo(url, Fetch.STATIC);
+        final String source = getPageSource();
+        if (sourceStore != null) {
+            final String key = SourceStore.getKey(source);
+            if (Arrays.asList(Tsv.split(existingRow)).contains(key) && sourceStore.contains(key)) {
+                return false;
+            }
+            if (!sourceFile.exists()) {
+                return true;
+            }
+        }
+        // Sources are saved with a trailing line separator.
+        final byte[] page = (source + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        try {
+            return !Arrays.equals(getContentHash(page), getContentHash(Files.readAllBytes(sourceFile.toPath())));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return true;
+        }
+    }
+
+    private static byte[] getContentHash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to hash content.", e);
+        }
+    }
+
+    /**
+     * Lists the talks of a folder (year, conference) on the calling thread, and queues them.
+     */
+    protected interface FolderTask {
+        /**
+         * @return The pending write of the table of the folder.
+         * @throws IOException When the folder can't be prepared.
+         */
+        CompletableFuture<Void> scrape() throws IOException;
+    }
+
+    /**
+     * List a folder (year, conference) such that, if its listing fails, the crawl goes on with the next folder: the
+     * failure is printed and added to the dead letters, and a browser which died is replaced.
+     * The folder is not complete, so the next crawl scrapes it again.
+     * @param folderName Such as `2018`.
+     * @param url Of the listing of the folder, or `null` if it isn't known.
+     * @param task Which lists the folder.
+     * @return The pending write of the table of the folder, which is already complete if the listing failed.
+     */
+    protected CompletableFuture<Void> superviseFolder(String folderName, String url, FolderTask task) {
+        try {
+            final CompletableFuture<Void> table = task.scrape();
+            if (deadLetters != null) {
+                deadLetters.remove(folderName, "");
+            }
+            return table;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to list folder `" + folderName + "`; skipping it.");
+            e.printStackTrace();
+            Metrics.count(Metrics.FAILED);
+            checkDriver();
+            progress.skipFolder();
+            if (deadLetters != null) {
+                deadLetters.add(folderName, "", url, 1, e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Queue a task to be run on its own driver.
+     * When the pool has only one driver, the task is run immediately on the calling thread.
+     * @param task Which should only use the driver of the thread on which it is run.
+     * @param <T> The result of the task.
+     * @return The pending result.
+     */
+    protected <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (executor == null) {
+            return CompletableFuture.supplyAsync(task, Runnable::run);
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Once every row is complete, write them in the order in which they are given.
+     * This keeps a summary or program file in the same order as its listing page, no matter the order in which
+     * the individual pages finish.
+     * Rows whose tasks failed are skipped. If none failed, the folder is recorded as complete in the journal.
+     * The file is written beside any previous version, which it replaces only once it is complete.
+     * @param folder Of the summary or program.
+     * @param fileName Of the summary or program.
+     * @param header Column headers.
+     * @param rows One pending row per page, without a trailing line separator.
+     * @return The pending write.
+     */
+    protected CompletableFuture<Void> writeRowsWhenComplete(File folder, String fileName, String header,
+                                                            List<CompletableFuture<String>> rows) {
+        progress.listFolder();
+        return CompletableFuture.allOf(rows.toArray(new CompletableFuture<?>[0])).handle((ignored, throwable) -> {
+            try {
+                final boolean isComplete = writeRows(folder, fileName, header, rows);
+                if (isComplete && journal != null) {
+                    journal.completeFolder(folder.getName());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                existingRows.remove(folder);
+                progress.completeFolder();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return Whether every row was written.
+     */
+    private static boolean writeRows(File folder, String fileName, String header,
+                                     List<CompletableFuture<String>> rows) throws IOException {
+        boolean isComplete = true;
+        try (OutputFile out = OutputFile.create(folder, fileName)) {
+            out.println(header);
+            for (CompletableFuture<String> row : rows) {
+                try {
+                    out.println(row.join());
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping failed row in `" + out.getFile().getPath() + "`.");
+                    e.printStackTrace();
+                    isComplete = false;
+                }
+            }
+            out.commit();
+        }
+        return isComplete;
+    }
+
+    /**
+     * Wait for every pending folder (year, conference) to be written.
+     * @param folders Pending folders.
+     */
+    protected static void awaitAll(List<CompletableFuture<Void>> folders) {
+        for (CompletableFuture<Void> folder : folders) {
+            try {
+                folder.join();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Save the source of the page which was most recently loaded by this thread, such as that of a talk.
+     * @param folder Of the talk.
+     * @param fileNameBase Of the talk.
+     * @return The value of the `source` column of the talk: the key of the source in the source store or, if there
+     * is no store, the name of the source file.
+     * @throws IOException When the source can't be written.
+     */
+    protected String saveSource(File folder, String fileNameBase) throws IOException {
+        if (sourceStore != null) {
+            return saveSource(folder, fileNameBase, getPageSource());
+        }
+        final String sourceFileName = fileNameBase + TalkFiles.SOURCE_SUFFIX;
+        writeSource(folder, sourceFileName);
+        return sourceFileName;
+    }
+
+    /**
+     * Save a page source which has already been read, such as that of a talk.
+     * @param folder Of the talk.
+     * @param fileNameBase Of the talk.
+     * @param source Of the page.
+     * @return The value of the `source` column of the talk, as with {@link #saveSource(File, String)}.
+     * @throws IOException When the source can't be written.
+     */
+    protected String saveSource(File folder, String fileNameBase, String source) throws IOException {
+        if (sourceStore != null) {
+            final long start = System.nanoTime();
+            final String key = sourceStore.write(source);
+            Metrics.recordSince(Metrics.WRITE, start);
+            return key;
+        }
+        final String sourceFileName = fileNameBase + TalkFiles.SOURCE_SUFFIX;
+        if (!new File(folder, sourceFileName).exists()) {
+            writeSourceFile(folder, sourceFileName, source);
+        }
+        return sourceFileName;
+    }
+
+    protected void writeSource(File folder, String sourceFileName) throws IOException {
+        writeSource(folder, sourceFileName, false);
+    }
+
+    protected void writeSource(File folder, String sourceFileName, boolean force) throws IOException {
+        // An existing source is only replaced once the new one is completely written.
+        if (!force && new File(folder, sourceFileName).exists()) {
+            return;
+        }
+        writeSourceFile(folder, sourceFileName, getPageSource());
+    }
+
+    private static void writeSourceFile(File folder, String sourceFileName, String source) throws IOException {
+        try (OutputFile out = OutputFile.create(folder, sourceFileName)) {
+            out.println(source);
+            out.commit();
         }
-        final OutputStream outputStream = new FileOutputStream(sourceFile);
-        final PrintStream out = new PrintStream(outputStream);
-        final String source = getDriver().getPageSource();
-        out.println(source);
-        out.close();
-        outputStream.close();
     }
 }
@@ -0,0 +1,522 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import com.ericrobertbrewer.podium.Transcoder;
+import com.ericrobertbrewer.podium.scrape.BatchExtractor;
+import com.ericrobertbrewer.podium.scrape.DriverUtils;
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Where a site keeps its talks, declared as selectors rather than code, so that a new site can be added without writing
+ * a scraper of its own. A {@link SiteScraper} runs any adapter.
+ *
+ * A site has a root page, which either lists its folders (years, books) or is itself the only listing. Each listing
+ * lists talks, possibly over several pages (by a link to the next page, or by scrolling). Each talk has a page, from
+ * which further fields, the transcript, and the notes are read.
+ *
+ * Listings are read with a {@link BatchExtractor}, in a single script in a browser or element by element in a static
+ * page. Talk pages are always parsed in memory, whether they were fetched with or without a browser, so the same
+ * selectors apply to both. Selectors are given once, when the adapter is built, and reused for every page.
+ *
+ * Each table has the fields of the listing (but `url`), then the fields of the page, then `text`, `notes`, `url`, and
+ * `source`. A field of the page which has the name of a field of the listing replaces it, unless it is blank.
+ */
+public class SiteAdapter {
+
+    /**
+     * The name of the field of every listing which holds the link to each item.
+     */
+    public static final String URL = "url";
+    /**
+     * The name of the field of the listing of folders which holds the title of each folder.
+     */
+    public static final String NAME = "name";
+
+    private static final String[] TABLE_COLUMNS = {"text", "notes", URL, "source"};
+
+    private final String name;
+    private final String rootUrl;
+    private final String tableFileName;
+    private final Scraper.Fetch rootFetch;
+    private final BatchExtractor foldersExtractor;
+    private final By folderItems;
+    private final Function<String, String> toFolderName;
+    private final String singleFolderName;
+    private final Scraper.Fetch listingFetch;
+    private final By listingWait;
+    private final BatchExtractor talksExtractor;
+    private final By talkItems;
+    private final By nextPage;
+    private final boolean isScrolled;
+    private final Scraper.Fetch talkFetch;
+    private final By talkWait;
+    private final BatchExtractor pageExtractor;
+    private final By transcript;
+    private final Set<String> paragraphTags;
+    private final Set<String> headerTags;
+    private final Set<String> skippedNames;
+    private final Transcoder transcoder;
+    private final By notes;
+    private final Function<String, String> toFileNameBase;
+    private final List<String> listingColumns;
+    private final List<String> columns;
+
+    private SiteAdapter(Builder builder) {
+        this.name = builder.name;
+        this.rootUrl = builder.rootUrl;
+        this.tableFileName = builder.tableFileName;
+        this.rootFetch = builder.rootFetch;
+        this.foldersExtractor = builder.foldersExtractor;
+        this.folderItems = toBy(builder.folderItemSelector);
+        this.toFolderName = builder.toFolderName;
+        this.singleFolderName = builder.singleFolderName;
+        this.listingFetch = builder.listingFetch;
+        this.listingWait = toBy(builder.listingWaitSelector);
+        this.talksExtractor = new BatchExtractor(builder.talkItemSelector,
+                builder.talkFields.toArray(new BatchExtractor.Field[0]));
+        this.talkItems = By.cssSelector(builder.talkItemSelector);
+        this.nextPage = toBy(builder.nextPageSelector);
+        this.isScrolled = builder.isScrolled;
+        this.talkFetch = builder.talkFetch;
+        this.talkWait = toBy(builder.talkWaitSelector);
+        this.pageExtractor = builder.pageFields.isEmpty() ? null :
+                new BatchExtractor("html", builder.pageFields.toArray(new BatchExtractor.Field[0]));
+        this.transcript = By.cssSelector(builder.transcriptSelector);
+        this.paragraphTags = new HashSet<>(builder.paragraphTags);
+        this.paragraphTags.addAll(builder.headerTags);
+        this.headerTags = new HashSet<>(builder.headerTags);
+        this.skippedNames = new HashSet<>(builder.skippedNames);
+        this.transcoder = builder.transcoder;
+        this.notes = toBy(builder.notesSelector);
+        this.toFileNameBase = builder.toFileNameBase;
+        // Columns.
+        final Set<String> listingColumns = new LinkedHashSet<>(getNames(builder.talkFields));
+        listingColumns.remove(URL);
+        this.listingColumns = new ArrayList<>(listingColumns);
+        final Set<String> columns = new LinkedHashSet<>(listingColumns);
+        columns.addAll(getNames(builder.pageFields));
+        columns.addAll(Arrays.asList(TABLE_COLUMNS));
+        this.columns = new ArrayList<>(columns);
+    }
+
+    private static List<String> getNames(List<BatchExtractor.Field> fields) {
+        final List<String> names = new ArrayList<>();
+        for (BatchExtractor.Field field : fields) {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    private static By toBy(String selector) {
+        return selector != null ? By.cssSelector(selector) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String getRootUrl() {
+        return rootUrl;
+    }
+
+    String getTableFileName() {
+        return tableFileName;
+    }
+
+    Scraper.Fetch getRootFetch() {
+        return rootFetch;
+    }
+
+    /**
+     * @return The extractor of the folders of the root page, or `null` if the root page is itself the only listing.
+     */
+    BatchExtractor getFoldersExtractor() {
+        return foldersExtractor;
+    }
+
+    By getFolderItems() {
+        return folderItems;
+    }
+
+    /**
+     * @param title Of a folder, as it is listed.
+     * @return The name of the folder of files.
+     */
+    String toFolderName(String title) {
+        return toFolderName.apply(title);
+    }
+
+    String getSingleFolderName() {
+        return singleFolderName;
+    }
+
+    Scraper.Fetch getListingFetch() {
+        return listingFetch;
+    }
+
+    /**
+     * @return Elements for which to wait before a listing is read in a browser, or `null` to read it at once.
+     */
+    By getListingWait() {
+        return listingWait;
+    }
+
+    BatchExtractor getTalksExtractor() {
+        return talksExtractor;
+    }
+
+    By getTalkItems() {
+        return talkItems;
+    }
+
+    /**
+     * @return The link to the next page of a listing, or `null` if listings have only one page.
+     */
+    By getNextPage() {
+        return nextPage;
+    }
+
+    /**
+     * @return Whether a listing loads more talks as it is scrolled (in a browser).
+     */
+    boolean isScrolled() {
+        return isScrolled;
+    }
+
+    Scraper.Fetch getTalkFetch() {
+        return talkFetch;
+    }
+
+    /**
+     * @return Elements for which to wait before a talk is read in a browser, or `null` to read it at once.
+     */
+    By getTalkWait() {
+        return talkWait;
+    }
+
+    /**
+     * @return The extractor of the fields of a talk page, or `null` if it has none.
+     */
+    BatchExtractor getPageExtractor() {
+        return pageExtractor;
+    }
+
+    By getTranscript() {
+        return transcript;
+    }
+
+    /**
+     * @param tagName Of an element of a transcript.
+     * @return Whether the element is written as one line, rather than by its children.
+     */
+    boolean isParagraph(String tagName) {
+        return paragraphTags.contains(tagName);
+    }
+
+    boolean isHeader(String tagName) {
+        return headerTags.contains(tagName);
+    }
+
+    /**
+     * @param tagName Of an element of a transcript.
+     * @param className Of the element, or `null`.
+     * @return Whether the element (and everything within it) is left out of the transcript.
+     */
+    boolean isSkipped(String tagName, String className) {
+        if (skippedNames.contains(tagName)) {
+            return true;
+        }
+        if (className != null) {
+            for (String name : className.trim().split("\\s+")) {
+                if (skippedNames.contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    String encode(String html) {
+        return transcoder.transcode(html);
+    }
+
+    /**
+     * @return Each note of a talk page, or `null` if notes aren't kept.
+     */
+    By getNotes() {
+        return notes;
+    }
+
+    /**
+     * @param url Of a talk.
+     * @return The base of the file names of the talk, which is unique within its folder.
+     */
+    String toFileNameBase(String url) {
+        return toFileNameBase.apply(url);
+    }
+
+    /**
+     * @return The columns of the table which come from the listing, in order.
+     */
+    List<String> getListingColumns() {
+        return listingColumns;
+    }
+
+    /**
+     * @return Every column of the table, in order.
+     */
+    List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param name Of the site, used in messages and the names of waits, such as `byuh`.
+     * @param rootUrl Of the page which lists every folder, or every talk.
+     * @param tableFileName Of the table which is written in each folder, such as `summary.tsv`.
+     * @return A builder of an adapter of the site.
+     */
+    public static Builder builder(String name, String rootUrl, String tableFileName) {
+        return new Builder(name, rootUrl, tableFileName);
+    }
+
+    public static class Builder {
+
+        private final String name;
+        private final String rootUrl;
+        private final String tableFileName;
+        private Scraper.Fetch rootFetch = Scraper.Fetch.BROWSER;
+        private BatchExtractor foldersExtractor = null;
+        private String folderItemSelector = null;
+        private Function<String, String> toFolderName = SiteAdapter::toFileName;
+        private String singleFolderName = null;
+        private Scraper.Fetch listingFetch = Scraper.Fetch.BROWSER;
+        private String listingWaitSelector = null;
+        private String talkItemSelector = null;
+        private final List<BatchExtractor.Field> talkFields = new ArrayList<>();
+        private String nextPageSelector = null;
+        private boolean isScrolled = false;
+        private Scraper.Fetch talkFetch = Scraper.Fetch.BROWSER;
+        private String talkWaitSelector = null;
+        private final List<BatchExtractor.Field> pageFields = new ArrayList<>();
+        private String transcriptSelector = null;
+        private final List<String> paragraphTags = new ArrayList<>(Arrays.asList("p", "li", "blockquote"));
+        private final List<String> headerTags = new ArrayList<>(Arrays.asList("h2", "h3", "h4"));
+        private final List<String> skippedNames = new ArrayList<>(Arrays.asList("script", "style", "noscript", "img",
+                "video", "audio", "iframe", "button", "svg"));
+        private Transcoder transcoder = new Transcoder(Transcoder.REMOVE_CLOSED_TAGS, Transcoder.REMOVE_SELF_CLOSING_TAGS);
+        private String notesSelector = null;
+        private Function<String, String> toFileNameBase = SiteAdapter::getFileNameBase;
+
+        private Builder(String name, String rootUrl, String tableFileName) {
+            this.name = name;
+            this.rootUrl = rootUrl;
+            this.tableFileName = tableFileName;
+        }
+
+        /**
+         * The root page lists folders, each of which has a listing of talks.
+         * @param fetch How to load the root page.
+         * @param itemSelector CSS selector of every folder.
+         * @param nameSelector CSS selector of the title of each folder within its item, or blank for the item itself.
+         * @param urlSelector CSS selector of the link to the listing of each folder, or blank for the item itself.
+         * @param toFolderName Which converts the title of a folder to the name of its folder of files.
+         * @return This builder.
+         */
+        public Builder folders(Scraper.Fetch fetch, String itemSelector, String nameSelector, String urlSelector,
+                               Function<String, String> toFolderName) {
+            this.rootFetch = fetch;
+            this.folderItemSelector = itemSelector;
+            this.foldersExtractor = new BatchExtractor(itemSelector,
+                    BatchExtractor.Field.text(NAME, nameSelector),
+                    BatchExtractor.Field.attribute(URL, urlSelector, "href"));
+            this.toFolderName = toFolderName;
+            return this;
+        }
+
+        /**
+         * The root page is itself the only listing, whose talks are written to a single folder.
+         * @param folderName Of the folder of files.
+         * @return This builder.
+         */
+        public Builder folder(String folderName) {
+            this.foldersExtractor = null;
+            this.singleFolderName = folderName;
+            return this;
+        }
+
+        /**
+         * @param fetch How to load each listing.
+         * @param waitSelector CSS selector of elements for which to wait in a browser, or `null`.
+         * @param itemSelector CSS selector of every talk of a listing.
+         * @return This builder.
+         */
+        public Builder listing(Scraper.Fetch fetch, String waitSelector, String itemSelector) {
+            this.listingFetch = fetch;
+            this.listingWaitSelector = waitSelector;
+            this.talkItemSelector = itemSelector;
+            return this;
+        }
+
+        /**
+         * @param fields To read from each talk of a listing. The link to the talk must be read as {@link #URL}.
+         * @return This builder.
+         */
+        public Builder listingFields(BatchExtractor.Field... fields) {
+            talkFields.addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        /**
+         * Listings have more than one page.
+         * @param selector CSS selector of the link to the next page, which is missing from the last.
+         * @return This builder.
+         */
+        public Builder nextPage(String selector) {
+            this.nextPageSelector = selector;
+            return this;
+        }
+
+        /**
+         * Listings load more talks as they are scrolled to the bottom. Only in a browser.
+         * @return This builder.
+         */
+        public Builder scrolled() {
+            this.isScrolled = true;
+            return this;
+        }
+
+        /**
+         * @param fetch How to load the page of each talk.
+         * @param waitSelector CSS selector of elements for which to wait in a browser, or `null`.
+         * @return This builder.
+         */
+        public Builder talk(Scraper.Fetch fetch, String waitSelector) {
+            this.talkFetch = fetch;
+            this.talkWaitSelector = waitSelector;
+            return this;
+        }
+
+        /**
+         * @param fields To read from the page of each talk, relative to its `html` element.
+         * @return This builder.
+         */
+        public Builder pageFields(BatchExtractor.Field... fields) {
+            pageFields.addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        /**
+         * @param selector CSS selector of the element which holds the transcript of a talk.
+         * @return This builder.
+         */
+        public Builder transcript(String selector) {
+            this.transcriptSelector = selector;
+            return this;
+        }
+
+        /**
+         * Elements of the transcript with these tags are each written as a line. Other elements are written by their
+         * children, or as a line if they have none.
+         * @param tags Such as `p`.
+         * @return This builder.
+         */
+        public Builder paragraphs(String... tags) {
+            paragraphTags.clear();
+            paragraphTags.addAll(Arrays.asList(tags));
+            return this;
+        }
+
+        /**
+         * @param tags Of elements of the transcript which are written as headers, such as `h2`.
+         * @return This builder.
+         */
+        public Builder headers(String... tags) {
+            headerTags.clear();
+            headerTags.addAll(Arrays.asList(tags));
+            return this;
+        }
+
+        /**
+         * @param names Tags or classes of elements of the transcript to leave out, such as share buttons or captions.
+         * Scripts, styles, images, and media are always left out.
+         * @return This builder.
+         */
+        public Builder skip(String... names) {
+            skippedNames.addAll(Arrays.asList(names));
+            return this;
+        }
+
+        /**
+         * @param transcoder Which converts the inner HTML of each paragraph into text.
+         * @return This builder.
+         */
+        public Builder encoding(Transcoder transcoder) {
+            this.transcoder = transcoder;
+            return this;
+        }
+
+        /**
+         * @param selector CSS selector of every note of a talk page, numbered in order.
+         * @return This builder.
+         */
+        public Builder notes(String selector) {
+            this.notesSelector = selector;
+            return this;
+        }
+
+        /**
+         * @param toFileNameBase Which converts the link of a talk to the base of its file names. By default, the last
+         * component of its path.
+         * @return This builder.
+         */
+        public Builder fileNameBase(Function<String, String> toFileNameBase) {
+            this.toFileNameBase = toFileNameBase;
+            return this;
+        }
+
+        public SiteAdapter build() {
+            if (foldersExtractor == null && singleFolderName == null) {
+                throw new IllegalStateException("Neither folders nor a single folder were given for `" + name + "`.");
+            }
+            if (talkItemSelector == null || !getNames(talkFields).contains(URL)) {
+                throw new IllegalStateException("No listing with field `" + URL + "` was given for `" + name + "`.");
+            }
+            if (transcriptSelector == null) {
+                throw new IllegalStateException("No transcript was given for `" + name + "`.");
+            }
+            return new SiteAdapter(this);
+        }
+    }
+
+    /**
+     * @param url Of a talk.
+     * @return The last component of the path of the link, without its query or fragment.
+     */
+    static String getFileNameBase(String url) {
+        int end = url.length();
+        final int queryIndex = url.indexOf('?');
+        if (queryIndex != -1) {
+            end = queryIndex;
+        }
+        final int fragmentIndex = url.indexOf('#');
+        if (fragmentIndex != -1 && fragmentIndex < end) {
+            end = fragmentIndex;
+        }
+        return DriverUtils.getLastComponent(url.substring(0, end));
+    }
+
+    /**
+     * @param title Of a folder.
+     * @return The title in lower case, with each run of characters which don't belong in a file name as one `-`.
+     */
+    static String toFileName(String title) {
+        return title.trim().toLowerCase().replaceAll("[^a-z0-9._]+", "-").replaceAll("^-|-$", "");
+    }
+}
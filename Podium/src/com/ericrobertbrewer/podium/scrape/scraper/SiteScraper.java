@@ -0,0 +1,304 @@
+package com.ericrobertbrewer.podium.scrape.scraper;
+
+import com.ericrobertbrewer.podium.Encoding;
+import com.ericrobertbrewer.podium.scrape.DriverPool;
+import com.ericrobertbrewer.podium.scrape.DriverUtils;
+import com.ericrobertbrewer.podium.scrape.Metrics;
+import com.ericrobertbrewer.podium.scrape.OutputFile;
+import com.ericrobertbrewer.podium.scrape.StaticDriver;
+import com.ericrobertbrewer.podium.scrape.Tsv;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Scrapes any site which is described by a {@link SiteAdapter}.
+ *
+ * As with the other scrapers, the calling thread reads the listings, one folder at a time, and queues each talk as soon
+ * as it is listed, so that talks are scraped by the other drivers while the rest of the listing is still being read.
+ * Folders are resumed, updated, and supervised as by {@link Scraper}.
+ */
+public class SiteScraper extends Scraper {
+
+    /**
+     * The longest time to wait for the elements of a page to appear in a browser.
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 30000L;
+    /**
+     * How long a listing which is being scrolled must stay the same before it is complete.
+     */
+    private static final long SCROLL_STABLE_MILLIS = 1000L;
+    /**
+     * The most pages of a single listing, in case a site links its last page to itself, or to the first.
+     */
+    private static final int MAX_LISTING_PAGES = 1000;
+
+    private final SiteAdapter adapter;
+    private final String header;
+
+    public SiteScraper(DriverPool driverPool, SiteAdapter adapter) {
+        super(driverPool);
+        this.adapter = adapter;
+        this.header = String.join("\t", adapter.getColumns());
+    }
+
+    public void scrapeAll(File rootFolder, boolean force) {
+        final String rootUrl = adapter.getRootUrl();
+        if (adapter.getFoldersExtractor() == null) {
+            // The root page is the only listing.
+            getProgress().addFolders(1);
+            final String folderName = adapter.getSingleFolderName();
+            awaitAll(Collections.singletonList(superviseFolder(folderName, rootUrl, () ->
+                    scrapeFolder(rootFolder, folderName, rootUrl, force))));
+            return;
+        }
+        navigateTo(rootUrl, adapter.getRootFetch());
+        waitFor(adapter.getFolderItems(), adapter.getName() + " folders");
+        try {
+            writeSource(rootFolder, "root.html", force || isIncremental());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // Collect folders before navigating away from this page.
+        final Map<String, String> urls = new LinkedHashMap<>();
+        for (Map<String, String> item : adapter.getFoldersExtractor().extract(getDriver())) {
+            final String url = item.get(SiteAdapter.URL);
+            final String folderName = adapter.toFolderName(item.get(SiteAdapter.NAME));
+            if (url.isEmpty() || folderName == null || folderName.isEmpty()) {
+                System.out.println("Skipping folder without a name or link: `" + item + "`.");
+                continue;
+            }
+            // A folder which is linked more than once (such as from a banner) is only scraped once.
+            urls.putIfAbsent(folderName, url);
+        }
+        getProgress().addFolders(urls.size());
+        final List<CompletableFuture<Void>> tables = new ArrayList<>();
+        for (Map.Entry<String, String> entry : urls.entrySet()) {
+            final String folderName = entry.getKey();
+            final String url = entry.getValue();
+            tables.add(superviseFolder(folderName, url, () -> scrapeFolder(rootFolder, folderName, url, force)));
+        }
+        awaitAll(tables);
+    }
+
+    /**
+     * List the talks of a folder, page by page, queueing each as it is found.
+     * @return The pending write of the table of the folder.
+     */
+    private CompletableFuture<Void> scrapeFolder(File rootFolder, String folderName, String url, boolean force) throws IOException {
+        final File folder = new File(rootFolder, folderName);
+        if (!prepareFolder(folder, force)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        System.out.println("Starting folder `" + folderName + "`.");
+        final List<CompletableFuture<String>> rows = new ArrayList<>();
+        // Talks which are listed more than once (on more than one page) are only scraped once.
+        final Set<String> fileNameBases = new HashSet<>();
+        final Set<String> pageUrls = new HashSet<>();
+        String pageUrl = url;
+        while (pageUrl != null && pageUrls.size() < MAX_LISTING_PAGES && pageUrls.add(pageUrl)) {
+            navigateTo(pageUrl, adapter.getListingFetch());
+            waitFor(adapter.getListingWait(), adapter.getName() + " listing");
+            if (adapter.isScrolled() && adapter.getListingFetch() == Fetch.BROWSER) {
+                // Keep scrolling to the bottom until no more talks load.
+                DriverUtils.scrollUntilStable(getDriver(), adapter.getName() + " listing scroll", WAIT_TIMEOUT_MILLIS,
+                        adapter.getTalkItems(), SCROLL_STABLE_MILLIS);
+            }
+            for (Map<String, String> item : adapter.getTalksExtractor().extract(getDriver())) {
+                final String talkUrl = item.get(SiteAdapter.URL);
+                if (talkUrl.isEmpty()) {
+                    continue;
+                }
+                final String fileNameBase = adapter.toFileNameBase(talkUrl);
+                if (!fileNameBases.add(fileNameBase)) {
+                    continue;
+                }
+                final Map<String, String> listing = new HashMap<>(item);
+                rows.add(submitTalk(folder, fileNameBase, talkUrl, adapter.getTalkFetch(), () ->
+                        scrapeTalk(folder, fileNameBase, talkUrl, listing)));
+            }
+            pageUrl = getNextPageUrl();
+        }
+        return writeRowsWhenComplete(folder, adapter.getTableFileName(), header, rows);
+    }
+
+    /**
+     * @return The link to the next page of the listing which is loaded, or `null` if it is the last.
+     */
+    private String getNextPageUrl() {
+        if (adapter.getNextPage() == null) {
+            return null;
+        }
+        // The last page has no link, which isn't a missing element.
+        final List<WebElement> next = getDriver().findElements(adapter.getNextPage());
+        if (next.isEmpty()) {
+            return null;
+        }
+        final String href = next.get(0).getAttribute("href");
+        return href != null && !href.isEmpty() ? href : null;
+    }
+
+    /**
+     * Wait for elements to appear, if the page was loaded in a browser.
+     */
+    private void waitFor(By by, String name) {
+        if (by == null || getDriver() instanceof StaticDriver) {
+            return;
+        }
+        DriverUtils.waitForCount(getDriver(), name, WAIT_TIMEOUT_MILLIS, by, 1);
+    }
+
+    /**
+     * Scrape a single talk on the driver of the current thread.
+     * A page which is loaded in a browser is read once, and parsed in memory from then on.
+     * @return The row of this talk in the table.
+     */
+    private String scrapeTalk(File folder, String fileNameBase, String url, Map<String, String> listing) {
+        navigateTo(url, adapter.getTalkFetch());
+        System.out.println("Starting talk `" + folder.getName() + "/" + fileNameBase + "`.");
+        String source = "";
+        if (adapter.getTalkFetch() == Fetch.BROWSER) {
+            waitFor(adapter.getTalkWait(), adapter.getName() + " talk");
+            final String pageSource = getPageSource();
+            try {
+                source = saveSource(folder, fileNameBase, pageSource);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            loadPage(pageSource, url);
+        } else {
+            try {
+                source = saveSource(folder, fileNameBase);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return parseTalk(folder, fileNameBase, url, listing, source);
+    }
+
+    @Override
+    protected String getTableFileName() {
+        return adapter.getTableFileName();
+    }
+
+    @Override
+    protected String reparseRow(File folder, Map<String, String> row) throws IOException {
+        final String url = row.get(SiteAdapter.URL);
+        return parseTalk(folder, adapter.toFileNameBase(url), url, row, row.get("source"));
+    }
+
+    @Override
+    protected String getFileNameBase(Map<String, String> row) {
+        final String url = row.get(SiteAdapter.URL);
+        return url != null && !url.isEmpty() ? adapter.toFileNameBase(url) : null;
+    }
+
+    /**
+     * Write the transcript and notes from the page which has been loaded on the current thread.
+     * @param listing Values of the fields which were read from the listing (or from the previous row) by name.
+     * @return The row of this talk in the table.
+     */
+    private String parseTalk(File folder, String fileNameBase, String url, Map<String, String> listing, String source) {
+        final Map<String, String> values = new HashMap<>();
+        for (String column : adapter.getListingColumns()) {
+            values.put(column, listing.getOrDefault(column, ""));
+        }
+        if (adapter.getPageExtractor() != null) {
+            final List<Map<String, String>> pages = adapter.getPageExtractor().extract(getDriver());
+            if (!pages.isEmpty()) {
+                for (Map.Entry<String, String> field : pages.get(0).entrySet()) {
+                    // A field of the page replaces that of the listing, unless it is blank.
+                    if (!field.getValue().isEmpty() || !values.containsKey(field.getKey())) {
+                        values.put(field.getKey(), field.getValue());
+                    }
+                }
+            }
+        }
+        final WebElement transcript = DriverUtils.findElementOrNull(getDriver(), adapter.getTranscript());
+        if (transcript != null) {
+            final String fileName = fileNameBase + ".txt";
+            try (OutputFile out = OutputFile.create(folder, fileName)) {
+                writeTranscript(transcript, out);
+                out.commit();
+                values.put("text", fileName);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            // The page has no transcript, such as one of a video, or a broken link.
+            Metrics.count(Metrics.SKIPPED_NO_TRANSCRIPT);
+        }
+        if (adapter.getNotes() != null) {
+            final List<WebElement> notes = getDriver().findElements(adapter.getNotes());
+            if (!notes.isEmpty()) {
+                final String notesFileName = fileNameBase + "_notes.tsv";
+                try {
+                    writeNotes(notes, folder, notesFileName);
+                    values.put("notes", notesFileName);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        values.put(SiteAdapter.URL, url);
+        values.put("source", source);
+        final List<String> columns = adapter.getColumns();
+        final String[] row = new String[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = values.getOrDefault(columns.get(i), "");
+        }
+        return Tsv.join(row);
+    }
+
+    /**
+     * Write each paragraph of the transcript as a line.
+     * Escape headers inside double curly braces ({{,}}), and encode the rest as declared by the adapter.
+     * @param element The transcript, or an element within it.
+     * @param out To the text file.
+     */
+    private void writeTranscript(WebElement element, PrintStream out) {
+        for (WebElement child : element.findElements(By.xpath("./*"))) {
+            final String tagName = child.getTagName();
+            if (adapter.isSkipped(tagName, child.getAttribute("class"))) {
+                continue;
+            }
+            if (adapter.isParagraph(tagName) || child.findElements(By.xpath("./*")).isEmpty()) {
+                final String text = adapter.encode(child.getAttribute("innerHTML").trim()).trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                if (adapter.isHeader(tagName)) {
+                    out.println(Encoding.HEADER_START + text + Encoding.HEADER_END);
+                } else {
+                    out.println(text);
+                }
+            } else {
+                writeTranscript(child, out);
+            }
+        }
+    }
+
+    /**
+     * Write the notes, numbered in the order of the page.
+     * @param notes Each note.
+     * @param folder Of the talk.
+     * @param notesFileName Of the notes of the talk.
+     * @throws IOException When I/O error occurs.
+     */
+    private static void writeNotes(List<WebElement> notes, File folder, String notesFileName) throws IOException {
+        try (OutputFile out = OutputFile.create(folder, notesFileName)) {
+            out.printRow("id", "note");
+            int id = 1;
+            for (WebElement note : notes) {
+                out.printRow(String.valueOf(id), note.getAttribute("innerHTML").trim());
+                id++;
+            }
+            out.commit();
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.ericrobertbrewer.podium.serve;
+
+import com.ericrobertbrewer.podium.TalkFiles;
+import com.ericrobertbrewer.podium.corpus.Catalog;
+import com.ericrobertbrewer.podium.corpus.CatalogWriter;
+import com.ericrobertbrewer.podium.index.SearchIndex;
+import com.ericrobertbrewer.podium.scrape.SourceStore;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves scraped content over HTTP, so that other services needn't read the content folders themselves.
+ *
+ * <ul>
+ *     <li>`GET /talks?speaker=...&type=...&from=1990&to=2005&offset=0&limit=100` lists the metadata of talks, as
+ *     filtered by {@link Catalog.Query}. Any column may be given, and more than once to match any of its values.
+ *     With `by=<column>`, counts of talks are grouped by the column instead.</li>
+ *     <li>`GET /talks/<name>` returns the metadata of a talk, such as `/talks/gc/2018-04/the-prophet-of-god`, and
+ *     links to its files.</li>
+ *     <li>`GET /talks/<name>.txt`, `_notes.tsv`, `_ref.tsv`, and `.html` return the files of a talk as they were
+ *     scraped.</li>
+ *     <li>`GET /search?q=...&offset=0&limit=20` searches the full-text index, if it has been built.</li>
+ *     <li>`GET /health` returns the number of talks and of indexed documents.</li>
+ * </ul>
+ * Metadata and search results are returned as JSON.
+ *
+ * Small files are kept in memory once they are read. Larger files are sent with {@link FileChannel#transferTo} through a
+ * channel over the response body, a chunk at a time, so they are never read into the heap whole. The exchange doesn't
+ * expose its socket, so each chunk is still copied through a buffer.
+ */
+public class CorpusServer {
+
+    private static final String TALKS_PATH = "/talks";
+    private static final String SEARCH_PATH = "/search";
+    private static final String HEALTH_PATH = "/health";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String BY = "by";
+    private static final String OFFSET = "offset";
+    private static final String LIMIT = "limit";
+    private static final String QUERY = "q";
+    /**
+     * Suffixes of the files of a talk, and the content type of each.
+     */
+    private static final String[][] TALK_FILES = {
+            {TalkFiles.TEXT_SUFFIX, "text/plain; charset=utf-8"},
+            {TalkFiles.NOTES_SUFFIX, "text/tab-separated-values; charset=utf-8"},
+            {TalkFiles.REFERENCES_SUFFIX, "text/tab-separated-values; charset=utf-8"},
+            {TalkFiles.SOURCE_SUFFIX, "text/html; charset=utf-8"}};
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    /**
+     * Build the catalog of every collection which has been scraped, and open the search index if it exists.
+     * @param collections Root folders, by short name of the collection (such as `gc`).
+     * @param indexFile Written by the `build` command of `Index`, or which does not exist.
+     * @param cacheBytes The most bytes of files to keep in memory.
+     * @return The server, which has not yet been started.
+     * @throws IOException When a table or the search index can't be read.
+     */
+    public static CorpusServer load(Map<String, String> collections, File indexFile, long cacheBytes) throws IOException {
+        final CatalogWriter writer = new CatalogWriter();
+        final Map<String, File> rootFolders = new LinkedHashMap<>();
+        for (Map.Entry<String, String> collection : collections.entrySet()) {
+            final File rootFolder = new File(collection.getValue());
+            if (rootFolder.exists()) {
+                writer.addRootFolder(collection.getKey(), rootFolder);
+                rootFolders.put(collection.getKey(), rootFolder);
+            }
+        }
+        final SearchIndex index = indexFile.exists() ? SearchIndex.open(indexFile) : null;
+        return new CorpusServer(writer.build(), rootFolders, index, cacheBytes);
+    }
+
+    private final Catalog catalog;
+    private final Map<String, File> rootFolders;
+    private final Map<String, SourceStore> sourceStores = new HashMap<>();
+    private final SearchIndex index;
+    private final DocumentCache cache;
+    private HttpServer server = null;
+    private ExecutorService executor = null;
+
+    /**
+     * @param catalog Of every talk.
+     * @param rootFolders Of each collection, by short name.
+     * @param index Of the text of every talk, or `null` if search isn't available.
+     * @param cacheBytes The most bytes of files to keep in memory.
+     */
+    public CorpusServer(Catalog catalog, Map<String, File> rootFolders, SearchIndex index, long cacheBytes) {
+        this.catalog = catalog;
+        this.rootFolders = rootFolders;
+        for (Map.Entry<String, File> rootFolder : rootFolders.entrySet()) {
+            sourceStores.put(rootFolder.getKey(), new SourceStore(new File(rootFolder.getValue(), SourceStore.FOLDER_NAME)));
+        }
+        this.index = index;
+        this.cache = new DocumentCache(cacheBytes);
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @param address To listen on, such as `localhost` and port `0` for any free port.
+     * @param threads Which handle requests. Connections are accepted and read by the server on its own thread.
+     * @throws IOException When the address can't be bound.
+     */
+    public void start(InetSocketAddress address, int threads) throws IOException {
+        // Headers and body are written separately, so without this each response waits on the client to acknowledge.
+        // It is read once, when the first server is created.
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(address, 1024);
+        server.createContext("/", this::handle);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return The port on which the server listens.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, then wait briefly for those in progress.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        if (index != null) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method not allowed: `" + method + "`.");
+                return;
+            }
+            final String path = exchange.getRequestURI().getPath();
+            final Map<String, List<String>> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (TALKS_PATH.equals(path) || (TALKS_PATH + "/").equals(path)) {
+                listTalks(exchange, parameters);
+            } else if (path.startsWith(TALKS_PATH + "/")) {
+                getTalk(exchange, path.substring(TALKS_PATH.length() + 1));
+            } else if (SEARCH_PATH.equals(path)) {
+                search(exchange, parameters);
+            } else if (HEALTH_PATH.equals(path)) {
+                sendJson(exchange, 200, "{\"talks\":" + catalog.getRowCount() +
+                        ",\"documents\":" + (index != null ? index.getDocumentCount() : 0) + "}");
+            } else {
+                sendError(exchange, 404, "Not found: `" + path + "`.");
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorIfNotResponded(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            sendErrorIfNotResponded(exchange, 500, "Unable to handle request.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void listTalks(HttpExchange exchange, Map<String, List<String>> parameters) throws IOException {
+        final Catalog.Query query = catalog.query();
+        String from = null;
+        String to = null;
+        String by = null;
+        int offset = 0;
+        int limit = DEFAULT_LIMIT;
+        for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+            final String key = parameter.getKey();
+            final String value = parameter.getValue().get(0);
+            if (FROM.equals(key)) {
+                from = value;
+            } else if (TO.equals(key)) {
+                to = value;
+            } else if (BY.equals(key)) {
+                by = value;
+            } else if (OFFSET.equals(key)) {
+                offset = parseInt(key, value, 0, Integer.MAX_VALUE);
+            } else if (LIMIT.equals(key)) {
+                limit = parseInt(key, value, 0, MAX_LIMIT);
+            } else {
+                query.where(key, parameter.getValue().toArray(new String[0]));
+            }
+        }
+        if (from != null || to != null) {
+            query.between(from, to);
+        }
+        final StringBuilder json = new StringBuilder();
+        if (by != null) {
+            json.append("{\"groups\":{");
+            boolean isFirst = true;
+            for (Map.Entry<String, Integer> group : query.groupBy(by).entrySet()) {
+                if (!isFirst) {
+                    json.append(',');
+                }
+                appendString(json, group.getKey()).append(':').append(group.getValue());
+                isFirst = false;
+            }
+            json.append("}}");
+        } else {
+            final int[] rows = query.rows();
+            json.append("{\"count\":").append(rows.length).append(",\"talks\":[");
+            for (int i = offset; i < rows.length && i - offset < limit; i++) {
+                if (i > offset) {
+                    json.append(',');
+                }
+                appendTalk(json, rows[i]);
+            }
+            json.append("]}");
+        }
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void getTalk(HttpExchange exchange, String path) throws IOException {
+        // A file of the talk, such as `gc/2018-04/the-prophet-of-god.txt`.
+        for (String[] talkFile : TALK_FILES) {
+            final String suffix = talkFile[0];
+            if (path.endsWith(suffix)) {
+                final int row = catalog.find(path.substring(0, path.length() - suffix.length()));
+                if (row != -1) {
+                    sendTalkFile(exchange, row, suffix, talkFile[1]);
+                    return;
+                }
+            }
+        }
+        // The metadata of the talk.
+        final int row = catalog.find(path);
+        if (row == -1) {
+            sendError(exchange, 404, "No such talk: `" + path + "`.");
+            return;
+        }
+        final StringBuilder json = new StringBuilder();
+        appendTalk(json, row);
+        // Link to each file of the talk.
+        json.setLength(json.length() - 1);
+        json.append(",\"files\":{");
+        boolean isFirst = true;
+        for (String[] talkFile : TALK_FILES) {
+            if (hasTalkFile(row, talkFile[0])) {
+                if (!isFirst) {
+                    json.append(',');
+                }
+                appendString(json, talkFile[0]).append(':');
+                appendString(json, TALKS_PATH + "/" + path + talkFile[0]);
+                isFirst = false;
+            }
+        }
+        json.append("}}");
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private boolean hasTalkFile(int row, String suffix) {
+        if (TalkFiles.SOURCE_SUFFIX.equals(suffix) && SourceStore.isKey(catalog.get(row, Catalog.SOURCE))) {
+            return sourceStores.get(catalog.get(row, Catalog.COLLECTION)).contains(catalog.get(row, Catalog.SOURCE));
+        }
+        final File file = getTalkFile(row, suffix);
+        return file != null && file.isFile();
+    }
+
+    /**
+     * @return The file of the talk, which may not exist, or `null` if the talk has no files.
+     */
+    private File getTalkFile(int row, String suffix) {
+        final String name = catalog.get(row, Catalog.NAME);
+        final String base = name.substring(name.lastIndexOf('/') + 1);
+        if (base.startsWith("#")) {
+            return null;
+        }
+        final File folder = new File(rootFolders.get(catalog.get(row, Catalog.COLLECTION)), catalog.get(row, Catalog.FOLDER));
+        if (TalkFiles.SOURCE_SUFFIX.equals(suffix) && !catalog.get(row, Catalog.SOURCE).isEmpty()) {
+            return new File(folder, catalog.get(row, Catalog.SOURCE));
+        }
+        return new File(folder, base + suffix);
+    }
+
+    private void sendTalkFile(HttpExchange exchange, int row, String suffix, String contentType) throws IOException {
+        final String source = catalog.get(row, Catalog.SOURCE);
+        if (TalkFiles.SOURCE_SUFFIX.equals(suffix) && SourceStore.isKey(source)) {
+            // Stored sources never change, so they needn't be checked again once cached.
+            final SourceStore sourceStore = sourceStores.get(catalog.get(row, Catalog.COLLECTION));
+            if (!sourceStore.contains(source)) {
+                sendError(exchange, 404, "Missing source of talk: `" + catalog.get(row, Catalog.NAME) + "`.");
+                return;
+            }
+            final byte[] bytes = cache.get(SourceStore.FOLDER_NAME + "/" + source, 0L,
+                    () -> sourceStore.read(source).getBytes(StandardCharsets.UTF_8));
+            sendBytes(exchange, 200, contentType, bytes);
+            return;
+        }
+        final File file = getTalkFile(row, suffix);
+        if (file == null || !file.isFile()) {
+            sendError(exchange, 404, "No such file of talk: `" + catalog.get(row, Catalog.NAME) + suffix + "`.");
+            return;
+        }
+        final long length = file.length();
+        if (cache.accepts(length)) {
+            // A file which was scraped again is replaced, so its modification time changes.
+            final byte[] bytes = cache.get(file.getPath(), file.lastModified(), () -> Files.readAllBytes(file.toPath()));
+            sendBytes(exchange, 200, contentType, bytes);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, length);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             WritableByteChannel out = Channels.newChannel(exchange.getResponseBody())) {
+            long position = 0;
+            while (position < length) {
+                final long transferred = channel.transferTo(position, length - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private void search(HttpExchange exchange, Map<String, List<String>> parameters) throws IOException {
+        if (index == null) {
+            sendError(exchange, 503, "The search index has not been built.");
+            return;
+        }
+        final List<String> queries = parameters.get(QUERY);
+        if (queries == null || queries.get(0).trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: `" + QUERY + "`.");
+        }
+        final int offset = parameters.containsKey(OFFSET) ?
+                parseInt(OFFSET, parameters.get(OFFSET).get(0), 0, Integer.MAX_VALUE) : 0;
+        final int limit = parameters.containsKey(LIMIT) ?
+                parseInt(LIMIT, parameters.get(LIMIT).get(0), 0, MAX_LIMIT) : DEFAULT_SEARCH_LIMIT;
+        final List<SearchIndex.Hit> hits = index.search(queries.get(0));
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"count\":").append(hits.size()).append(",\"hits\":[");
+        for (int i = offset; i < hits.size() && i - offset < limit; i++) {
+            if (i > offset) {
+                json.append(',');
+            }
+            final SearchIndex.Hit hit = hits.get(i);
+            final String path = hit.getPath();
+            // Name the hit as its talk is named in the catalog.
+            final String name = TalkFiles.getBase(path);
+            json.append("{\"count\":").append(hit.getCount()).append(",\"name\":");
+            appendString(json, name);
+            final int row = catalog.find(name);
+            if (row != -1) {
+                json.append(",\"talk\":");
+                appendTalk(json, row);
+            }
+            json.append('}');
+        }
+        json.append("]}");
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void appendTalk(StringBuilder json, int row) {
+        json.append('{');
+        boolean isFirst = true;
+        for (String column : catalog.getColumnNames()) {
+            if (!isFirst) {
+                json.append(',');
+            }
+            appendString(json, column).append(':');
+            appendString(json, catalog.get(row, column));
+            isFirst = false;
+        }
+        json.append('}');
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String s) {
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    private static int parseInt(String key, String value, int min, int max) {
+        final int i;
+        try {
+            i = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number for `" + key + "`: `" + value + "`.");
+        }
+        if (i < min || i > max) {
+            throw new IllegalArgumentException("Expected `" + key + "` from " + min + " to " + max + ": `" + value + "`.");
+        }
+        return i;
+    }
+
+    /**
+     * @param query Raw (encoded) query of a URI, or `null`.
+     * @return Values of each parameter, by name, in order.
+     */
+    static Map<String, List<String>> parseQuery(String query) {
+        final Map<String, List<String>> parameters = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            final int equals = pair.indexOf('=');
+            final String key = URLDecoder.decode(equals == -1 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            final String value = equals == -1 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        sendBytes(exchange, status, JSON, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send an error, unless the headers of a response were already sent, such as when a file fails partway through.
+     * The response is then only cut short when the exchange is closed.
+     */
+    private static void sendErrorIfNotResponded(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        sendError(exchange, status, message);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        final StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message).append('}');
+        sendJson(exchange, status, json.toString());
+    }
+
+    private static void sendBytes(HttpExchange exchange, int status, String contentType, byte[] bytes) throws IOException {
+        final Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            headers.set("Content-Length", String.valueOf(bytes.length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.flush();
+    }
+}
@@ -0,0 +1,94 @@
+package com.ericrobertbrewer.podium.serve;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the bytes of recently served files in memory, up to a total size, discarding the least recently used first.
+ * An instance may be shared between threads.
+ */
+class DocumentCache {
+
+    /**
+     * Reads the bytes of a file which isn't in the cache.
+     */
+    interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    private static class Entry {
+
+        private final long version;
+        private final byte[] bytes;
+
+        private Entry(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0L;
+
+    /**
+     * @param maxBytes The most bytes to keep in memory. No single file larger than a sixteenth of this is kept.
+     */
+    DocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 16;
+    }
+
+    /**
+     * @param length Of a file.
+     * @return `true` if a file of this length would be kept.
+     */
+    boolean accepts(long length) {
+        return length <= maxEntryBytes;
+    }
+
+    /**
+     * @param key Such as the path of the file.
+     * @param version Such as the modification time of the file. A cached entry of any other version is read again.
+     * @param loader Which reads the file. It is called outside of any lock, so a file may be read by two threads at once.
+     * @return The bytes of the file.
+     * @throws IOException When the file can't be read.
+     */
+    byte[] get(String key, long version, Loader loader) throws IOException {
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.version == version) {
+                return entry.bytes;
+            }
+        }
+        final byte[] bytes = loader.load();
+        if (!accepts(bytes.length)) {
+            return bytes;
+        }
+        synchronized (entries) {
+            final Entry previous = entries.put(key, new Entry(version, bytes));
+            if (previous != null) {
+                totalBytes -= previous.bytes.length;
+            }
+            totalBytes += bytes.length;
+            final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                totalBytes -= iterator.next().getValue().bytes.length;
+                iterator.remove();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of files in memory.
+     */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ericrobertbrewer.podium.serve;
+
+import com.ericrobertbrewer.podium.Folders;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+public final class Serve {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final String INDEX_FILE_NAME = "corpus.idx";
+    private static final long CACHE_BYTES = 64L << 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2) {
+            throw new IllegalArgumentException("Usage: [<port>] [<threads>]");
+        }
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        final long start = System.currentTimeMillis();
+        final CorpusServer server = CorpusServer.load(Folders.COLLECTIONS, new File(Folders.INDEX_ROOT, INDEX_FILE_NAME), CACHE_BYTES);
+        // Listen only on this machine.
+        server.start(new InetSocketAddress("localhost", port), threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Serving " + server.getCatalog().getRowCount() + " talks at `http://localhost:" + server.getPort() +
+                "/` (loaded in " + (System.currentTimeMillis() - start) + " ms).");
+    }
+
+    private Serve() {
+    }
+}